@@ -6,12 +6,17 @@ import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Looper;
 import android.provider.Settings;
 import android.provider.Telephony;
+import android.text.Editable;
+import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.Spinner;
 import android.widget.Switch;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
@@ -19,8 +24,28 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 
+import com.example.catchcall.data.CallLogIngestor;
+import com.example.catchcall.data.SettingsSnapshot;
 import com.example.catchcall.data.SettingsStore;
-
+import com.example.catchcall.domain.OwnLineResolver;
+import com.example.catchcall.domain.ReplyTemplate;
+import com.example.catchcall.metrics.Diagnostics;
+import com.example.catchcall.metrics.EventTrace;
+import com.example.catchcall.metrics.StartupTrace;
+import com.example.catchcall.receiver.CallDetectionEngine;
+import com.example.catchcall.receiver.MissedCallReceiver;
+import com.example.catchcall.sms.SegmentationPlanner;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -36,11 +61,29 @@ public class MainActivity extends AppCompatActivity {
     private Spinner spCooldownUnit;
     private Button btnSaveCooldown;
     private EditText etMissedTpl, etMannerTpl;
+    private TextView tvMissedPlan, tvMannerPlan;
+    private EditText etMannerKeywords;
     private Button btnSaveTemplates;
+    private Button btnRefreshStats;
+    private TextView tvStats;
+    private Switch switchTrace;
+    private Button btnExportTrace;
 
     private final ActivityResultLauncher<String[]> reqPerms =
             registerForActivityResult(new ActivityResultContracts.RequestMultiplePermissions(),
-                    result -> showPermState());
+                    result -> {
+                        showPermState();
+                        OwnLineResolver.refreshAsync(this);   // 번호 권한이 새로 생겼을 수 있음
+                        CallDetectionEngine.get(this).start(); // API 31+ 통화 상태 콜백
+                        requestCallScreeningRole();           // 수신 번호를 더 빨리 받기 위한 역할 (선택)
+                    });
+
+    private final ActivityResultLauncher<Intent> reqScreeningRole =
+            registerForActivityResult(new ActivityResultContracts.StartActivityForResult(),
+                    result -> Toast.makeText(this,
+                            result.getResultCode() == RESULT_OK
+                                    ? "수신 번호 확인(통화 스크리닝)이 설정되었습니다." : "통화 스크리닝 설정이 취소되었습니다.",
+                            Toast.LENGTH_SHORT).show());
 
     private final ActivityResultLauncher<Intent> reqDefaultSmsRole =
             registerForActivityResult(new ActivityResultContracts.StartActivityForResult(),
@@ -54,13 +97,16 @@ public class MainActivity extends AppCompatActivity {
                     });
 
     private SettingsStore settings;
+    private StartupTrace startup;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        startup = StartupTrace.begin(this);
         setContentView(R.layout.activity_main);
+        startup.contentSet();
 
-        settings = new SettingsStore(this);
+        settings = new SettingsStore(this);     // prefs 파일 읽기는 첫 조회 때 (아래 백그라운드)
 
         // 기본 UI 바인딩
         switchTest     = findViewById(R.id.switch_test);
@@ -74,27 +120,14 @@ public class MainActivity extends AppCompatActivity {
         btnSaveCooldown = findViewById(R.id.btn_save_cooldown);
         etMissedTpl     = findViewById(R.id.et_missed_tpl);
         etMannerTpl     = findViewById(R.id.et_manner_tpl);
+        tvMissedPlan    = findViewById(R.id.tv_missed_plan);
+        tvMannerPlan    = findViewById(R.id.tv_manner_plan);
+        etMannerKeywords= findViewById(R.id.et_manner_keywords);
         btnSaveTemplates= findViewById(R.id.btn_save_templates);
-
-        // 기능 on/off 스위치
-        switchFeature.setChecked(settings.isFeatureEnabled());
-        switchFeature.setOnCheckedChangeListener((btn, isChecked) -> {
-            settings.setFeatureEnabled(isChecked);
-            Toast.makeText(this,
-                    isChecked ? "자동 회신 기능 켜짐" : "자동 회신 기능 꺼짐",
-                    Toast.LENGTH_SHORT).show();
-        });
-
-        // 테스트 모드 스위치 (최우선: on이면 쿨타임 0초)
-        switchTest.setChecked(settings.isTestMode());
-        switchTest.setOnCheckedChangeListener((buttonView, isChecked) -> {
-            settings.setTestMode(isChecked);
-            Toast.makeText(this,
-                    isChecked ? "테스트 모드: 쿨타임 0초(최우선)" : "테스트 모드 해제",
-                    Toast.LENGTH_SHORT).show();
-            // 표시용으로만 반영 (실제 적용은 SettingsStore.getCooldownSeconds()에서 0으로 반환)
-            bindCooldownToInputs(settings.getCooldownSeconds());
-        });
+        btnRefreshStats = findViewById(R.id.btn_refresh_stats);
+        tvStats         = findViewById(R.id.tv_stats);
+        switchTrace     = findViewById(R.id.switch_trace);
+        btnExportTrace  = findViewById(R.id.btn_export_trace);
 
         // 권한 요청
         btnPerm.setOnClickListener(v -> {
@@ -103,6 +136,8 @@ public class MainActivity extends AppCompatActivity {
             if (!granted(Manifest.permission.SEND_SMS))         need.add(Manifest.permission.SEND_SMS);
             if (!granted(Manifest.permission.RECEIVE_SMS))      need.add(Manifest.permission.RECEIVE_SMS);
             if (!granted(Manifest.permission.READ_CALL_LOG))    need.add(Manifest.permission.READ_CALL_LOG);
+            // (선택) {name} 자리표시자용 연락처 이름: 거부해도 템플릿 기본값으로 발송
+            if (!granted(Manifest.permission.READ_CONTACTS))    need.add(Manifest.permission.READ_CONTACTS);
             // (선택) MMS 수신/푸시 권한도 요청하고 싶다면 아래 주석 해제
             // if (!granted(Manifest.permission.RECEIVE_MMS))      need.add(Manifest.permission.RECEIVE_MMS);
             // if (!granted(Manifest.permission.RECEIVE_WAP_PUSH)) need.add(Manifest.permission.RECEIVE_WAP_PUSH);
@@ -126,26 +161,120 @@ public class MainActivity extends AppCompatActivity {
         // 기본 문자앱 설정 요청
         btnDefaultSms.setOnClickListener(v -> requestDefaultSmsApp());
 
-        // UI 초기값 세팅
-        bindCooldownToInputs(settings.getCooldownSeconds()); // test mode면 0으로 표시될 수 있음
-        etMissedTpl.setText(settings.getMissedTemplate());
-        etMannerTpl.setText(settings.getMannerTemplate());
-
         btnSaveCooldown.setOnClickListener(v -> saveCooldown());
         btnSaveTemplates.setOnClickListener(v -> saveTemplates());
+        btnRefreshStats.setOnClickListener(v -> showStats());
+        btnExportTrace.setOnClickListener(v -> exportTrace());
+
+        // 설정 값은 백그라운드에서 읽어 온 뒤 바인딩 (그 전까지 설정 입력은 잠금)
+        setSettingsInputsEnabled(false);
+        setTemplateInputsEnabled(false);
+        loadSettingsAsync();
+    }
+
+    /** 첫 prefs 읽기(디스크) + 권한 확인은 메인 스레드 밖에서 → 스냅샷 하나로 바인딩 */
+    private void loadSettingsAsync() {
+        Thread t = new Thread(() -> {
+            SettingsSnapshot s = settings.snapshot();
+            boolean trace = settings.isTraceEnabled();
+            boolean needPerms = missingPermissions();
+            runOnUiThread(() -> {
+                if (isFinishing() || isDestroyed()) return;
+                bindSettings(s, trace);
+                if (needPerms) showPermState();
+            });
+        }, "main-startup");
+        t.start();
+    }
+
+    private void bindSettings(SettingsSnapshot s, boolean trace) {
+        // 기능 on/off 스위치
+        switchFeature.setChecked(s.featureEnabled);
+        switchFeature.setOnCheckedChangeListener((btn, isChecked) -> {
+            settings.setFeatureEnabled(isChecked);
+            Toast.makeText(this,
+                    isChecked ? "자동 회신 기능 켜짐" : "자동 회신 기능 꺼짐",
+                    Toast.LENGTH_SHORT).show();
+        });
+
+        // 테스트 모드 스위치 (최우선: on이면 쿨타임 0초)
+        switchTest.setChecked(s.testMode);
+        switchTest.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            settings.setTestMode(isChecked);
+            Toast.makeText(this,
+                    isChecked ? "테스트 모드: 쿨타임 0초(최우선)" : "테스트 모드 해제",
+                    Toast.LENGTH_SHORT).show();
+            // 표시용으로만 반영 (실제 적용은 SettingsStore.getCooldownSeconds()에서 0으로 반환)
+            bindCooldownToInputs(settings.getCooldownSeconds());
+        });
+
+        bindCooldownToInputs(s.cooldownSeconds); // test mode면 0으로 표시될 수 있음
 
-        showPermState();
+        // 이벤트 트레이스: 켜면 바로 기록 시작 (프로세스 재시작 후에도 유지)
+        switchTrace.setChecked(trace);
+        switchTrace.setOnCheckedChangeListener((btn, isChecked) -> {
+            settings.setTraceEnabled(isChecked);
+            EventTrace.setEnabled(isChecked);
+            Toast.makeText(this,
+                    isChecked ? "이벤트 트레이스 기록 시작" : "이벤트 트레이스 기록 중지",
+                    Toast.LENGTH_SHORT).show();
+        });
+
+        setSettingsInputsEnabled(true);
+        startup.interactive();
+
+        // 화면 아래쪽 템플릿 편집기와 부가 등록은 메인 스레드가 한가해지면
+        Looper.myQueue().addIdleHandler(() -> {
+            if (isFinishing() || isDestroyed()) return false;
+            bindTemplates(s);
+            // 프로세스가 살아 있는 동안은 콜로그 변경도 부재중 보조 경로로 수집
+            CallLogIngestor.get(this).observe(MissedCallReceiver.FALLBACK_SINK);
+            // 쓸 수 있는 빠른 통화 상태 소스 등록 (API 31+)
+            CallDetectionEngine.get(this).start();
+            return false;
+        });
+    }
+
+    /** 템플릿/키워드 편집기 채우기 (긴 문구 배치 + 분할 미리보기 계산이 있어 첫 화면 뒤로 미룸) */
+    private void bindTemplates(SettingsSnapshot s) {
+        etMissedTpl.setText(s.missedTemplate);
+        etMannerTpl.setText(s.mannerTemplate);
+        bindPlanPreview(etMissedTpl, tvMissedPlan);
+        bindPlanPreview(etMannerTpl, tvMannerPlan);
+        etMannerKeywords.setText(TextUtils.join(", ", s.mannerKeywords));
+        setTemplateInputsEnabled(true);    // 채우기 전에 저장하면 빈 값 = 기본 문구로 덮어쓰므로 그때까지 잠금
+    }
+
+    private void setSettingsInputsEnabled(boolean on) {
+        switchFeature.setEnabled(on);
+        switchTest.setEnabled(on);
+        switchTrace.setEnabled(on);
+        etCooldownValue.setEnabled(on);
+        spCooldownUnit.setEnabled(on);
+        btnSaveCooldown.setEnabled(on);
+    }
+
+    private void setTemplateInputsEnabled(boolean on) {
+        etMissedTpl.setEnabled(on);
+        etMannerTpl.setEnabled(on);
+        etMannerKeywords.setEnabled(on);
+        btnSaveTemplates.setEnabled(on);
     }
 
     private boolean granted(String p) {
         return ActivityCompat.checkSelfPermission(this, p) == PackageManager.PERMISSION_GRANTED;
     }
 
-    private void showPermState() {
-        boolean need = !granted(Manifest.permission.READ_PHONE_STATE)
+    private boolean missingPermissions() {
+        return !granted(Manifest.permission.READ_PHONE_STATE)
                 || !granted(Manifest.permission.SEND_SMS)
                 || !granted(Manifest.permission.RECEIVE_SMS)
                 || !granted(Manifest.permission.READ_CALL_LOG);
+    }
+
+    /** 권한 상태 안내 (시작 시에는 빠진 권한이 있을 때만 불린다) */
+    private void showPermState() {
+        boolean need = missingPermissions();
         String msg = need ? "권한 미부여: 전화/문자/수신문자/통화기록 권한 허용 필요" : "권한 정상";
         Toast.makeText(this, msg, Toast.LENGTH_SHORT).show();
     }
@@ -205,10 +334,97 @@ public class MainActivity extends AppCompatActivity {
         // 빈 값이면 getXxxTemplate()에서 기본값을 리턴하도록 저장 로직 유지
         settings.setMissedTemplate(missed);
         settings.setMannerTemplate(manner);
+        settings.setMannerKeywords(etMannerKeywords.getText().toString());
+        // 템플릿 컴파일은 다음 스냅샷에서 한 번 (SettingsSnapshot), 분할 계획은 발송 본문마다 렌더가 함께 계산
 
         Toast.makeText(this, "템플릿 저장 완료", Toast.LENGTH_SHORT).show();
     }
 
+    /** 진단 통계 패널 (dumpsys 출력과 같은 내용) */
+    private void showStats() {
+        StringWriter out = new StringWriter();
+        Diagnostics.dump(new PrintWriter(out));
+        tvStats.setText(out.toString());
+    }
+
+    /**
+     * 트레이스 링을 JSON 파일로 (포맷은 여기서만, 메인 스레드 밖에서).
+     * 파일은 앱 외부 저장소: adb pull /sdcard/Android/data/com.example.catchcall/files/<이름> → ui.perfetto.dev 에서 열기
+     */
+    private void exportTrace() {
+        File dir = getExternalFilesDir(null);
+        if (dir == null) dir = getFilesDir();
+        final File out = new File(dir, "catchcall-trace-" + System.currentTimeMillis() + ".json");
+        Thread t = new Thread(() -> {
+            String msg;
+            try (Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8))) {
+                int n = EventTrace.exportChromeJson(w);
+                msg = "트레이스 " + n + "건 저장: " + out.getAbsolutePath();
+            } catch (IOException e) {
+                msg = "트레이스 저장 실패: " + e.getMessage();
+            }
+            final String text = msg;
+            runOnUiThread(() -> Toast.makeText(this, text, Toast.LENGTH_LONG).show());
+        }, "trace-export");
+        t.start();
+    }
+
+    /** adb shell dumpsys activity top 에서도 진단 통계가 보이도록 */
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        Diagnostics.dump(writer);
+    }
+
+    /** 템플릿 편집 중 분할 수/발송 경로 미리보기 (입력이 멈추면 갱신, 자리표시자는 예시 값으로 렌더) */
+    private void bindPlanPreview(EditText et, TextView out) {
+        final ReplyTemplate.Values sample = new ReplyTemplate.Values();
+        final ReplyTemplate.Output rendered = new ReplyTemplate.Output();
+        final Runnable update = () -> {
+            String text = et.getText().toString().trim();
+            if (text.isEmpty()) {
+                out.setText("비워두면 기본 문구로 발송됩니다.");
+                return;
+            }
+            try {
+                boolean mms = getPackageName().equals(Telephony.Sms.getDefaultSmsPackage(this));
+                long now = System.currentTimeMillis();
+                long eta = settings.getCallbackEtaMinutes();
+                sample.name = "홍길동";
+                sample.time = now;
+                sample.missedCount = 1;
+                sample.callbackAt = eta > 0 ? now + eta * 60_000L : 0L;
+                ReplyTemplate.compile(text).render(sample, rendered);
+                out.setText(SegmentationPlanner.of(rendered.text.toString(), rendered).describe(mms));
+            } catch (Throwable t) {
+                out.setText("");
+            }
+        };
+        et.addTextChangedListener(new TextWatcher() {
+            @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+            @Override public void onTextChanged(CharSequence s, int start, int before, int count) {}
+            @Override public void afterTextChanged(Editable s) {
+                out.removeCallbacks(update);
+                out.postDelayed(update, 150);
+            }
+        });
+        update.run();
+    }
+
+    /** 통화 스크리닝 역할 요청 (API 29+, 아직 없을 때 한 번) → CallNumberScreeningService 가 수신 번호 제공 */
+    private void requestCallScreeningRole() {
+        if (Build.VERSION.SDK_INT < 29) return;
+        try {
+            RoleManager rm = getSystemService(RoleManager.class);
+            if (rm != null && rm.isRoleAvailable(RoleManager.ROLE_CALL_SCREENING)
+                    && !rm.isRoleHeld(RoleManager.ROLE_CALL_SCREENING)) {
+                reqScreeningRole.launch(rm.createRequestRoleIntent(RoleManager.ROLE_CALL_SCREENING));
+            }
+        } catch (Throwable t) {
+            Toast.makeText(this, "통화 스크리닝 요청 실패: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+    }
+
     private void requestDefaultSmsApp() {
         try {
             if (Build.VERSION.SDK_INT >= 29) {
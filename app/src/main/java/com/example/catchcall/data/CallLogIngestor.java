@@ -0,0 +1,163 @@
+package com.example.catchcall.data;
+
+import android.Manifest;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.os.Build;
+import android.os.Bundle;
+import android.provider.CallLog;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 콜로그 증분 수집 (부재중 보조 경로).
+ *
+ * - 마지막으로 처리한 _ID / DATE 를 high-water mark 로 저장하고, 그보다 새 부재중 행만 읽는다
+ *   (_ID 오름차순, 한 번에 BATCH 행, 최근 LOOKBACK_MS 이내만) → 전체 테이블 정렬 조회 없음
+ * - 새 행마다 Sink 를 한 번씩 부르고 mark 를 올린다 → 가장 최신 1건이 아니라 놓친 부재중 전부를 정확히 한 번
+ * - observe() 로 ContentObserver 를 걸면 콜로그 변경 때도 (잠시 모았다가) 같은 경로로 수집한다
+ */
+public final class CallLogIngestor {
+    private static final String TAG = "AutoReply";
+
+    private static final String PREF = "call_log_hwm";
+    private static final String KEY_ID = "last_id";
+    private static final String KEY_DATE = "last_date";
+
+    /** 이보다 오래된 부재중은 자동문자 대상이 아님 (주 경로 보조용 '최근 통화' 기준) */
+    public static final long LOOKBACK_MS = 120_000L;
+    private static final int  BATCH = 32;
+    /** 콜로그 변경 알림을 모으는 시간 (주 경로 IDLE 처리가 먼저 억제창을 걸 수 있게) */
+    private static final long SETTLE_MS = 5_000L;
+
+    private static final String[] PROJECTION = {CallLog.Calls._ID, CallLog.Calls.NUMBER, CallLog.Calls.DATE};
+
+    /** 새로 들어온 부재중 행 처리 */
+    public interface Sink {
+        void onMissedCall(Context ctx, String number, long date);
+    }
+
+    private static final ScheduledThreadPoolExecutor EXEC = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "call-log-ingest");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static volatile CallLogIngestor shared;
+
+    private final Context app;
+    private final SharedPreferences prefs;
+    private ContentObserver observer;
+    private final Object scheduleLock = new Object();
+    private ScheduledFuture<?> pending;
+
+    private CallLogIngestor(Context app) {
+        this.app = app;
+        this.prefs = app.getSharedPreferences(PREF, Context.MODE_PRIVATE);
+    }
+
+    public static CallLogIngestor get(Context ctx) {
+        CallLogIngestor i = shared;
+        if (i != null) return i;
+        synchronized (CallLogIngestor.class) {
+            if (shared == null) shared = new CallLogIngestor(ctx.getApplicationContext());
+            return shared;
+        }
+    }
+
+    /**
+     * mark 이후의 새 부재중 행을 모두 처리.
+     * @return 처리한 행 수, 권한이 없으면 -1
+     */
+    public synchronized int ingest(long now, Sink sink) {
+        if (ContextCompat.checkSelfPermission(app, Manifest.permission.READ_CALL_LOG)
+                != PackageManager.PERMISSION_GRANTED) {
+            return -1;
+        }
+        long lastId = prefs.getLong(KEY_ID, -1L);
+        long lastDate = prefs.getLong(KEY_DATE, 0L);
+        // DATE 는 통화 시작 시각이고 행은 통화가 끝날 때 들어가므로 순서 기준은 _ID 만 (DATE 는 기록용)
+        long since = now - LOOKBACK_MS;
+        int total = 0;
+        try {
+            while (true) {
+                int rows = 0;
+                try (Cursor c = queryAfter(lastId, since)) {
+                    if (c == null) break;
+                    int iId = c.getColumnIndexOrThrow(CallLog.Calls._ID);
+                    int iNum = c.getColumnIndexOrThrow(CallLog.Calls.NUMBER);
+                    int iDate = c.getColumnIndexOrThrow(CallLog.Calls.DATE);
+                    while (c.moveToNext() && rows < BATCH) {
+                        long id = c.getLong(iId);
+                        String num = c.getString(iNum);
+                        long date = c.getLong(iDate);
+                        rows++;
+                        if (num != null && !num.trim().isEmpty()) sink.onMissedCall(app, num, date);
+                        // 행마다 mark 를 올린다 → 중간에 죽어도 처리한 행은 다시 읽지 않음
+                        lastId = id;
+                        lastDate = Math.max(lastDate, date);
+                        prefs.edit().putLong(KEY_ID, lastId).putLong(KEY_DATE, lastDate).commit();
+                    }
+                }
+                total += rows;
+                if (rows < BATCH) break;
+            }
+        } catch (Throwable t) {
+            Log.w(TAG, "[CallLogIngestor] ingest error", t);
+        }
+        Log.d(TAG, "[CallLogIngestor] ingested=" + total + " mark=" + lastId + "/" + lastDate);
+        return total;
+    }
+
+    /** 콜로그 변경 시 자동 수집 (프로세스가 살아 있는 동안, 중복 등록 무시) */
+    public synchronized void observe(final Sink sink) {
+        if (observer != null) return;
+        observer = new ContentObserver(null) {
+            @Override
+            public void onChange(boolean selfChange) {
+                scheduleIngest(sink);
+            }
+        };
+        try {
+            app.getContentResolver().registerContentObserver(CallLog.Calls.CONTENT_URI, true, observer);
+        } catch (Throwable t) {
+            Log.w(TAG, "[CallLogIngestor] observer register failed: " + t.getMessage());
+            observer = null;
+        }
+    }
+
+    // ===== 내부 =====
+
+    private void scheduleIngest(Sink sink) {
+        synchronized (scheduleLock) {
+            if (pending != null) pending.cancel(false);
+            pending = EXEC.schedule(() -> ingest(System.currentTimeMillis(), sink), SETTLE_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** _ID 오름차순, 최대 BATCH 행 (O+ 는 QUERY_ARG_LIMIT, 그 전은 정렬절 LIMIT) */
+    private Cursor queryAfter(long lastId, long since) {
+        ContentResolver cr = app.getContentResolver();
+        String selection = CallLog.Calls._ID + " > ? AND " + CallLog.Calls.TYPE + " = ? AND " + CallLog.Calls.DATE + " >= ?";
+        String[] args = {String.valueOf(lastId), String.valueOf(CallLog.Calls.MISSED_TYPE), String.valueOf(since)};
+        String order = CallLog.Calls._ID + " ASC";
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            Bundle q = new Bundle();
+            q.putString(ContentResolver.QUERY_ARG_SQL_SELECTION, selection);
+            q.putStringArray(ContentResolver.QUERY_ARG_SQL_SELECTION_ARGS, args);
+            q.putString(ContentResolver.QUERY_ARG_SQL_SORT_ORDER, order);
+            q.putInt(ContentResolver.QUERY_ARG_LIMIT, BATCH);
+            return cr.query(CallLog.Calls.CONTENT_URI, PROJECTION, q, null);
+        }
+        return cr.query(CallLog.Calls.CONTENT_URI, PROJECTION, selection, args, order + " LIMIT " + BATCH);
+    }
+}
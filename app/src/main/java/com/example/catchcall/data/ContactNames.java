@@ -0,0 +1,90 @@
+package com.example.catchcall.data;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.ContactsContract;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {name} 자리표시자용 연락처 이름 조회.
+ * - READ_CONTACTS 권한이 없으면 조회하지 않는다 (템플릿의 기본값이 쓰인다)
+ * - 최근 번호 몇 개는 결과(없음 포함)를 잠시 기억 → 같은 번호 연속 발송에서 다시 조회하지 않음
+ * - 조회(prefetch)는 발송 판정 전에 작업 스레드에서 (울릴 때 / 리시버 파이프라인),
+ *   렌더는 캐시만 본다(cached) → 발송 경로에서 ContentResolver 를 부르지 않는다
+ */
+public final class ContactNames {
+    private static final String TAG = "AutoReply";
+    private static final int CACHE_SIZE = 64;
+    private static final long TTL_MS = 10 * 60_000L;
+    private static final String NONE = "";
+
+    private static final class Cached {
+        final String name;
+        final long at;
+
+        Cached(String name, long at) {
+            this.name = name;
+            this.at = at;
+        }
+    }
+
+    private static final Map<Long, Cached> CACHE = new LinkedHashMap<Long, Cached>(CACHE_SIZE * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Cached> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private ContactNames() {}
+
+    /** 캐시에 없거나 오래됐으면 조회해서 채운다 (ContentResolver 조회, 메인 스레드에서 부르지 말 것) */
+    public static void prefetch(Context ctx, String number, long now) {
+        long key = NumberKey.of(number);
+        if (key == NumberKey.NONE) return;
+        synchronized (CACHE) {
+            Cached e = CACHE.get(key);
+            if (e != null && now - e.at < TTL_MS) return;
+        }
+        if (ContextCompat.checkSelfPermission(ctx, Manifest.permission.READ_CONTACTS)
+                != PackageManager.PERMISSION_GRANTED) {
+            return;             // 권한은 나중에 생길 수 있으므로 기억하지 않는다
+        }
+        String name = query(ctx, number);
+        synchronized (CACHE) {
+            CACHE.put(key, new Cached(name == null ? NONE : name, now));
+        }
+    }
+
+    /** 캐시된 표시 이름 (조회하지 않음, 없거나 미리 못 읽었으면 null → 템플릿 기본값) */
+    public static String cached(String number, long now) {
+        long key = NumberKey.of(number);
+        if (key == NumberKey.NONE) return null;
+        synchronized (CACHE) {
+            Cached e = CACHE.get(key);
+            if (e == null || now - e.at >= TTL_MS) return null;
+            return e.name.isEmpty() ? null : e.name;
+        }
+    }
+
+    private static String query(Context ctx, String number) {
+        Uri uri = Uri.withAppendedPath(ContactsContract.PhoneLookup.CONTENT_FILTER_URI, Uri.encode(number));
+        try (Cursor c = ctx.getContentResolver().query(uri,
+                new String[]{ContactsContract.PhoneLookup.DISPLAY_NAME}, null, null, null)) {
+            if (c != null && c.moveToFirst()) {
+                String name = c.getString(0);
+                return name == null || name.trim().isEmpty() ? null : name.trim();
+            }
+        } catch (Throwable t) {
+            Log.w(TAG, "[ContactNames] lookup failed: " + t.getMessage());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.catchcall.data;
+
+import android.content.SharedPreferences;
+
+/**
+ * 리시버들이 SharedPreferences 에 남기는 번호별 키 묶음과 그 수명.
+ * - DEADLINE  : 값이 만료 시각 (now >= 값 이면 만료)
+ * - WRITTEN_AT: 값이 기록 시각 (now - 값 >= 수명 이면 만료)
+ * 조회는 read() 로 하면 아직 정리(compaction)되지 않은 만료 항목도 없는 것으로 취급된다.
+ */
+public enum PrefKeyFamily {
+    /** MissedCallReceiver: 같은 '한 통화' 재처리 방지. 콜로그 보조 경로가 2분 내 통화만 보므로 그 이상은 무의미 */
+    LAST_TS("auto_reply", "last_ts_", false, 120_000L),
+    /** MissedCallReceiver: 주 경로 직후 Fallback 억제창 길이 10초. 지금은 DuplicateFilter 가 담당하고, 예전에 남은 키만 정리 대상 */
+    SUPPRESS_UNTIL("auto_reply", "suppress_until_", true, 10_000L),
+    /** SmsReceiver: 동일(from+body) 중복 무시 창. 지금은 DuplicateFilter 가 담당하고, 예전에 남은 키만 정리 대상 */
+    DUP("sms_guard", "dup_", false, 60_000L),
+    /** SmsReceiver: 우리 앱 최근 발송 상대 (수명 60초). 지금은 SentFingerprintRing 이 담당하고, 예전에 남은 키만 정리 대상 */
+    SENT_TO("sms_guard", "sent_to_", false, 60_000L),
+    /** SentLogRepository: (과거 실험용) 트리거 흔적. 수명 = 설정 쿨타임 */
+    LAST_TRIGGER("sent_log", "last_trigger_", false, -1L);
+
+    public final String prefName;
+    public final String prefix;
+    private final boolean deadline;
+    private final long ttlMs;   // < 0 이면 설정 쿨타임을 따름
+
+    PrefKeyFamily(String prefName, String prefix, boolean deadline, long ttlMs) {
+        this.prefName = prefName;
+        this.prefix = prefix;
+        this.deadline = deadline;
+        this.ttlMs = ttlMs;
+    }
+
+    public String key(String suffix) {
+        return prefix + suffix;
+    }
+
+    /** 고정 수명 (쿨타임 연동 family 는 cooldownMs) */
+    public long ttlMs(long cooldownMs) {
+        return ttlMs < 0 ? cooldownMs : ttlMs;
+    }
+
+    public long ttlMs() {
+        return ttlMs(0L);
+    }
+
+    public boolean isLive(long value, long now, long cooldownMs) {
+        if (value <= 0) return false;
+        return deadline ? now < value : (now - value) < ttlMs(cooldownMs);
+    }
+
+    /** 살아있는 값이면 그대로, 없거나 만료면 0 */
+    public long read(SharedPreferences p, String suffix, long now) {
+        long v = p.getLong(key(suffix), 0L);
+        return isLive(v, now, 0L) ? v : 0L;
+    }
+
+    /** prefName 파일의 key 가 속한 family (없으면 null) */
+    public static PrefKeyFamily of(String prefName, String key) {
+        for (PrefKeyFamily f : values()) {
+            if (f.prefName.equals(prefName) && key.startsWith(f.prefix)) return f;
+        }
+        return null;
+    }
+}
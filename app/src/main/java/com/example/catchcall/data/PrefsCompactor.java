@@ -0,0 +1,125 @@
+package com.example.catchcall.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.catchcall.domain.ReplyRuleSet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 만료된 번호별 키 정리(compaction).
+ * - auto_reply / sms_guard / sent_log prefs: PrefKeyFamily 수명이 지난 키를 배치 단위로 제거
+ * - 발송 이력(SendHistoryStore): 발송 규칙(ReplyRuleSet)이 보는 기간이 지난 번호를 배치 단위로 제거
+ *   (가장 긴 쿨타임, daily-cap 이 있으면 최소 하루)
+ * 리시버가 maybeSchedule() 로 깨우며, 실제 작업은 백그라운드 단일 스레드에서 돈다.
+ */
+public class PrefsCompactor {
+    private static final String TAG = "AutoReply";
+    private static final String[] PREFS = {"auto_reply", "sms_guard", "sent_log"};
+
+    private static final int  BATCH = 256;                       // apply() 1회당 제거 키 수
+    private static final long MIN_INTERVAL_MS = 10 * 60_000L;    // 최소 실행 간격
+
+    private static final ExecutorService EXEC = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "prefs-compactor");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private static final AtomicBoolean running = new AtomicBoolean(false);
+    private static volatile long lastRunAt = 0L;
+
+    /** 정리 결과 */
+    public static class Report {
+        public int entries;
+        public long bytes;
+        public int historyEntries;
+        public long historyBytes;
+
+        @Override
+        public String toString() {
+            return "prefs=" + entries + " entries/" + bytes + "B"
+                    + ", history=" + historyEntries + " entries/" + historyBytes + "B";
+        }
+    }
+
+    /** 최소 간격이 지났고 실행 중이 아니면 백그라운드 정리 예약 */
+    public static void maybeSchedule(Context ctx) {
+        long now = System.currentTimeMillis();
+        if (now - lastRunAt < MIN_INTERVAL_MS) return;
+        if (!running.compareAndSet(false, true)) return;
+        final Context app = ctx.getApplicationContext();
+        EXEC.execute(() -> {
+            try {
+                Report r = compactNow(app, System.currentTimeMillis());
+                Log.d(TAG, "[PrefsCompactor] reclaimed " + r);
+            } catch (Throwable t) {
+                Log.w(TAG, "[PrefsCompactor] failed", t);
+            } finally {
+                lastRunAt = System.currentTimeMillis();
+                running.set(false);
+            }
+        });
+    }
+
+    /** 동기 정리 (백그라운드 스레드에서 호출) */
+    public static Report compactNow(Context ctx, long now) throws Exception {
+        SettingsStore settings = new SettingsStore(ctx);
+        long cooldownMs = Math.max(0, settings.getConfiguredCooldownSeconds()) * 1000L;
+
+        Report report = new Report();
+        for (String name : PREFS) {
+            compactPrefs(ctx.getSharedPreferences(name, Context.MODE_PRIVATE), name, now, cooldownMs, report);
+        }
+
+        long horizonMs = ReplyRuleSet.get(ctx).historyHorizonMs(cooldownMs);
+        SentLogRepository repo = new SentLogRepository(ctx);
+        long before = repo.historyLogBytes();
+        int n;
+        do {
+            n = repo.evictHistoryOlderThan(now - horizonMs, BATCH);
+            report.historyEntries += n;
+        } while (n == BATCH);
+        report.historyBytes = Math.max(0, before - repo.historyLogBytes());
+        return report;
+    }
+
+    private static void compactPrefs(SharedPreferences p, String name, long now, long cooldownMs, Report report) {
+        List<String> batch = new ArrayList<>(BATCH);
+        for (Map.Entry<String, ?> e : p.getAll().entrySet()) {
+            String k = e.getKey();
+            PrefKeyFamily f = PrefKeyFamily.of(name, k);
+            if (f == null || !(e.getValue() instanceof Long)) continue;
+            long v = (Long) e.getValue();
+            if (f.isLive(v, now, cooldownMs)) continue;
+
+            batch.add(k);
+            report.entries++;
+            report.bytes += xmlEntryBytes(k, v);
+            if (batch.size() == BATCH) {
+                remove(p, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) remove(p, batch);
+    }
+
+    private static void remove(SharedPreferences p, List<String> keys) {
+        SharedPreferences.Editor ed = p.edit();
+        for (String k : keys) ed.remove(k);
+        ed.apply();
+    }
+
+    /** prefs XML 한 줄 크기 추정: <long name="KEY" value="VALUE" /> */
+    private static long xmlEntryBytes(String key, long value) {
+        return 27 + key.getBytes(StandardCharsets.UTF_8).length + Long.toString(value).length();
+    }
+}
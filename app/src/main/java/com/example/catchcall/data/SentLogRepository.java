@@ -2,58 +2,145 @@ package com.example.catchcall.data;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.util.Log;
 
-// 발송 로그 저장 및 조회
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+// 발송 로그 저장 및 조회 (타입별 발송 이력은 SendHistoryStore, 나머지는 SharedPreferences)
 public class SentLogRepository {
+    private static final String TAG = "AutoReply";
+    private static final String PREF = "sent_log";
+    private static final String KEY_MIGRATED = "history_migrated_v1";
+
+    private static volatile SendHistoryStore sharedStore;
+
     private final SharedPreferences pref;
+    private final SendHistoryStore store;
 
     public SentLogRepository(Context ctx) {
-        this.pref = ctx.getSharedPreferences("sent_log", Context.MODE_PRIVATE);
+        this.pref = ctx.getSharedPreferences(PREF, Context.MODE_PRIVATE);
+        this.store = store(ctx.getApplicationContext(), pref);
     }
 
-    // ===== [기존 any 타입 키(과거 호환)] =====
-    private String key(String num) { return "sent_" + num; }
+    /** 프로세스 전역 저장소 (최초 1회 sent_log prefs 이관) */
+    private static SendHistoryStore store(Context app, SharedPreferences pref) {
+        SendHistoryStore s = sharedStore;
+        if (s != null) return s;
+        synchronized (SentLogRepository.class) {
+            if (sharedStore == null) {
+                try {
+                    SendHistoryStore opened = new SendHistoryStore(new File(app.getFilesDir(), "send_history"));
+                    migrateFromPrefs(pref, opened);
+                    sharedStore = opened;
+                } catch (IOException e) {
+                    throw new IllegalStateException("send history open failed", e);
+                }
+            }
+            return sharedStore;
+        }
+    }
 
+    /** last_<TYPE>_<num> 키를 저장소로 옮기고, 옮긴 키와 과거 sent_<num> 키는 지운다 */
+    private static void migrateFromPrefs(SharedPreferences pref, SendHistoryStore s) throws IOException {
+        if (pref.getBoolean(KEY_MIGRATED, false)) return;
+        SharedPreferences.Editor ed = pref.edit();
+        int moved = 0;
+        for (Map.Entry<String, ?> e : pref.getAll().entrySet()) {
+            String k = e.getKey();
+            Object v = e.getValue();
+            int type;
+            String num;
+            if (k.startsWith("last_MISSED_")) {
+                type = SendHistoryStore.TYPE_MISSED;
+                num = k.substring("last_MISSED_".length());
+            } else if (k.startsWith("last_MANNER_")) {
+                type = SendHistoryStore.TYPE_MANNER;
+                num = k.substring("last_MANNER_".length());
+            } else {
+                // any 타입 기록은 타입별 기록의 최댓값으로 대체됨
+                if (k.startsWith("sent_")) ed.remove(k);
+                continue;
+            }
+            if (v instanceof Long && (Long) v > 0) {
+                long key = NumberKey.of(num);
+                if ((Long) v > s.getLastSent(key, type)) s.saveLastSent(key, type, (Long) v);
+                moved++;
+            }
+            ed.remove(k);
+        }
+        ed.putBoolean(KEY_MIGRATED, true).apply();
+        Log.d(TAG, "[SentLogRepository] migrated " + moved + " entries from prefs");
+    }
+
+    // ===== [기존 any 타입(과거 호환)] — 타입별 기록의 최댓값 =====
+
+    @Deprecated
     public Long getLastSentAt(String num) {
-        long v = pref.getLong(key(num), -1L);
+        long v = store.getLastSentAny(NumberKey.of(num));
         return (v <= 0) ? null : v;
     }
 
+    /** 타입별 저장(saveLastSent(number, type, when))이 any 기록을 겸하므로 따로 남기지 않는다 */
+    @Deprecated
     public void setLastSentAt(String num, long ts) {
-        pref.edit().putLong(key(num), ts).apply();
+        // no-op
     }
 
+    @Deprecated
     public long getLastSent(String num) {
         Long v = getLastSentAt(num);
         return v == null ? 0L : v;
     }
 
+    @Deprecated
     public void saveLastSent(String num, long ts) {
         setLastSentAt(num, ts);
     }
 
-    // ===== [타입별 저장(MISSED/MANNER) — 신규] =====
-    private String typeKey(String number, String type) {
-        // type: "MISSED" / "MANNER"
-        return "last_" + type + "_" + number;
-    }
+    // ===== [타입별 저장(MISSED/MANNER)] =====
 
     /** 번호+타입별 마지막 발송 시각 (없으면 0) */
     public long getLastSent(String number, String type) {
-        return pref.getLong(typeKey(number, type), 0L);
+        return store.getLastSent(NumberKey.of(number), SendHistoryStore.typeOf(type));
     }
 
     /** 번호+타입별 마지막 발송 시각 저장 */
     public void saveLastSent(String number, String type, long when) {
-        pref.edit().putLong(typeKey(number, type), when).apply();
+        saveLastSent(NumberKey.of(number), SendHistoryStore.typeOf(type), when);
+    }
+
+    /** 키/타입 인덱스 기반 조회 (NumberKey, SendHistoryStore.TYPE_*) */
+    public long getLastSent(long key, int type) {
+        return store.getLastSent(key, type);
+    }
+
+    public void saveLastSent(long key, int type, long when) {
+        try {
+            store.saveLastSent(key, type, when);
+        } catch (IOException e) {
+            Log.w(TAG, "[SentLogRepository] save failed: " + e.getMessage());
+        }
+    }
+
+    // ===== [정리(compaction)용] =====
+
+    /** 두 타입 모두 cutoff 이전인 번호를 최대 maxEntries 개 제거 */
+    public int evictHistoryOlderThan(long cutoff, int maxEntries) throws IOException {
+        return store.evictOlderThan(cutoff, maxEntries);
+    }
+
+    public long historyLogBytes() {
+        return store.logBytes();
     }
 
     // ===== [선택: 트리거 흔적 저장(이전 실험용) — 필요 없으면 미사용] =====
     public long getLastTrigger(String number, String type) {
-        return pref.getLong("last_trigger_" + type + "_" + number, 0L);
+        return pref.getLong(PrefKeyFamily.LAST_TRIGGER.key(type + "_" + PhoneNumberCanonicalizer.canonicalOrRaw(number)), 0L);
     }
 
     public void markTrigger(String number, String type, long when) {
-        pref.edit().putLong("last_trigger_" + type + "_" + number, when).apply();
+        pref.edit().putLong(PrefKeyFamily.LAST_TRIGGER.key(type + "_" + PhoneNumberCanonicalizer.canonicalOrRaw(number)), when).apply();
     }
 }
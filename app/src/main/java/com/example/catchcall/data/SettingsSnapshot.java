@@ -0,0 +1,47 @@
+package com.example.catchcall.data;
+
+import com.example.catchcall.domain.ReplyTemplate;
+
+import java.util.List;
+
+/**
+ * 설정 스냅샷 (불변).
+ * SettingsStore 가 prefs 변경 시 통째로 새로 만들어 교체한다 → 읽는 쪽은 참조 하나로 일관된 값을 본다
+ * (예: 테스트 모드와 쿨타임이 반쯤 바뀐 상태를 볼 일이 없다).
+ */
+public final class SettingsSnapshot {
+    public final boolean featureEnabled;
+    public final boolean testMode;
+    /** 사용자 설정 쿨타임 (테스트 모드 무관) */
+    public final long configuredCooldownSeconds;
+    /** 실제 적용 쿨타임 (테스트 모드면 0) */
+    public final long cooldownSeconds;
+    public final String missedTemplate;
+    public final String mannerTemplate;
+    /** 컴파일된 템플릿 (문구가 바뀔 때만 다시 컴파일) */
+    public final ReplyTemplate missedReply;
+    public final ReplyTemplate mannerReply;
+    /** {callbackEta}: 지금부터 몇 분 뒤 */
+    public final long callbackEtaMinutes;
+    /** 매너콜 판정 키워드 (불변 리스트) */
+    public final List<String> mannerKeywords;
+
+    SettingsSnapshot(boolean featureEnabled, boolean testMode, long configuredCooldownSeconds,
+                     String missedTemplate, String mannerTemplate,
+                     List<String> mannerKeywords, long callbackEtaMinutes, SettingsSnapshot previous) {
+        this.featureEnabled = featureEnabled;
+        this.testMode = testMode;
+        this.configuredCooldownSeconds = configuredCooldownSeconds;
+        this.cooldownSeconds = testMode ? 0L : configuredCooldownSeconds;
+        this.missedTemplate = missedTemplate;
+        this.mannerTemplate = mannerTemplate;
+        this.callbackEtaMinutes = callbackEtaMinutes;
+        this.missedReply = previous != null && previous.missedTemplate.equals(missedTemplate)
+                ? previous.missedReply : ReplyTemplate.compile(missedTemplate);
+        this.mannerReply = previous != null && previous.mannerTemplate.equals(mannerTemplate)
+                ? previous.mannerReply : ReplyTemplate.compile(mannerTemplate);
+        this.mannerKeywords = (previous != null && previous.mannerKeywords.equals(mannerKeywords))
+                ? previous.mannerKeywords      // 그대로면 같은 인스턴스 유지 (매처 재생성 판단용)
+                : mannerKeywords;
+    }
+}
@@ -3,12 +3,64 @@ package com.example.catchcall.data;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 // 설정값 저장 (쿨타임, 템플릿 등)
+// 발송 판단(핫패스)은 snapshot() 한 번으로 읽고, 개별 getter 는 설정 화면 등에서 사용
 public class SettingsStore {
+    // 프로세스 전역 스냅샷: prefs 변경 리스너가 새로 만들어 교체 (리스너는 prefs 가 약하게 잡으므로 static 으로 보관)
+    private static volatile SettingsSnapshot snapshot;
+    private static SharedPreferences.OnSharedPreferenceChangeListener watcher;
+
     private final SharedPreferences pref;
 
     public SettingsStore(Context ctx) {
-        this.pref = ctx.getSharedPreferences("settings", Context.MODE_PRIVATE);
+        this(ctx.getSharedPreferences("settings", Context.MODE_PRIVATE));
+    }
+
+    // 테스트/벤치마크용
+    SettingsStore(SharedPreferences pref) {
+        this.pref = pref;
+    }
+
+    /** 현재 설정 스냅샷 (volatile 읽기 1회) */
+    public SettingsSnapshot snapshot() {
+        SettingsSnapshot s = snapshot;
+        if (s != null) return s;
+        synchronized (SettingsStore.class) {
+            if (snapshot == null) {
+                watcher = (p, key) -> refresh(p);
+                pref.registerOnSharedPreferenceChangeListener(watcher);
+                snapshot = load(pref, null);
+            }
+            return snapshot;
+        }
+    }
+
+    /** 스냅샷 다시 읽기 (리스너는 메인 스레드로 늦게 올 수 있어 setter 에서도 바로 호출) */
+    private static void refresh(SharedPreferences p) {
+        synchronized (SettingsStore.class) {
+            if (snapshot != null) snapshot = load(p, snapshot);
+        }
+    }
+
+    private static SettingsSnapshot load(SharedPreferences p, SettingsSnapshot previous) {
+        return new SettingsSnapshot(
+                p.getBoolean("feature_enabled", true),
+                p.getBoolean("test_mode", false),
+                p.getLong("cooldown_sec", 5L),
+                orDefault(p.getString("template_missed", null), getDefaultMissedTemplate()),
+                orDefault(p.getString("template_manner", null), getDefaultMannerTemplate()),
+                parseKeywords(p.getString("manner_keywords", null)),
+                p.getLong("callback_eta_min", 30L),
+                previous);
+    }
+
+    private static String orDefault(String v, String def) {
+        return (v == null || v.trim().isEmpty()) ? def : v;
     }
 
     // 앱 기능 자체 활성화/비활성화 토글
@@ -17,10 +69,11 @@ public class SettingsStore {
     }
     public void setFeatureEnabled(boolean enabled) {
         pref.edit().putBoolean("feature_enabled", enabled).apply();
+        refresh(pref);
     }
 
     // --- 기본 템플릿 ---
-    private String getDefaultMissedTemplate() {
+    private static String getDefaultMissedTemplate() {
         return "[근로복지공단 퇴직연금 안내]\n" +
                 "\n" +
                 "안녕하세요. 근로복지공단 퇴직연금 담당 윤용현 전문관입니다.  \n" +
@@ -36,7 +89,7 @@ public class SettingsStore {
                 "항상 소중한 시간을 내어주셔서 감사드립니다.";
     }
 
-    private String getDefaultMannerTemplate() {
+    private static String getDefaultMannerTemplate() {
         return "[근로복지공단 퇴직연금 안내]\n" +
                 "\n" +
                 "안녕하세요. 근로복지공단 퇴직연금 담당 윤용현 전문관입니다.  \n" +
@@ -54,9 +107,7 @@ public class SettingsStore {
 
     // --- 템플릿 저장/로드 ---
     public String getMissedTemplate() {
-        String v = pref.getString("template_missed", null);
-        if (v == null || v.trim().isEmpty()) return getDefaultMissedTemplate();
-        return v;
+        return orDefault(pref.getString("template_missed", null), getDefaultMissedTemplate());
     }
     public void setMissedTemplate(String v) {
         if (v == null || v.trim().isEmpty()) {
@@ -64,12 +115,11 @@ public class SettingsStore {
         } else {
             pref.edit().putString("template_missed", v).apply();
         }
+        refresh(pref);
     }
 
     public String getMannerTemplate() {
-        String v = pref.getString("template_manner", null);
-        if (v == null || v.trim().isEmpty()) return getDefaultMannerTemplate();
-        return v;
+        return orDefault(pref.getString("template_manner", null), getDefaultMannerTemplate());
     }
     public void setMannerTemplate(String v) {
         if (v == null || v.trim().isEmpty()) {
@@ -77,6 +127,33 @@ public class SettingsStore {
         } else {
             pref.edit().putString("template_manner", v).apply();
         }
+        refresh(pref);
+    }
+
+    // --- 매너콜 키워드 (줄바꿈/쉼표 구분, 비우면 기본값) ---
+    private static final List<String> DEFAULT_MANNER_KEYWORDS =
+            Collections.unmodifiableList(Arrays.asList("매너콜", "콜키퍼"));
+
+    public List<String> getMannerKeywords() {
+        return parseKeywords(pref.getString("manner_keywords", null));
+    }
+    public void setMannerKeywords(String raw) {
+        if (raw == null || raw.trim().isEmpty()) {
+            pref.edit().remove("manner_keywords").apply();
+        } else {
+            pref.edit().putString("manner_keywords", raw.trim()).apply();
+        }
+        refresh(pref);
+    }
+
+    private static List<String> parseKeywords(String raw) {
+        if (raw == null || raw.trim().isEmpty()) return DEFAULT_MANNER_KEYWORDS;
+        List<String> out = new ArrayList<>();
+        for (String k : raw.split("[,\\n]")) {
+            String t = k.trim();
+            if (!t.isEmpty() && !out.contains(t)) out.add(t);
+        }
+        return out.isEmpty() ? DEFAULT_MANNER_KEYWORDS : Collections.unmodifiableList(out);
     }
 
     // --- 테스트 모드 (최우선) ---
@@ -85,6 +162,15 @@ public class SettingsStore {
     }
     public void setTestMode(boolean on) {
         pref.edit().putBoolean("test_mode", on).apply();
+        refresh(pref);
+    }
+
+    // --- 이벤트 트레이스 기록 (진단용, 기본 꺼짐) ---
+    public boolean isTraceEnabled() {
+        return pref.getBoolean("trace_enabled", false);
+    }
+    public void setTraceEnabled(boolean on) {
+        pref.edit().putBoolean("trace_enabled", on).apply();
     }
 
     // 호환용 (기존 메서드 유지): 내부적으로 test_mode 토글로 위임
@@ -99,9 +185,24 @@ public class SettingsStore {
         return pref.getLong("cooldown_sec", 5L);    // 기본 5초
     }
 
+    // 테스트 모드와 무관한 사용자 설정 값 (이력 보존 기간 등 판단용)
+    public long getConfiguredCooldownSeconds() {
+        return pref.getLong("cooldown_sec", 5L);
+    }
+
     public void setCooldownSeconds(long sec) {
         if (sec < 0) sec = 0;
         pref.edit().putLong("cooldown_sec", sec).apply();
+        refresh(pref);
+    }
+
+    // --- {callbackEta} 자리표시자: 지금부터 몇 분 뒤 연락 예정 (기본 30분) ---
+    public long getCallbackEtaMinutes() {
+        return pref.getLong("callback_eta_min", 30L);
+    }
+    public void setCallbackEtaMinutes(long minutes) {
+        pref.edit().putLong("callback_eta_min", Math.max(0L, minutes)).apply();
+        refresh(pref);
     }
 
     // (과거 실험용) 함께 추가했던 병합 윈도우 — 현재 정책에서는 미사용
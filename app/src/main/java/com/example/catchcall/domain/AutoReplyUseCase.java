@@ -1,14 +1,24 @@
 package com.example.catchcall.domain;
 
 import android.content.Context;
-import android.telephony.PhoneNumberUtils;
-import android.telephony.SmsMessage;
 import android.util.Log;
 
+import com.example.catchcall.data.ContactNames;
+import com.example.catchcall.data.NumberKey;
+import com.example.catchcall.data.PhoneNumberCanonicalizer;
+import com.example.catchcall.data.SendHistoryStore;
 import com.example.catchcall.data.SentLogRepository;
+import com.example.catchcall.data.SettingsSnapshot;
 import com.example.catchcall.data.SettingsStore;
+import com.example.catchcall.metrics.Diagnostics;
+import com.example.catchcall.metrics.EventTrace;
+import com.example.catchcall.sms.SegmentationPlanner;
+import com.example.catchcall.sms.SmsOutbox;
 import com.example.catchcall.sms.SmsSender;
 
+import java.util.List;
+import java.util.TimeZone;
+
 // 발송 조건/쿨타임 + 문자 발송 요청 로직
 public class AutoReplyUseCase {
     private static final String TAG = "AutoReply";
@@ -16,41 +26,134 @@ public class AutoReplyUseCase {
     private final SentLogRepository repo;
     private final SettingsStore settings;
     private final SmsSender sms;
+    private final CooldownIndex cooldowns;
+    private final SmsGuards guards;
+    private final ReplyPolicy policy;      // 판정 단계 (:core, 순수 Java)
+    private final Context app;
+
+    // 렌더 입력/버퍼: 트리거는 여러 스레드(리시버 파이프라인, 콜로그 관찰)에서 올 수 있어 스레드별로 재사용
+    private static final ThreadLocal<ReplyTemplate.Values> RENDER_VALUES = ThreadLocal.withInitial(ReplyTemplate.Values::new);
+    private static final ThreadLocal<ReplyTemplate.Output> RENDER_OUTPUT = ThreadLocal.withInitial(ReplyTemplate.Output::new);
+
+    // 매너콜 키워드 매처: 키워드 목록이 바뀔 때만 다시 만든다
+    private volatile KeywordMatcher mannerMatcher;
+    private volatile List<String> mannerMatcherSource;
+
+    private static volatile AutoReplyUseCase instance;
+
+    /** 프로세스 전역 인스턴스 (리시버마다 저장소/발송기를 새로 만들지 않게) */
+    public static AutoReplyUseCase get(Context ctx) {
+        AutoReplyUseCase u = instance;
+        if (u != null) return u;
+        synchronized (AutoReplyUseCase.class) {
+            if (instance == null) instance = new AutoReplyUseCase(ctx.getApplicationContext());
+            return instance;
+        }
+    }
 
-    public AutoReplyUseCase(Context ctx) {
+    private AutoReplyUseCase(Context ctx) {
+        this.app = ctx;
         this.repo = new SentLogRepository(ctx);
         this.settings = new SettingsStore(ctx);
         this.sms = new SmsSender(ctx);
+        this.cooldowns = CooldownIndex.shared(new CooldownIndex.Backing() {
+            @Override public long load(long key, int type) { return repo.getLastSent(key, type); }
+            @Override public void save(long key, int type, long when) { repo.saveLastSent(key, type, when); }
+        });
+        // 쿨타임 이력은 발송이 확인된(sent OK) 뒤에 기록 (결과를 모른 채 끝난 발송은 발송 시각으로)
+        SmsOutbox.get(ctx).setSentListener((type, number, sentAt) ->
+                cooldowns.saveLastSent(NumberKey.of(number), SendHistoryStore.typeOf(type), sentAt));
+        this.guards = new SmsGuards(ctx);
+        this.policy = new ReplyPolicy(
+                address -> SenderRules.get(ctx).classify(address),     // 규칙 파일 핫 리로드
+                text -> mannerMatcher().find(text),
+                guards,
+                (key, type, now, cooldownMs) -> {
+                    cooldowns.setRules(ReplyRuleSet.get(ctx));      // 규칙 파일이 바뀌었으면 다음 판정부터
+                    return cooldowns.decide(key, type, now, cooldownMs);
+                });
+    }
+
+    /** 판정 단계 (리시버는 screenSender 로 문자를 고른다) */
+    public ReplyPolicy policy() {
+        return policy;
+    }
+
+    /** 매너콜 문자 가드 (처리한 문자 중복 기록용) */
+    public SmsGuards guards() {
+        return guards;
+    }
+
+    /** 현재 설정 키워드로 만든 매너콜 매처 (목록이 그대로면 같은 인스턴스) */
+    public KeywordMatcher mannerMatcher() {
+        List<String> words = settings.snapshot().mannerKeywords;
+        KeywordMatcher m = mannerMatcher;
+        if (m != null && mannerMatcherSource == words) return m;
+        synchronized (this) {
+            if (mannerMatcher == null || mannerMatcherSource != words) {
+                mannerMatcher = new KeywordMatcher(words);
+                mannerMatcherSource = words;
+                Log.d(TAG, "[AutoReplyUseCase] manner keywords rebuilt: " + words.size());
+            }
+            return mannerMatcher;
+        }
+    }
+
+    /**
+     * {name} 용 연락처 이름을 미리 캐시에 (ContentResolver 조회).
+     * 발송 판정 전에 작업 스레드에서 부른다: 울릴 때(CallDetectionEngine), 위임 직전(리시버 파이프라인/콜로그 수집).
+     * 템플릿에 자리표시자가 없거나 기능이 꺼져 있으면 조회하지 않는다.
+     */
+    public void prefetchName(String rawNumber, String type) {
+        SettingsSnapshot s = settings.snapshot();
+        ReplyTemplate template = "MANNER".equals(type) ? s.mannerReply : s.missedReply;
+        if (!s.featureEnabled || template == null || !template.isPersonalized()) return;
+        String number = PhoneNumberCanonicalizer.canonical(rawNumber);
+        if (number != null) ContactNames.prefetch(app, number, System.currentTimeMillis());
     }
 
     // 부재중 알림
     public void onMissedCall(String rawNumber) {
-        if (!settings.isFeatureEnabled()) {
-            Log.d(TAG, "BLOCK: feature disabled");
+        Diagnostics.count(Diagnostics.Outcome.MISSED_TRIGGER);
+        SettingsSnapshot s = settings.snapshot();   // 판단 1회 동안 같은 설정을 본다
+        if (!s.featureEnabled) {
+            Diagnostics.count(Diagnostics.Outcome.FEATURE_OFF);
+            if (EventTrace.LOGD) Log.d(TAG, "BLOCK: feature disabled");
             return;
         }
         String number = normalize(rawNumber);
         if (number == null) return;
 
-        String msg = settings.getMissedTemplate();
-        trySendWithPolicy(number, msg, "MISSED");
+        trySendWithPolicy(s, number, s.missedReply, "MISSED");
     }
 
     // 매너콜 알림
     public void onMannerCall(String rawNumber) {
-        if (!settings.isFeatureEnabled()) {
-            Log.d(TAG, "BLOCK: feature disabled");
+        Diagnostics.count(Diagnostics.Outcome.MANNER_TRIGGER);
+        SettingsSnapshot s = settings.snapshot();
+        if (!s.featureEnabled) {
+            Diagnostics.count(Diagnostics.Outcome.FEATURE_OFF);
+            if (EventTrace.LOGD) Log.d(TAG, "BLOCK: feature disabled");
             return;
         }
         String number = normalize(rawNumber);
         if (number == null) return;
 
-        String msg = settings.getMannerTemplate();
-        trySendWithPolicy(number, msg, "MANNER");
+        trySendWithPolicy(s, number, s.mannerReply, "MANNER");
+    }
+
+    /** 판정 + 발송 요청 한 번 = 트레이스 구간 하나 (try_send) */
+    private void trySendWithPolicy(SettingsSnapshot s, String number, ReplyTemplate template, String type) {
+        EventTrace.begin(EventTrace.Event.TRY_SEND, number);
+        try {
+            sendWithPolicy(s, number, template, type);
+        } finally {
+            EventTrace.end(EventTrace.Event.TRY_SEND);
+        }
     }
 
     /**
-     * 네가 정의한 발송 정책(표)을 그대로 구현:
+     * 네가 정의한 발송 정책(표)을 그대로 구현 (ReplyRules 기본 규칙, reply_rules.txt 로 더 추가 가능):
      * - (A) 두 타입 모두 보낸 적 없음 → 보내기
      * - (B) 한쪽만 보낸 적 있음 → 보내기
      * - (C) 둘 다 보낸 적 있음 + 쿨타임 안 지남 → 금지
@@ -59,74 +162,93 @@ public class AutoReplyUseCase {
      * 쿨타임은 "둘 다 보낸 이력"이 있을 때만 적용한다.
      * (기존 any-type 쿨타임 우선 차단 로직 제거)
      *
+     * 본문은 판정을 통과한 뒤에만 렌더한다 (ReplyTemplate: {name}/{time}/{missedCount}/{callbackEta}).
      * 장문 여부는 SmsSender에서 MMS 우선으로 처리(실패 시 multipart SMS fallback).
      */
-    private void trySendWithPolicy(String number, String message, String type) {
-        if (message == null || message.trim().isEmpty()) {
-            Log.d(TAG, "[trySend] message is null/empty, skip");
+    private void sendWithPolicy(SettingsSnapshot s, String number, ReplyTemplate template, String type) {
+        if (template == null || template.source().trim().isEmpty()) {
+            Diagnostics.count(Diagnostics.Outcome.EMPTY_TEMPLATE);
+            if (EventTrace.LOGD) Log.d(TAG, "[trySend] message is null/empty, skip");
             return;
         }
 
         long now = System.currentTimeMillis();
+        int missedCount = countMissed(number, now);     // 차단되더라도 오늘 횟수에는 센다
 
-        // 길이/인코딩 참고 로그 (디버깅 용)
-        try {
-            int[] calc = SmsMessage.calculateLength(message, false);
-            Log.d(TAG, "[trySend] lenCheck seg=" + calc[0]
-                    + " codeUnitsUsed=" + calc[1]
-                    + " codeUnitsRemaining=" + calc[2]
-                    + " encoding=" + calc[3]); // 1=GSM7bit, 3=UCS-2
-        } catch (Throwable t) {
-            Log.w(TAG, "[trySend] lengthCalc error: " + t.getMessage());
+        // 발송 규칙 판정(쿨타임/일일 한도/방해 금지): 메모리 인덱스 1회 probe (미스 시 영구 이력에서 채움)
+        long cooldownSec = s.cooldownSeconds; // 테스트모드면 0 (스냅샷 안에서 함께 결정됨)
+        long cooldownMs = Math.max(0, cooldownSec) * 1000L;
+        long decision = policy.ruleDecision(number, SendHistoryStore.typeOf(type), now, cooldownMs);
+        Diagnostics.stage(Diagnostics.Stage.DECISION, number);
+        EventTrace.instant(EventTrace.Event.RULE_DECISION, decision);
+
+        if (EventTrace.LOGD) Log.d(TAG, "[trySend] num=" + number + " type=" + type
+                + " cooldownSec=" + cooldownSec + " rule=" + cooldowns.rules().describe(decision));
+
+        if (!ReplyRules.allowed(decision)) {
+            Diagnostics.count(outcomeOf(ReplyRules.reason(decision)));
+            if (EventTrace.LOGD) Log.d(TAG, "BLOCK: " + cooldowns.rules().describe(decision));
+            return;
         }
 
-        // 타입별 이력 조회
-        long lastM = repo.getLastSent(number, "MISSED");
-        long lastN = repo.getLastSent(number, "MANNER");
-        boolean hasM = lastM > 0;
-        boolean hasN = lastN > 0;
+        // 본문 렌더: 컴파일된 템플릿 + 스레드별 재사용 버퍼, 분할 수/인코딩도 함께 계산
+        String message = render(s, template, number, missedCount, now);
 
-        long cooldownSec = settings.getCooldownSeconds(); // 테스트모드 우선권은 SettingsStore 쪽에서 보장하도록
-        long cooldownMs = Math.max(0, cooldownSec) * 1000L;
+        // 발송 큐에 넣기 (속도 제한/재시도는 SmsOutbox, 장문이면 MMS 1통 시도 후 multipart SMS fallback)
+        boolean ok = sms.send(type, number, message);
+        Diagnostics.count(ok ? Diagnostics.Outcome.QUEUED : Diagnostics.Outcome.QUEUE_FAIL);
+        // 이력 갱신은 발송 확인 시 SentListener 에서 (확인 전 같은 번호+타입 재요청은 outbox 가 합침)
+        if (EventTrace.LOGD) Log.d(TAG, ok ? ("SEND QUEUED → " + number) : ("SEND FAIL → " + number));
+    }
 
-        Log.d(TAG, "[trySend] num=" + number + " type=" + type
-                + " hasM=" + hasM + "(" + lastM + ")"
-                + " hasN=" + hasN + "(" + lastN + ")"
-                + " cooldownSec=" + cooldownSec);
-
-        boolean shouldBlock;
-        if (!hasM && !hasN) {
-            // 최초 발송
-            shouldBlock = false;
-        } else if (hasM ^ hasN) {
-            // 한쪽만 보낸 적 있음 → 허용
-            shouldBlock = false;
-        } else {
-            // 둘 다 보낸 적 있음 → 쿨타임 체크: "가장 최근 발송 시각" 기준
-            long lastBoth = Math.max(lastM, lastN);
-            long remain = cooldownMs - (now - lastBoth);
-            shouldBlock = (cooldownMs > 0 && remain > 0);
-            if (shouldBlock) {
-                Log.d(TAG, "BLOCK: both-types sent before, cooldown active; remainMs=" + remain);
-            }
-        }
+    /** 템플릿 렌더 + 분할 계획 등록 (발송 경로는 본문으로 이 계획을 찾는다, 추정 분할 수는 로그/트레이스용) */
+    private String render(SettingsSnapshot s, ReplyTemplate template, String number, int missedCount, long now) {
+        ReplyTemplate.Values v = RENDER_VALUES.get();
+        ReplyTemplate.Output out = RENDER_OUTPUT.get();
+        v.name = template.isPersonalized() ? ContactNames.cached(number, now) : null;   // 조회는 판정 전에 (prefetchName)
+        v.time = now;
+        v.missedCount = missedCount;
+        v.callbackAt = s.callbackEtaMinutes > 0 ? now + s.callbackEtaMinutes * 60_000L : 0L;
+        v.zone = TimeZone.getDefault();
+        template.render(v, out);
+
+        String message = out.text.toString();      // 자리표시자가 없어도 {{ }} 이스케이프는 풀린 본문으로
+        SegmentationPlanner.get().remember(message, out);
+        EventTrace.instant(EventTrace.Event.SEGMENT_PLAN, EventTrace.segmentPlan(out.segments, out.encoding));
+        if (EventTrace.LOGD) Log.d(TAG, "[trySend] lenCheck seg=" + out.segments
+                + " codeUnitsUsed=" + out.codeUnits
+                + " codeUnitsRemaining=" + out.codeUnitsRemaining
+                + " encoding=" + out.encoding); // 1=GSM7bit, 3=UCS-2
+        return message;
+    }
 
-        if (shouldBlock) return;
+    /**
+     * {missedCount}: 이 번호의 오늘(기기 시간대) 부재중/매너콜 횟수 (이번 포함, 차단된 트리거도 센다).
+     * 프로세스가 방송 하나만큼 살다 끝나도 이어서 세도록 발송 이력 저장소(TYPE_MISSED_COUNT)에 둔다.
+     */
+    private synchronized int countMissed(String number, long now) {
+        long key = NumberKey.of(number);
+        if (key == NumberKey.NONE) return 1;
+        int day = cooldowns.rules().localDay(now);
+        long v = repo.getLastSent(key, SendHistoryStore.TYPE_MISSED_COUNT);
+        int count = (int) (v >> 32) == day ? (int) v + 1 : 1;
+        repo.saveLastSent(key, SendHistoryStore.TYPE_MISSED_COUNT, CooldownIndex.packDayCount(day, count));
+        return count;
+    }
 
-        // 실제 발송 (장문이면 SmsSender가 MMS 1통 시도, 실패 시 multipart SMS fallback)
-        boolean ok = sms.send(number, message);
-        Log.d(TAG, ok ? ("SEND OK → " + number) : ("SEND FAIL → " + number));
-        if (ok) {
-            // 타입별 이력 갱신
-            repo.saveLastSent(number, type, now);
-            // (과거 호환) any 기록도 갱신해두면 다른 곳에서 참조해도 안전
-            repo.saveLastSent(number, now);
+    private static Diagnostics.Outcome outcomeOf(ReplyRules.Reason r) {
+        switch (r) {
+            case DAILY_CAP: return Diagnostics.Outcome.DAILY_CAP;
+            case QUIET_HOURS: return Diagnostics.Outcome.QUIET_HOURS;
+            default: return Diagnostics.Outcome.COOLDOWN_BLOCK;
         }
     }
 
+    /** 정규형 번호 (+82 → 0, 구분자 제거). 숫자가 없으면 null */
     private String normalize(String raw) {
-        if (raw == null || raw.isEmpty()) return null;
-        String n = PhoneNumberUtils.normalizeNumber(raw);
-        return (n == null || n.isEmpty()) ? null : n;
+        String n = PhoneNumberCanonicalizer.canonical(raw);
+        if (n == null) Diagnostics.count(Diagnostics.Outcome.NO_NUMBER);
+        else Diagnostics.stage(Diagnostics.Stage.NORMALIZE, n);
+        return n;
     }
 }
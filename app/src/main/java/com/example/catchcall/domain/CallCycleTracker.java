@@ -0,0 +1,196 @@
+package com.example.catchcall.domain;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.catchcall.data.NumberKey;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 통화 사이클 상태 머신 (여러 통화 동시 추적, 프로세스 종료에도 유지).
+ *
+ * - 통화마다 상태(RINGING / WAITING / ANSWERED)와 울린 시각을 가진다
+ *   · 통화가 없을 때 울림 → RINGING, 통화 중(OFFHOOK)에 울림 → WAITING(통화 대기)
+ *   · OFFHOOK → RINGING 통화는 ANSWERED. WAITING 은 받았는지 끊겼는지 방송만으로는 알 수 없어 그대로 둔다
+ *   · IDLE → 남은 RINGING/WAITING 이 이번 사이클의 부재중 후보 (WAITING 은 콜로그로 확인 필요 표시)
+ * - 전이는 filesDir/call_cycle 저널에 한 줄씩 덧붙이고, 시작 시 재생해서 복원한다. IDLE 에서 비운다
+ * - 10분 넘게 정리되지 않은 통화는 잃어버린 IDLE 로 보고 버린다
+ */
+public final class CallCycleTracker {
+    private static final String TAG = "AutoReply";
+
+    static final long MAX_CALL_AGE_MS = 10 * 60_000L;
+    private static final String FILE = "call_cycle";
+
+    private static final int RINGING = 0;
+    private static final int WAITING = 1;
+    private static final int ANSWERED = 2;
+
+    /** IDLE 에서 확정된 부재중 후보 */
+    public static final class MissedCall {
+        public final String number;     // 번호를 못 받았으면 null
+        public final long ringAt;
+        /** 통화 중 울린 대기 통화 → 받았을 수도 있으니 콜로그로 확인할 것 */
+        public final boolean waiting;
+
+        MissedCall(String number, long ringAt, boolean waiting) {
+            this.number = number;
+            this.ringAt = ringAt;
+            this.waiting = waiting;
+        }
+
+        @Override
+        public String toString() {
+            return number + (waiting ? "(waiting)" : "") + "@" + ringAt;
+        }
+    }
+
+    private static final class Call {
+        String number;
+        final long ringAt;
+        int state;
+
+        Call(String number, long ringAt, int state) {
+            this.number = number;
+            this.ringAt = ringAt;
+            this.state = state;
+        }
+    }
+
+    private static volatile CallCycleTracker shared;
+
+    private final File journal;
+    private final List<Call> calls = new ArrayList<>();
+    private boolean offhook;
+    private long offhookAt;
+    private boolean replaying;
+
+    CallCycleTracker(File journal) {
+        this.journal = journal;
+    }
+
+    public static CallCycleTracker get(Context ctx) {
+        CallCycleTracker t = shared;
+        if (t != null) return t;
+        synchronized (CallCycleTracker.class) {
+            if (shared == null) {
+                CallCycleTracker tracker = new CallCycleTracker(new File(ctx.getApplicationContext().getFilesDir(), FILE));
+                tracker.replay();
+                shared = tracker;
+            }
+            return shared;
+        }
+    }
+
+    public synchronized void onRinging(String number, long now) {
+        append("R\t" + now + "\t" + (number == null ? "" : number));
+        expire(now);
+        boolean hasNumber = number != null && !number.trim().isEmpty();
+        long key = hasNumber ? NumberKey.of(number) : NumberKey.NONE;
+        Call anonymous = null;
+        for (Call c : calls) {
+            if (c.state == ANSWERED) continue;
+            if (!hasNumber) return;                                  // 번호 없는 중복 방송 (Q+)
+            if (c.number != null && NumberKey.of(c.number) == key) return; // 같은 통화 (소스마다 표기가 달라도)
+            if (c.number == null && anonymous == null) anonymous = c;
+        }
+        if (hasNumber && anonymous != null) {
+            anonymous.number = number;                              // 번호 없는 방송이 먼저 왔던 통화
+            return;
+        }
+        calls.add(new Call(hasNumber ? number : null, now, offhook ? WAITING : RINGING));
+    }
+
+    public synchronized void onOffhook(long now) {
+        append("O\t" + now);
+        expire(now);
+        for (Call c : calls) if (c.state == RINGING) c.state = ANSWERED;
+        if (!offhook) offhookAt = now;
+        offhook = true;
+    }
+
+    /** 사이클 종료: 부재중 후보를 울린 순서대로 돌려주고 상태/저널을 비운다 */
+    public synchronized List<MissedCall> onIdle(long now) {
+        expire(now);
+        List<MissedCall> missed = new ArrayList<>();
+        for (Call c : calls) {
+            if (c.state != ANSWERED) missed.add(new MissedCall(c.number, c.ringAt, c.state == WAITING));
+        }
+        calls.clear();
+        offhook = false;
+        offhookAt = 0L;
+        truncate();
+        return missed.isEmpty() ? Collections.<MissedCall>emptyList() : missed;
+    }
+
+    public synchronized String describe() {
+        StringBuilder sb = new StringBuilder("offhook=").append(offhook).append(" calls=[");
+        for (int i = 0; i < calls.size(); i++) {
+            Call c = calls.get(i);
+            if (i > 0) sb.append(", ");
+            sb.append(c.number).append(':').append(c.state == RINGING ? "RINGING" : c.state == WAITING ? "WAITING" : "ANSWERED");
+        }
+        return sb.append(']').toString();
+    }
+
+    // ===== 내부 =====
+
+    private void expire(long now) {
+        for (Iterator<Call> it = calls.iterator(); it.hasNext(); ) {
+            if (now - it.next().ringAt >= MAX_CALL_AGE_MS) it.remove();
+        }
+        if (offhook && calls.isEmpty() && now - offhookAt >= MAX_CALL_AGE_MS) offhook = false;
+    }
+
+    private void replay() {
+        if (!journal.exists()) return;
+        replaying = true;
+        int events = 0;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(journal), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] f = line.split("\t", -1);
+                try {
+                    if ("R".equals(f[0]) && f.length == 3) onRinging(f[2].isEmpty() ? null : f[2], Long.parseLong(f[1]));
+                    else if ("O".equals(f[0]) && f.length == 2) onOffhook(Long.parseLong(f[1]));
+                    else continue;
+                    events++;
+                } catch (NumberFormatException ignore) {
+                    // 잘린 줄
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "[CallCycleTracker] journal unreadable: " + e.getMessage());
+        } finally {
+            replaying = false;
+        }
+        Log.d(TAG, "[CallCycleTracker] replayed events=" + events + " " + describe());
+    }
+
+    private void append(String line) {
+        if (replaying) return;
+        try (OutputStream out = new FileOutputStream(journal, true)) {
+            out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.w(TAG, "[CallCycleTracker] journal append failed: " + e.getMessage());
+        }
+    }
+
+    private void truncate() {
+        if (journal.exists() && !journal.delete()) {
+            Log.w(TAG, "[CallCycleTracker] journal truncate failed");
+        }
+    }
+}
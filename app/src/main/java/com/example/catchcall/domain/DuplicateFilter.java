@@ -0,0 +1,282 @@
+package com.example.catchcall.domain;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 시간 창 중복 필터 (메모리, 고정 크기).
+ *
+ * - (번호 키, 본문) → 64bit 지문 + 32bit 검증값. 지문이 같아도 검증값이 다르면 충돌로 세고 중복이 아니다
+ * - 창을 BUCKETS-1 칸으로 나눈 시간 버킷 링, 버킷마다 open-addressing long 배열 → 조회/삽입 O(1), 할당 없음
+ * - 버킷이 다시 쓰일 때 통째로 비우므로 만료 키가 남지 않는다. 버킷이 가득 차면 자리 하나를 덮어쓴다(eviction)
+ * - 프로세스 종료 대비로 살아있는 항목만 작은 스냅샷 파일에 모아 쓴다(백그라운드, 연속 기록은 합침)
+ */
+public final class DuplicateFilter {
+    private static final String TAG = "AutoReply";
+
+    public static final int DEFAULT_BUCKETS = 9;
+    public static final int DEFAULT_SLOTS = 64;
+
+    private static final String DIR = "dupfilter";
+    private static final int MAGIC = 0x44555046;   // "DUPF"
+
+    private static final ExecutorService EXEC = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "dup-filter");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private static final Map<String, DuplicateFilter> NAMED = new HashMap<>();
+
+    private final long windowMs;
+    private final long bucketMs;
+    private final int buckets;
+    private final int slots;
+    private final int mask;
+    private final int limit;            // 버킷당 최대 항목 (적재율 1/2)
+    private final long[] fps;           // bucket * slots + i (0 = 빈 칸)
+    private final int[] checks;
+    private final long[] epochs;        // 버킷이 담당하는 시간 칸 (-1 = 빈 버킷)
+    private final int[] counts;
+
+    private File snapshot;
+    private final AtomicBoolean writeQueued = new AtomicBoolean(false);
+
+    private long lookups, hits, collisions, evictions, expired;
+
+    /**
+     * @param windowMs 중복으로 볼 시간 창 (실제로는 창 ~ 창 + 한 칸 사이에서 만료)
+     * @param bucketCount 시간 버킷 수 (창은 bucketCount-1 칸)
+     * @param slotsPerBucket 버킷당 칸 수 (2의 거듭제곱으로 올림, 절반까지 채움)
+     */
+    public DuplicateFilter(long windowMs, int bucketCount, int slotsPerBucket) {
+        if (windowMs <= 0 || bucketCount < 2 || slotsPerBucket < 2) throw new IllegalArgumentException("bad filter size");
+        this.windowMs = windowMs;
+        this.buckets = bucketCount;
+        this.bucketMs = Math.max(1L, (windowMs + bucketCount - 2) / (bucketCount - 1));
+        this.slots = Integer.highestOneBit(slotsPerBucket * 2 - 1);
+        this.mask = slots - 1;
+        this.limit = slots / 2;
+        this.fps = new long[buckets * slots];
+        this.checks = new int[buckets * slots];
+        this.epochs = new long[buckets];
+        this.counts = new int[buckets];
+        Arrays.fill(epochs, -1L);
+    }
+
+    /** 이름별 프로세스 전역 인스턴스 (filesDir/dupfilter/<name> 스냅샷 복원) */
+    public static DuplicateFilter named(Context ctx, String name, long windowMs) {
+        synchronized (NAMED) {
+            DuplicateFilter f = NAMED.get(name);
+            if (f == null) {
+                f = new DuplicateFilter(windowMs, DEFAULT_BUCKETS, DEFAULT_SLOTS);
+                File dir = new File(ctx.getApplicationContext().getFilesDir(), DIR);
+                f.attach(new File(dir, name), System.currentTimeMillis());
+                NAMED.put(name, f);
+            }
+            return f;
+        }
+    }
+
+    public long windowMs() {
+        return windowMs;
+    }
+
+    /** 창 안에 같은 (key, text) 가 기록돼 있나 */
+    public synchronized boolean seen(long key, CharSequence text, long now) {
+        long fp = fingerprint(key, text);
+        int chk = check(key, text);
+        lookups++;
+        long nowEpoch = Math.floorDiv(now, bucketMs);
+        for (int b = 0; b < buckets; b++) {
+            if (!isLive(epochs[b], nowEpoch)) continue;
+            int base = b * slots;
+            for (int i = home(fp); fps[base + i] != 0L; i = (i + 1) & mask) {
+                if (fps[base + i] != fp) continue;
+                if (checks[base + i] == chk) {
+                    hits++;
+                    return true;
+                }
+                collisions++;
+            }
+        }
+        return false;
+    }
+
+    /** (key, text) 기록 */
+    public void mark(long key, CharSequence text, long now) {
+        synchronized (this) {
+            insert(fingerprint(key, text), check(key, text), Math.floorDiv(now, bucketMs));
+        }
+        scheduleWrite();
+    }
+
+    /** 중복이면 true, 아니면 기록하고 false */
+    public boolean checkAndMark(long key, CharSequence text, long now) {
+        synchronized (this) {
+            if (seen(key, text, now)) return true;
+            insert(fingerprint(key, text), check(key, text), Math.floorDiv(now, bucketMs));
+        }
+        scheduleWrite();
+        return false;
+    }
+
+    public synchronized int size(long now) {
+        long nowEpoch = Math.floorDiv(now, bucketMs);
+        int n = 0;
+        for (int b = 0; b < buckets; b++) if (isLive(epochs[b], nowEpoch)) n += counts[b];
+        return n;
+    }
+
+    public synchronized String stats() {
+        return "window=" + windowMs + "ms lookups=" + lookups + " hits=" + hits
+                + " collisions=" + collisions + " evictions=" + evictions + " expired=" + expired;
+    }
+
+    // ===== 내부 =====
+
+    private boolean isLive(long epoch, long nowEpoch) {
+        return epoch >= 0 && epoch <= nowEpoch && nowEpoch - epoch < buckets;
+    }
+
+    private void insert(long fp, int chk, long epoch) {
+        int b = (int) Math.floorMod(epoch, (long) buckets);
+        int base = b * slots;
+        if (epochs[b] != epoch) {
+            if (epochs[b] > epoch) return;                      // 이미 더 새 칸이 차지 (시계 역행)
+            expired += counts[b];
+            Arrays.fill(fps, base, base + slots, 0L);
+            Arrays.fill(checks, base, base + slots, 0);
+            epochs[b] = epoch;
+            counts[b] = 0;
+        }
+        int i = home(fp);
+        if (counts[b] >= limit) {
+            // 가득 참: 홈 칸을 덮어쓴다 (빈 칸을 만들지 않으므로 탐색 체인 유지)
+            evictions++;
+            fps[base + i] = fp;
+            checks[base + i] = chk;
+            return;
+        }
+        for (; fps[base + i] != 0L; i = (i + 1) & mask) {
+            if (fps[base + i] == fp && checks[base + i] == chk) return;
+        }
+        fps[base + i] = fp;
+        checks[base + i] = chk;
+        counts[b]++;
+    }
+
+    private int home(long fp) {
+        return (int) (fp ^ (fp >>> 32)) & mask;
+    }
+
+    /** 64bit 지문 (FNV-1a + 마무리 섞기, 0 은 빈 칸이라 피함) */
+    static long fingerprint(long key, CharSequence text) {
+        long h = 0xcbf29ce484222325L ^ key;
+        for (int i = 0, n = text.length(); i < n; i++) h = (h ^ text.charAt(i)) * 0x100000001b3L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0L ? 1L : h;
+    }
+
+    /** 지문과 독립적인 32bit 검증값 (충돌 검출용) */
+    static int check(long key, CharSequence text) {
+        int h = (int) (key * 0x9E3779B97F4A7C15L >>> 32);
+        for (int i = 0, n = text.length(); i < n; i++) h = h * 31 + text.charAt(i);
+        return h ^ text.length();
+    }
+
+    // ===== 스냅샷 =====
+
+    private void attach(File file, long now) {
+        this.snapshot = file;
+        if (!file.exists()) return;
+        long nowEpoch = Math.floorDiv(now, bucketMs);
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readLong() != bucketMs) return;    // 창이 바뀌었으면 버림
+            int n = in.readInt();
+            synchronized (this) {
+                for (int k = 0; k < n; k++) {
+                    long epoch = in.readLong();
+                    long fp = in.readLong();
+                    int chk = in.readInt();
+                    if (isLive(epoch, nowEpoch)) {
+                        insert(fp, chk, epoch);
+                        restored++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "[DuplicateFilter] snapshot unreadable: " + file.getName() + " " + e.getMessage());
+        }
+        Log.d(TAG, "[DuplicateFilter] restored " + file.getName() + " entries=" + restored);
+    }
+
+    private void scheduleWrite() {
+        if (snapshot == null || !writeQueued.compareAndSet(false, true)) return;
+        EXEC.execute(() -> {
+            writeQueued.set(false);
+            writeSnapshot(System.currentTimeMillis());
+        });
+    }
+
+    private void writeSnapshot(long now) {
+        long[] e;
+        long[] f;
+        int[] c;
+        int n = 0;
+        synchronized (this) {
+            long nowEpoch = Math.floorDiv(now, bucketMs);
+            int live = size(now);
+            e = new long[live];
+            f = new long[live];
+            c = new int[live];
+            for (int b = 0; b < buckets; b++) {
+                if (!isLive(epochs[b], nowEpoch)) continue;
+                for (int i = b * slots, end = i + slots; i < end && n < live; i++) {
+                    if (fps[i] == 0L) continue;
+                    e[n] = epochs[b];
+                    f[n] = fps[i];
+                    c[n] = checks[i];
+                    n++;
+                }
+            }
+        }
+        File dir = snapshot.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) return;
+        File tmp = new File(snapshot.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(bucketMs);
+            out.writeInt(n);
+            for (int k = 0; k < n; k++) {
+                out.writeLong(e[k]);
+                out.writeLong(f[k]);
+                out.writeInt(c[k]);
+            }
+        } catch (IOException ex) {
+            Log.w(TAG, "[DuplicateFilter] snapshot write failed: " + ex.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(snapshot)) Log.w(TAG, "[DuplicateFilter] snapshot rename failed: " + snapshot.getName());
+    }
+}
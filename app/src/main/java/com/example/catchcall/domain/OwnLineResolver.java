@@ -0,0 +1,204 @@
+package com.example.catchcall.domain;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.example.catchcall.data.NumberKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 내 회선 번호 판별 (듀얼 SIM 포함).
+ *
+ * - 활성 구독 전체의 번호를 NumberKey 로 모아 open-addressing long 표로 만들어 두고 통째로 교체(volatile)
+ * - isOwnLine() 은 해시 한 번 탐색만 → 권한 확인/TelephonyManager 등 Binder 호출 없음
+ * - 구독 변경 콜백, 권한 허용 직후(refreshAsync)에 백그라운드에서 다시 읽는다
+ * - 권한이 없어 비어 있으면 조회 경로에서 최대 5분마다 백그라운드 재시도만 예약
+ */
+public final class OwnLineResolver {
+    private static final String TAG = "AutoReply";
+
+    private static final long RETRY_EMPTY_MS = 5 * 60_000L;
+
+    private static final ExecutorService EXEC = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "own-line");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static volatile OwnLineResolver shared;
+
+    private final Context app;
+    private volatile long[] table = new long[2];   // 0 = 빈 칸
+    private volatile int lines;
+    private volatile boolean loaded;
+    private volatile long loadedAt;
+    private final AtomicBoolean refreshQueued = new AtomicBoolean(false);
+
+    private OwnLineResolver(Context app) {
+        this.app = app;
+    }
+
+    /** 프로세스 전역 인스턴스 (최초 1회는 호출 스레드에서 읽는다 — 메인 스레드에서 부르지 말 것) */
+    public static OwnLineResolver get(Context ctx) {
+        OwnLineResolver r = instance(ctx);
+        if (!r.loaded) {
+            synchronized (r) {
+                if (!r.loaded) r.reload();
+            }
+        }
+        return r;
+    }
+
+    /** 백그라운드 다시 읽기 예약 (권한 허용 직후 등, 메인 스레드에서 호출 가능) */
+    public static void refreshAsync(Context ctx) {
+        instance(ctx).scheduleRefresh();
+    }
+
+    /** 내 회선 번호인가 (해시 한 번 탐색) */
+    public boolean isOwnLine(CharSequence number) {
+        if (lines == 0) {
+            if (SystemClock.elapsedRealtime() - loadedAt >= RETRY_EMPTY_MS) scheduleRefresh();
+            return false;
+        }
+        long key = NumberKey.of(number);
+        if (key == NumberKey.NONE) return false;
+        long[] t = table;
+        int mask = t.length - 1;
+        for (int i = slot(key, mask); t[i] != 0L; i = (i + 1) & mask) {
+            if (t[i] == key) return true;
+        }
+        return false;
+    }
+
+    public int lineCount() {
+        return lines;
+    }
+
+    // ===== 내부 =====
+
+    private static OwnLineResolver instance(Context ctx) {
+        OwnLineResolver r = shared;
+        if (r != null) return r;
+        synchronized (OwnLineResolver.class) {
+            if (shared == null) {
+                shared = new OwnLineResolver(ctx.getApplicationContext());
+                shared.listenSubscriptions();
+            }
+            return shared;
+        }
+    }
+
+    private void scheduleRefresh() {
+        if (!refreshQueued.compareAndSet(false, true)) return;
+        EXEC.execute(() -> {
+            refreshQueued.set(false);
+            synchronized (this) {
+                reload();
+            }
+        });
+    }
+
+    private void reload() {
+        List<String> numbers = readLineNumbers();
+        int n = 0;
+        long[] t = new long[Integer.highestOneBit(Math.max(1, numbers.size()) * 4 - 1) << 1];
+        int mask = t.length - 1;
+        for (String num : numbers) {
+            long key = NumberKey.of(num);
+            if (key == NumberKey.NONE) continue;
+            int i = slot(key, mask);
+            while (t[i] != 0L && t[i] != key) i = (i + 1) & mask;
+            if (t[i] == 0L) {
+                t[i] = key;
+                n++;
+            }
+        }
+        table = t;
+        lines = n;
+        loadedAt = SystemClock.elapsedRealtime();
+        loaded = true;
+        Log.d(TAG, "[OwnLineResolver] lines=" + n);
+    }
+
+    /** 활성 구독들의 번호 + 기본 회선 번호 (권한 없으면 빈 목록) */
+    private List<String> readLineNumbers() {
+        List<String> out = new ArrayList<>();
+        if (ContextCompat.checkSelfPermission(app, Manifest.permission.READ_PHONE_NUMBERS)
+                != PackageManager.PERMISSION_GRANTED
+                && ContextCompat.checkSelfPermission(app, Manifest.permission.READ_PHONE_STATE)
+                != PackageManager.PERMISSION_GRANTED) {
+            return out;
+        }
+        TelephonyManager tm = (TelephonyManager) app.getSystemService(Context.TELEPHONY_SERVICE);
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP_MR1) {
+                SubscriptionManager sm = (SubscriptionManager) app.getSystemService(Context.TELEPHONY_SUBSCRIPTION_SERVICE);
+                List<SubscriptionInfo> subs = sm != null ? sm.getActiveSubscriptionInfoList() : null;
+                if (subs != null) {
+                    for (SubscriptionInfo info : subs) {
+                        int subId = info.getSubscriptionId();
+                        String num = null;
+                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) num = sm.getPhoneNumber(subId);
+                        if (TextUtils.isEmpty(num)) num = info.getNumber();
+                        if (TextUtils.isEmpty(num) && tm != null) num = tm.createForSubscriptionId(subId).getLine1Number();
+                        if (!TextUtils.isEmpty(num)) out.add(num);
+                    }
+                }
+            }
+        } catch (Throwable t) {
+            Log.w(TAG, "[OwnLineResolver] subscription read failed: " + t.getMessage());
+        }
+        try {
+            String line1 = tm != null ? tm.getLine1Number() : null;
+            if (!TextUtils.isEmpty(line1)) out.add(line1);
+        } catch (Throwable t) {
+            Log.w(TAG, "[OwnLineResolver] line1 read failed: " + t.getMessage());
+        }
+        return out;
+    }
+
+    /** SIM 교체/추가/제거 시 다시 읽기 */
+    private void listenSubscriptions() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP_MR1) return;
+        final SubscriptionManager.OnSubscriptionsChangedListener listener =
+                new SubscriptionManager.OnSubscriptionsChangedListener() {
+                    @Override
+                    public void onSubscriptionsChanged() {
+                        scheduleRefresh();
+                    }
+                };
+        try {
+            SubscriptionManager sm = (SubscriptionManager) app.getSystemService(Context.TELEPHONY_SUBSCRIPTION_SERVICE);
+            if (sm == null) return;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                sm.addOnSubscriptionsChangedListener(EXEC, listener);
+            } else {
+                // 구버전 API 는 Looper 스레드에서 등록해야 한다
+                new Handler(app.getMainLooper()).post(() -> sm.addOnSubscriptionsChangedListener(listener));
+            }
+        } catch (Throwable t) {
+            Log.w(TAG, "[OwnLineResolver] listener register failed: " + t.getMessage());
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.catchcall.domain;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.catchcall.R;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 발신 번호 분류 규칙 로딩 / 핫 리로드 (분류기 자체는 :core 의 SenderClassifier).
+ * - 기본 규칙: res/raw/sender_rules.txt, filesDir/sender_rules.txt 가 있으면 그것으로 덮어쓴다
+ * - get() 은 덮어쓰기 파일이 바뀌면 다시 컴파일해 교체한다(잘못된 파일이면 이전 규칙 유지)
+ */
+public final class SenderRules {
+    private static final String TAG = "AutoReply";
+
+    static final String OVERRIDE_FILE = "sender_rules.txt";
+    private static final long RELOAD_CHECK_MS = 30_000L;
+
+    private static volatile SenderClassifier current;
+    private static volatile long checkedAt;
+    private static long loadedStamp = -1L;
+
+    private SenderRules() {}
+
+    /** 현재 규칙 (덮어쓰기 파일 변경은 최대 30초마다 확인) */
+    public static SenderClassifier get(Context ctx) {
+        SenderClassifier c = current;
+        long now = SystemClock.elapsedRealtime();
+        if (c != null && now - checkedAt < RELOAD_CHECK_MS) return c;
+        return reload(ctx, false);
+    }
+
+    /** 규칙 다시 읽기 (force 면 변경 여부와 무관하게) */
+    public static synchronized SenderClassifier reload(Context ctx, boolean force) {
+        checkedAt = SystemClock.elapsedRealtime();
+        File override = new File(ctx.getFilesDir(), OVERRIDE_FILE);
+        long stamp = override.exists() ? override.lastModified() ^ override.length() : 0L;
+        if (current != null && !force && stamp == loadedStamp) return current;
+
+        SenderClassifier next = null;
+        if (stamp != 0L) {
+            try {
+                next = SenderClassifier.compile(readAll(new FileInputStream(override)));
+                Log.d(TAG, "[SenderRules] loaded override rules=" + next.ruleCount());
+            } catch (Exception e) {
+                Log.w(TAG, "[SenderRules] bad override rules, keep previous: " + e.getMessage());
+            }
+        }
+        if (next == null && (current == null || stamp == 0L)) {     // 덮어쓰기 없음/삭제됨 또는 최초 로딩 실패
+            try {
+                next = SenderClassifier.compile(readAll(ctx.getResources().openRawResource(R.raw.sender_rules)));
+            } catch (Exception e) {
+                Log.e(TAG, "[SenderRules] default rules failed: " + e.getMessage());
+                if (current == null) next = SenderClassifier.compile("");
+            }
+        }
+        if (next != null) current = next;
+        loadedStamp = stamp;
+        return current;
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        try (InputStream is = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = is.read(buf)) > 0) out.write(buf, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
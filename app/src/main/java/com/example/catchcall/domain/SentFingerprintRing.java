@@ -0,0 +1,193 @@
+package com.example.catchcall.domain;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.catchcall.data.NumberKey;
+import com.example.catchcall.data.PrefKeyFamily;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 우리 앱이 보낸 문자 지문 링 (자기 발송 echo 판별용).
+ *
+ * - 항목: 정규화 수신번호 키(NumberKey), 본문 지문, 발송 시각
+ * - 고정 크기 링, 쓰기는 커서 getAndIncrement + 슬롯 seq 발행(seqlock) → 락 없음, 발송 경로가 막히지 않는다
+ * - 번호 해시 → 최신 seq 인덱스 + 슬롯별 이전 seq 연결 → 조회는 번호 하나의 최근 항목만 따라감
+ * - 최근 항목은 filesDir/sent_ring 에 비동기로 미러링 → 새로 뜬 프로세스의 리시버도 본다
+ */
+public final class SentFingerprintRing {
+    private static final String TAG = "AutoReply";
+
+    public static final int CAPACITY = 64;              // 2의 거듭제곱
+    private static final int MASK = CAPACITY - 1;
+    private static final int INDEX_SIZE = CAPACITY * 4;
+    private static final int STRIDE = 5;                // seq, numberKey, bodyFp, at, prevSeq
+
+    private static final String FILE = "sent_ring";
+    private static final int MAGIC = 0x53454E54;        // "SENT"
+
+    private static final ExecutorService EXEC = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sent-ring");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    private static volatile SentFingerprintRing shared;
+
+    private final long ttlMs;
+    private final AtomicLong cursor = new AtomicLong(0L);
+    private final AtomicLongArray slots = new AtomicLongArray(CAPACITY * STRIDE);
+    private final AtomicLongArray index = new AtomicLongArray(INDEX_SIZE);   // seq + 1 (0 = 없음)
+    private final AtomicBoolean writeQueued = new AtomicBoolean(false);
+    private File mirror;
+
+    public SentFingerprintRing(long ttlMs) {
+        this.ttlMs = ttlMs;
+        for (int i = 0; i < CAPACITY; i++) slots.set(i * STRIDE, -1L);
+    }
+
+    /** 프로세스 전역 인스턴스 (최초 생성 시 디스크 미러 복원) */
+    public static SentFingerprintRing get(Context ctx) {
+        SentFingerprintRing r = shared;
+        if (r != null) return r;
+        synchronized (SentFingerprintRing.class) {
+            if (shared == null) {
+                SentFingerprintRing ring = new SentFingerprintRing(PrefKeyFamily.SENT_TO.ttlMs());
+                ring.attach(new File(ctx.getApplicationContext().getFilesDir(), FILE), System.currentTimeMillis());
+                shared = ring;
+            }
+            return shared;
+        }
+    }
+
+    /** 발송 기록 (락 없음, 디스크 미러는 백그라운드) */
+    public void record(String number, CharSequence body, long now) {
+        long key = NumberKey.of(number);
+        if (key == NumberKey.NONE) return;
+        put(key, DuplicateFilter.fingerprint(key, body), now);
+        scheduleMirror();
+    }
+
+    /**
+     * 최근 ttl 안에 이 번호로 보낸 문자가 있나.
+     * @param body null 이면 번호만 본다(본문 일부만 알 때), 아니면 본문 지문까지 같아야 한다
+     */
+    public boolean wasSent(String number, CharSequence body, long now) {
+        long key = NumberKey.of(number);
+        if (key == NumberKey.NONE) return false;
+        long fp = body != null ? DuplicateFilter.fingerprint(key, body) : 0L;
+        long seq = index.get(indexOf(key)) - 1;
+        for (int steps = 0; seq >= 0 && steps < CAPACITY; steps++) {
+            int base = (int) (seq & MASK) * STRIDE;
+            long s1 = slots.get(base);
+            long nk = slots.get(base + 1);
+            long bf = slots.get(base + 2);
+            long at = slots.get(base + 3);
+            long prev = slots.get(base + 4);
+            if (slots.get(base) != s1 || s1 != seq) return false;   // 덮어써짐/쓰는 중 → 더 오래된 건 없음
+            if (now - at >= ttlMs) return false;                     // 체인은 최신순
+            if (nk == key && (body == null || bf == fp)) return true;
+            seq = prev;
+        }
+        return false;
+    }
+
+    // ===== 내부 =====
+
+    private void put(long key, long fp, long at) {
+        long seq = cursor.getAndIncrement();
+        int base = (int) (seq & MASK) * STRIDE;
+        int ix = indexOf(key);
+        // 슬롯을 먼저 발행하고 인덱스를 CAS 로 옮긴다 → 조회는 발행 전 슬롯을 보지 않는다
+        while (true) {
+            long head = index.get(ix);
+            slots.set(base, -1L);                            // 쓰는 중 표시
+            slots.set(base + 1, key);
+            slots.set(base + 2, fp);
+            slots.set(base + 3, at);
+            slots.set(base + 4, head - 1);
+            slots.set(base, seq);                            // 발행
+            if (index.compareAndSet(ix, head, seq + 1)) return;
+        }
+    }
+
+    private static int indexOf(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 40) & (INDEX_SIZE - 1);
+    }
+
+    // ===== 디스크 미러 =====
+
+    private void attach(File file, long now) {
+        mirror = file;
+        if (!file.exists()) return;
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) return;
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                long key = in.readLong();
+                long fp = in.readLong();
+                long at = in.readLong();
+                if (now - at < ttlMs) {
+                    put(key, fp, at);
+                    restored++;
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "[SentFingerprintRing] mirror unreadable: " + e.getMessage());
+        }
+        Log.d(TAG, "[SentFingerprintRing] restored entries=" + restored);
+    }
+
+    private void scheduleMirror() {
+        if (mirror == null || !writeQueued.compareAndSet(false, true)) return;
+        EXEC.execute(() -> {
+            writeQueued.set(false);
+            writeMirror(System.currentTimeMillis());
+        });
+    }
+
+    private void writeMirror(long now) {
+        long end = cursor.get();
+        long start = Math.max(0L, end - CAPACITY);
+        long[] buf = new long[CAPACITY * 3];
+        int n = 0;
+        for (long seq = start; seq < end; seq++) {           // 오래된 것부터 (복원 시 같은 순서로 넣음)
+            int base = (int) (seq & MASK) * STRIDE;
+            long s1 = slots.get(base);
+            long key = slots.get(base + 1);
+            long fp = slots.get(base + 2);
+            long at = slots.get(base + 3);
+            if (slots.get(base) != s1 || s1 != seq || now - at >= ttlMs) continue;
+            buf[n * 3] = key;
+            buf[n * 3 + 1] = fp;
+            buf[n * 3 + 2] = at;
+            n++;
+        }
+        File tmp = new File(mirror.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(n);
+            for (int i = 0; i < n * 3; i++) out.writeLong(buf[i]);
+        } catch (IOException e) {
+            Log.w(TAG, "[SentFingerprintRing] mirror write failed: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(mirror)) Log.w(TAG, "[SentFingerprintRing] mirror rename failed");
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.catchcall.domain;
+
+import android.content.Context;
+
+import com.example.catchcall.data.NumberKey;
+import com.example.catchcall.data.PrefKeyFamily;
+
+/**
+ * 매너콜 문자 선별의 기기 상태 가드 (ReplyPolicy.Guards 앱 구현).
+ *  - 우리 앱이 방금(60초) 이 번호로 보낸 문자의 echo (SmsSender 가 남긴 발송 지문 링, O(1))
+ *  - 내 회선(모든 활성 SIM) 번호에서 온 문자 (캐시된 번호 표, Binder 호출 없음)
+ *  - 동일(from+body) 60초 중복 (메모리 지문 필터, prefs 키 없음)
+ */
+public final class SmsGuards implements ReplyPolicy.Guards {
+    private final Context app;
+
+    public SmsGuards(Context ctx) {
+        this.app = ctx.getApplicationContext();
+    }
+
+    @Override
+    public ReplyPolicy.Verdict check(String from, String body, long now) {
+        if (SentFingerprintRing.get(app).wasSent(from, body, now)) return ReplyPolicy.Verdict.ECHO;
+        if (OwnLineResolver.get(app).isOwnLine(from)) return ReplyPolicy.Verdict.SELF;
+        if (dupFilter().seen(NumberKey.of(from), body, now)) return ReplyPolicy.Verdict.DUPLICATE;
+        return ReplyPolicy.Verdict.PASS;
+    }
+
+    /** 매너콜로 넘긴 문자를 중복 필터에 기록 (같은 문자가 다시 와도 한 번만) */
+    public void markHandled(String from, String body, long now) {
+        dupFilter().mark(NumberKey.of(from), body, now);
+    }
+
+    public String dupStats() {
+        return dupFilter().stats();
+    }
+
+    private DuplicateFilter dupFilter() {
+        return DuplicateFilter.named(app, "sms_dup", PrefKeyFamily.DUP.ttlMs());
+    }
+}
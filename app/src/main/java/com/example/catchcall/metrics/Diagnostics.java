@@ -0,0 +1,152 @@
+package com.example.catchcall.metrics;
+
+import android.os.SystemClock;
+
+import com.example.catchcall.data.NumberKey;
+
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 자동문자 경로 계측 (고정 메모리).
+ *
+ * - 트리거(부재중 IDLE / 매너콜 SMS_RECEIVED)를 받은 시각을 번호별로 기억해 두고,
+ *   이후 단계(정규화 → 정책 판정 → SmsManager 위임 → sentIntent 확인)마다 그 시각부터의 경과를 히스토그램에 남긴다
+ * - 판정 결과(쿨타임/일일 한도/방해 금지 차단, 억제창, 중복, 통신사 번호 등)는 LongAdder 카운터 (여러 스레드에서 경합 없이 증가)
+ * - 각 컴포넌트의 stats() 는 section() 으로 등록 → dump() 한 번에 모두 출력
+ *   (adb shell dumpsys activity provider com.example.catchcall/.metrics.DiagnosticsProvider, 앱 화면의 통계 패널)
+ */
+public final class Diagnostics {
+
+    /** 트리거 수신 이후 단계 */
+    public enum Stage {
+        NORMALIZE("receive_to_normalize"),
+        DECISION("receive_to_decision"),
+        DISPATCH("receive_to_dispatch"),
+        SENT("receive_to_sent");
+
+        final LatencyHistogram histogram;
+
+        Stage(String name) {
+            this.histogram = new LatencyHistogram(name);
+        }
+    }
+
+    /** 판정/처리 결과 */
+    public enum Outcome {
+        MISSED_TRIGGER, MANNER_TRIGGER,
+        FEATURE_OFF, NO_NUMBER, EMPTY_TEMPLATE, COOLDOWN_BLOCK, DAILY_CAP, QUIET_HOURS, QUEUED, QUEUE_FAIL, SENT,
+        SUPPRESSED, ALREADY_PROCESSED, DUPLICATE, ECHO_SKIP, SELF_SKIP, CARRIER_SKIP, NOT_MANNER;
+
+        final LongAdder count = new LongAdder();
+    }
+
+    /** dump 에 함께 실을 컴포넌트 통계 */
+    public interface Section {
+        String stats();
+    }
+
+    private static final int ORIGINS = 32;                  // 동시에 진행 중인 트리거 수 (넘치면 가장 오래된 것부터 덮음)
+    private static final long ORIGIN_TTL_MS = 10 * 60_000L;
+
+    private static final long[] originKey = new long[ORIGINS];
+    private static final long[] originAt = new long[ORIGINS];
+    private static final Map<String, Section> SECTIONS = new LinkedHashMap<>();
+    private static final long startedAt = SystemClock.elapsedRealtime();
+
+    private Diagnostics() {}
+
+    public static void count(Outcome o) {
+        o.count.increment();
+    }
+
+    /** 트리거 수신 (at = elapsedRealtime, 가능하면 리시버가 받은 순간) */
+    public static void received(String number, long at) {
+        long key = NumberKey.of(number);
+        if (key == NumberKey.NONE) return;
+        synchronized (originKey) {
+            int slot = 0;
+            for (int i = 0; i < ORIGINS; i++) {
+                if (originKey[i] == key) {
+                    slot = i;
+                    break;
+                }
+                if (originAt[i] < originAt[slot]) slot = i;
+            }
+            originKey[slot] = key;
+            originAt[slot] = at;
+        }
+    }
+
+    /** 단계 도달: 같은 번호의 트리거 수신부터 지금까지 (트리거를 모르면 기록 안 함) */
+    public static void stage(Stage s, String number) {
+        long key = NumberKey.of(number);
+        if (key == NumberKey.NONE) return;
+        long now = SystemClock.elapsedRealtime();
+        long at = -1L;
+        synchronized (originKey) {
+            for (int i = 0; i < ORIGINS; i++) {
+                if (originKey[i] != key) continue;
+                if (now - originAt[i] < ORIGIN_TTL_MS) at = originAt[i];
+                if (s == Stage.SENT) {                              // 마지막 단계 → 슬롯 반납
+                    originKey[i] = NumberKey.NONE;
+                    originAt[i] = 0L;
+                }
+                break;
+            }
+        }
+        if (at >= 0) s.histogram.record(now - at);
+    }
+
+    public static LatencyHistogram histogram(Stage s) {
+        return s.histogram;
+    }
+
+    public static long total(Outcome o) {
+        return o.count.sum();
+    }
+
+    public static void section(String name, Section s) {
+        synchronized (SECTIONS) {
+            SECTIONS.put(name, s);
+        }
+    }
+
+    /** 단계 히스토그램 + 결과 카운터 (통계 패널용 짧은 요약) */
+    public static String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Stage s : Stage.values()) sb.append(s.histogram.summary()).append('\n');
+        boolean first = true;
+        for (Outcome o : Outcome.values()) {
+            long n = o.count.sum();
+            if (n == 0) continue;
+            sb.append(first ? "" : " ").append(o.name().toLowerCase(Locale.ROOT)).append('=').append(n);
+            first = false;
+        }
+        return sb.toString();
+    }
+
+    public static void dump(PrintWriter pw) {
+        pw.println("CatchCall diagnostics (uptime " + (SystemClock.elapsedRealtime() - startedAt) / 1000 + "s)");
+        pw.println("[stages]");
+        for (Stage s : Stage.values()) pw.println("  " + s.histogram.summary());
+        pw.println("[outcomes]");
+        for (Outcome o : Outcome.values()) pw.println("  " + o.name().toLowerCase(Locale.ROOT) + "=" + o.count.sum());
+        Map<String, Section> copy;
+        synchronized (SECTIONS) {
+            copy = new LinkedHashMap<>(SECTIONS);
+        }
+        for (Map.Entry<String, Section> e : copy.entrySet()) {
+            pw.println("[" + e.getKey() + "]");
+            try {
+                for (String line : e.getValue().stats().split("\n")) pw.println("  " + line);
+            } catch (Throwable t) {
+                pw.println("  error: " + t);
+            }
+        }
+        pw.flush();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.catchcall.metrics;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+
+import com.example.catchcall.data.SettingsStore;
+import com.example.catchcall.receiver.ReceiverPipeline;
+
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+
+/**
+ * dumpsys 진입점 (앱 프로세스가 뜰 때 함께 생성되는 비공개 provider, 데이터는 없음).
+ * 프로세스 시작 훅도 겸한다 (이벤트 트레이스 스위치 적용, prefs 읽기는 리시버 파이프라인 스레드에서).
+ *   adb shell dumpsys activity provider com.example.catchcall/.metrics.DiagnosticsProvider
+ */
+public class DiagnosticsProvider extends ContentProvider {
+
+    @Override
+    public boolean onCreate() {
+        // 트레이스 스위치는 프로세스가 뜰 때 한 번 적용 (이후 변경은 MainActivity 가 바로 반영).
+        // onCreate 는 메인 스레드 → 첫 prefs 디스크 읽기는 파이프라인에 맡긴다.
+        // 리시버 이벤트보다 먼저 큐에 들어가므로 첫 이벤트부터 스위치가 적용된다.
+        final Context app = getContext().getApplicationContext();
+        ReceiverPipeline.submit("trace_switch", null,
+                () -> EventTrace.setEnabled(new SettingsStore(app).isTraceEnabled()));
+        Diagnostics.section("trace", EventTrace::stats);
+        return true;
+    }
+
+    @Override
+    public void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        Diagnostics.dump(writer);
+    }
+
+    @Override
+    public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        return null;
+    }
+
+    @Override
+    public String getType(Uri uri) {
+        return null;
+    }
+
+    @Override
+    public Uri insert(Uri uri, ContentValues values) {
+        return null;
+    }
+
+    @Override
+    public int delete(Uri uri, String selection, String[] selectionArgs) {
+        return 0;
+    }
+
+    @Override
+    public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+        return 0;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.catchcall.metrics;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import com.example.catchcall.BuildConfig;
+import com.example.catchcall.data.NumberKey;
+import com.example.catchcall.domain.ReplyRules;
+import com.example.catchcall.receiver.CallDetectionEngine;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 자동문자 경로 이벤트 트레이스 (미리 잡아 둔 고정 크기 링 버퍼).
+ *
+ * - 기록은 (시각, 이벤트 번호, long 인자, 스레드) 네 칸 쓰기뿐: 문자열 조립/할당 없음, 꺼져 있으면 volatile 읽기 1회
+ * - 구간 이벤트는 android.os.Trace 섹션도 함께 연다 (systrace/Perfetto 에서 스레드 타임라인에 보임, 이름은 상수)
+ * - 사람이 읽을 형태(번호 키, 판정 사유, 경로 이름)는 내보낼 때만 만든다 → Chrome trace-event JSON (Perfetto UI 로 열림)
+ * - 여러 스레드가 순번만 원자적으로 받아 제 칸에 쓴다. 내보내는 중에 덮어쓰이는 칸은 어긋날 수 있음 (진단용)
+ * - 켜기/끄기: MainActivity 스위치 (SettingsStore 에 저장, 프로세스 시작 시 DiagnosticsProvider 가 적용)
+ */
+public final class EventTrace {
+
+    /** 디버그 빌드에서만 핫패스 Log.d 문자열을 만든다 (릴리스는 트레이스로 대신) */
+    public static final boolean LOGD = BuildConfig.DEBUG;
+
+    /** 인자 → JSON args 본문 (내보낼 때만 호출) */
+    interface ArgFormat {
+        void format(long arg, StringBuilder out);
+    }
+
+    public enum Event {
+        CALL_STATE("call_state", "call", EventTrace::callState),
+        MISSED_DISPATCH("missed_dispatch", "call", EventTrace::key),
+        MISSED_DUPLICATE("missed_duplicate", "call", EventTrace::key),
+        FALLBACK_SUPPRESSED("fallback_suppressed", "call", EventTrace::key),
+        FALLBACK_ALREADY_PROCESSED("fallback_already_processed", "call", EventTrace::key),
+        FALLBACK_DISPATCH("fallback_dispatch", "call", EventTrace::key),
+        TRY_SEND("try_send", "policy", EventTrace::key),
+        SEGMENT_PLAN("segment_plan", "policy", EventTrace::segmentPlan),
+        RULE_DECISION("rule_decision", "policy", EventTrace::ruleDecision),
+        SEND_REQUEST("send_request", "sms", EventTrace::key),
+        SMS_DISPATCH("sms_dispatch", "sms", EventTrace::key),
+        SMS_ROUTE("sms_route", "sms", EventTrace::route);
+
+        final String name;
+        final String category;
+        final String section;       // android.os.Trace 섹션 이름
+        final ArgFormat args;
+
+        Event(String name, String category, ArgFormat args) {
+            this.name = name;
+            this.category = category;
+            this.section = "CatchCall:" + name;
+            this.args = args;
+        }
+    }
+
+    private static final int PH_BEGIN = 0, PH_END = 1, PH_INSTANT = 2;
+    private static final char[] PHASES = {'B', 'E', 'i'};
+
+    private static final int CAPACITY = 1 << 13;            // 8192 이벤트 ≈ 224KB
+    private static final int MASK = CAPACITY - 1;
+
+    private static final long[] at = new long[CAPACITY];    // elapsedRealtimeNanos
+    private static final long[] arg = new long[CAPACITY];
+    private static final int[] meta = new int[CAPACITY];    // (이벤트 번호 + 1) << 2 | phase, 0 = 빈 칸
+    private static final int[] tid = new int[CAPACITY];     // Process.myTid()
+    private static final AtomicLong seq = new AtomicLong();
+    private static volatile boolean enabled;
+
+    private static final Event[] EVENTS = Event.values();
+
+    private EventTrace() {}
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void instant(Event e, long a) {
+        if (enabled) record(e, PH_INSTANT, a);
+    }
+
+    /** 번호 인자는 정규화 키로 (켜져 있을 때만 계산, 할당 없음) */
+    public static void instant(Event e, CharSequence number) {
+        if (enabled) record(e, PH_INSTANT, NumberKey.of(number));
+    }
+
+    /** 구간 시작: Trace 섹션은 기록 여부와 무관하게 항상 짝을 맞춘다 (같은 스레드에서 end) */
+    public static void begin(Event e, CharSequence number) {
+        Trace.beginSection(e.section);
+        if (enabled) record(e, PH_BEGIN, NumberKey.of(number));
+    }
+
+    public static void end(Event e) {
+        if (enabled) record(e, PH_END, 0L);
+        Trace.endSection();
+    }
+
+    /** 링 상태 (진단 섹션) */
+    public static String stats() {
+        long n = seq.get();
+        return "enabled=" + enabled + " recorded=" + n + " capacity=" + CAPACITY
+                + " overwritten=" + Math.max(0L, n - CAPACITY);
+    }
+
+    /**
+     * 링에 남은 이벤트를 Chrome trace-event JSON 으로 (오래된 것부터).
+     * @return 내보낸 이벤트 수
+     */
+    public static int exportChromeJson(Writer w) throws IOException {
+        long end = seq.get();
+        long start = Math.max(0L, end - CAPACITY);
+        int pid = Process.myPid();
+        StringBuilder sb = new StringBuilder(256);
+        w.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        int written = 0;
+        for (long s = start; s < end; s++) {
+            int i = (int) (s & MASK);
+            int m = meta[i];
+            if (m == 0) continue;
+            Event e = EVENTS[(m >>> 2) - 1];
+            int ph = m & 3;
+            long nanos = at[i];
+            sb.setLength(0);
+            sb.append(written == 0 ? "\n" : ",\n")
+                    .append("{\"name\":\"").append(e.name)
+                    .append("\",\"cat\":\"").append(e.category)
+                    .append("\",\"ph\":\"").append(PHASES[ph])
+                    .append("\",\"ts\":").append(nanos / 1000).append('.').append(pad3(nanos % 1000))
+                    .append(",\"pid\":").append(pid)
+                    .append(",\"tid\":").append(tid[i]);
+            if (ph == PH_INSTANT) sb.append(",\"s\":\"t\"");
+            if (ph != PH_END) {
+                sb.append(",\"args\":{");
+                e.args.format(arg[i], sb);
+                sb.append('}');
+            }
+            sb.append('}');
+            w.write(sb.toString());
+            written++;
+        }
+        w.write("\n]}\n");
+        w.flush();
+        return written;
+    }
+
+    /** 기록 비우기 (내보낸 뒤 새로 잡을 때) */
+    public static void clear() {
+        Arrays.fill(meta, 0);
+        seq.set(0L);
+    }
+
+    // ===== 내부 =====
+
+    private static void record(Event e, int phase, long a) {
+        int i = (int) (seq.getAndIncrement() & MASK);
+        at[i] = SystemClock.elapsedRealtimeNanos();
+        arg[i] = a;
+        tid[i] = Process.myTid();                   // 리눅스 tid: systrace 스레드 트랙과 같은 번호
+        meta[i] = ((e.ordinal() + 1) << 2) | phase;
+    }
+
+    private static String pad3(long v) {
+        return v < 10 ? "00" + v : v < 100 ? "0" + v : Long.toString(v);
+    }
+
+    // ----- 인자 포맷 (내보낼 때만) -----
+
+    private static void key(long a, StringBuilder out) {
+        out.append("\"key\":\"0x").append(Long.toHexString(a)).append('"');
+    }
+
+    /** CALL_STATE 인자: source 번호 << 8 | 상태(0 RINGING, 1 OFFHOOK, 2 IDLE) */
+    public static long callState(int source, int state) {
+        return ((long) source << 8) | state;
+    }
+
+    private static void callState(long a, StringBuilder out) {
+        int state = (int) (a & 0xFF);
+        out.append("\"source\":\"").append(CallDetectionEngine.sourceName((int) (a >>> 8)))
+                .append("\",\"state\":\"").append(state == 0 ? "RINGING" : state == 1 ? "OFFHOOK" : "IDLE").append('"');
+    }
+
+    /** SEGMENT_PLAN 인자: 분할 수 << 8 | 인코딩 */
+    public static long segmentPlan(int segments, int encoding) {
+        return ((long) segments << 8) | (encoding & 0xFF);
+    }
+
+    private static void segmentPlan(long a, StringBuilder out) {
+        out.append("\"segments\":").append(a >>> 8).append(",\"encoding\":").append(a & 0xFF);
+    }
+
+    private static void ruleDecision(long a, StringBuilder out) {
+        out.append("\"reason\":\"").append(ReplyRules.reason(a))
+                .append("\",\"rule\":").append(ReplyRules.rule(a))
+                .append(",\"remainMs\":").append(ReplyRules.remainMs(a));
+    }
+
+    private static void route(long a, StringBuilder out) {
+        String[] names = {"FAIL", "SMS", "MULTIPART", "MMS"};
+        out.append("\"route\":\"").append(a >= 0 && a < names.length ? names[(int) a] : Long.toString(a)).append('"');
+    }
+}
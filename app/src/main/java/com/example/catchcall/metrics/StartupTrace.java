@@ -0,0 +1,118 @@
+package com.example.catchcall.metrics;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * 화면 시작 시간 측정 (콜드 스타트 예산 관리용).
+ *
+ * - 기준 시각: 이 프로세스의 첫 화면이고 프로세스가 막 떴으면(콜드) 프로세스 시작, 아니면 onCreate
+ * - first_frame: 첫 draw 직전 (decor view 의 OnPreDrawListener)
+ * - interactive: 설정 값이 화면에 바인딩되어 입력을 받을 수 있게 된 순간 (첫 프레임보다 빠르면 첫 프레임 시각)
+ *   → reportFullyDrawn() 도 함께 호출 (am 로그 "Fully drawn", Play Console 지표)
+ * - 예산을 넘으면 경고 로그, 히스토그램/마지막 측정은 진단 섹션 "startup"
+ * - 시스템 트레이스에는 "CatchCall:startup" 비동기 구간 (API 29+)
+ */
+public final class StartupTrace {
+    private static final String TAG = "AutoReply";
+
+    public static final long FIRST_FRAME_BUDGET_MS = 500L;
+    public static final long INTERACTIVE_BUDGET_MS = 800L;
+    private static final long COLD_WINDOW_MS = 5_000L;     // 프로세스 시작 후 이 안에 첫 화면이면 콜드
+    private static final String SECTION = "CatchCall:startup";
+
+    private static final LatencyHistogram firstFrame = new LatencyHistogram("startup_first_frame");
+    private static final LatencyHistogram interactive = new LatencyHistogram("startup_interactive");
+    private static boolean firstScreen = true;
+    private static volatile String last = "none";
+    private static int cookie;
+
+    private final Activity activity;
+    private final boolean cold;
+    private final long origin;          // uptimeMillis
+    private final long createdAt;
+    private final int traceCookie;
+    private long contentAt = -1L;
+    private long firstFrameAt = -1L;
+    private long boundAt = -1L;
+    private boolean done;
+
+    private StartupTrace(Activity activity, boolean cold, long origin, long createdAt, int traceCookie) {
+        this.activity = activity;
+        this.cold = cold;
+        this.origin = origin;
+        this.createdAt = createdAt;
+        this.traceCookie = traceCookie;
+    }
+
+    /** onCreate 맨 앞에서 (메인 스레드) */
+    public static StartupTrace begin(Activity activity) {
+        long now = SystemClock.uptimeMillis();
+        long processStart = Process.getStartUptimeMillis();
+        boolean cold;
+        int c;
+        synchronized (StartupTrace.class) {
+            cold = firstScreen && now - processStart < COLD_WINDOW_MS;
+            firstScreen = false;
+            c = ++cookie;
+        }
+        if (Build.VERSION.SDK_INT >= 29) Trace.beginAsyncSection(SECTION, c);
+        Diagnostics.section("startup", StartupTrace::stats);
+        return new StartupTrace(activity, cold, cold ? processStart : now, now, c);
+    }
+
+    /** setContentView 직후 (decor view 가 생긴 뒤) → 첫 draw 감시 */
+    public void contentSet() {
+        contentAt = SystemClock.uptimeMillis();
+        final View decor = activity.getWindow().getDecorView();
+        decor.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                ViewTreeObserver vto = decor.getViewTreeObserver();
+                if (vto.isAlive()) vto.removeOnPreDrawListener(this);
+                firstFrameAt = SystemClock.uptimeMillis();
+                maybeFinish();
+                return true;
+            }
+        });
+    }
+
+    /** 설정 바인딩 완료 (메인 스레드) */
+    public void interactive() {
+        boundAt = SystemClock.uptimeMillis();
+        maybeFinish();
+    }
+
+    private void maybeFinish() {
+        if (done || firstFrameAt < 0 || boundAt < 0) return;
+        done = true;
+        long ff = firstFrameAt - origin;
+        long tti = Math.max(firstFrameAt, boundAt) - origin;
+        firstFrame.record(ff);
+        interactive.record(tti);
+        if (Build.VERSION.SDK_INT >= 29) Trace.endAsyncSection(SECTION, traceCookie);
+        activity.reportFullyDrawn();
+
+        String line = (cold ? "cold" : "warm")
+                + " first_frame=" + ff + "ms interactive=" + tti + "ms"
+                + " (before_create=" + (createdAt - origin)
+                + " content=" + (contentAt < 0 ? -1 : contentAt - createdAt)
+                + " bound=" + (boundAt - createdAt) + ")";
+        last = line;
+        if (ff > FIRST_FRAME_BUDGET_MS || tti > INTERACTIVE_BUDGET_MS) {
+            Log.w(TAG, "[StartupTrace] over budget (" + FIRST_FRAME_BUDGET_MS + "/" + INTERACTIVE_BUDGET_MS + "ms): " + line);
+        } else {
+            Log.i(TAG, "[StartupTrace] " + line);
+        }
+    }
+
+    public static String stats() {
+        return "last " + last + "\n" + firstFrame.summary() + "\n" + interactive.summary();
+    }
+}
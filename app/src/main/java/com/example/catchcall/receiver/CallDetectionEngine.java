@@ -0,0 +1,241 @@
+package com.example.catchcall.receiver;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.SystemClock;
+import android.telephony.TelephonyCallback;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.example.catchcall.data.PrefsCompactor;
+import com.example.catchcall.domain.AutoReplyUseCase;
+import com.example.catchcall.domain.CallCycleTracker;
+import com.example.catchcall.metrics.Diagnostics;
+import com.example.catchcall.metrics.EventTrace;
+import com.example.catchcall.metrics.LatencyHistogram;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 부재중 감지 엔진 — 여러 통화 상태 소스를 한 곳으로 모아 AutoReplyUseCase.onMissedCall 로 보낸다.
+ *
+ * 소스 (API 별로 쓸 수 있는 것을 모두 켜고, 먼저 도착한 쪽이 사이클을 확정):
+ *  - telephony_callback : API 31+ TelephonyCallback.CallStateListener (암시적 방송보다 빠름, 번호 없음)
+ *  - screening          : CallScreeningService (역할 보유 시) → 울리기 전에 번호를 받는다
+ *  - broadcast          : PHONE_STATE 방송 (모든 버전, Q+ 에서는 번호가 자주 null, 늦게 올 수 있음)
+ *
+ * 사이클은 처음 도착한 IDLE 로 닫힌다. 닫힌 사이클에 속한 늦은 전이(닫힌 뒤 도착한 느린 소스의 RINGING/OFFHOOK/IDLE,
+ * 또는 닫히기 전에 받았지만 큐에서 늦게 처리된 이벤트)는 새 사이클을 열지 않고 지연만 기록한다.
+ *
+ * 사이클마다 어느 소스가 IDLE 을 먼저 가져왔는지, 늦은 소스는 얼마나 늦었는지,
+ * 끊김(가장 이른 IDLE) → 발송 위임까지 걸린 시간을 히스토그램으로 남긴다.
+ */
+public final class CallDetectionEngine {
+    private static final String TAG = "AutoReply";
+
+    public static final String SOURCE_BROADCAST = "broadcast";
+    public static final String SOURCE_CALLBACK = "telephony_callback";
+    public static final String SOURCE_SCREENING = "screening";
+    private static final String[] SOURCES = {SOURCE_BROADCAST, SOURCE_CALLBACK, SOURCE_SCREENING};
+    private static final int SCREENING = 2;     // IDLE 을 보내지 않는 소스
+
+    private static final long DISPATCH_WINDOW_MS = 120_000L;
+
+    private static volatile CallDetectionEngine shared;
+
+    private final Context app;
+    private final ExecutorService callbackExec = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "call-state-callback");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // 사이클 상태 (elapsedRealtime 기준)
+    private boolean cycleOpen = true;   // 닫힌 뒤 제때 온 RINGING/OFFHOOK 이 다시 연다
+    private long lastIdleAt = -1L;      // 가장 최근에 닫힌 사이클의 끊김 시각 (늦은 소스 지연/발송 지연 측정용)
+    private long closedCycles;          // 지금까지 닫힌 사이클 수
+    private final long[] sourceCycles = new long[SOURCES.length];  // 소스별로 IDLE 을 보낸 사이클 수
+    private final long[] wins = new long[SOURCES.length];
+    private final LatencyHistogram[] idleLag = new LatencyHistogram[SOURCES.length];
+    private final LatencyHistogram hangupToDispatch = new LatencyHistogram("hangup_to_dispatch");
+    private Object callback;            // API 31+ TelephonyCallback (등록된 경우)
+
+    private CallDetectionEngine(Context app) {
+        this.app = app;
+        for (int i = 0; i < SOURCES.length; i++) idleLag[i] = new LatencyHistogram("idle_lag_" + SOURCES[i]);
+        Diagnostics.section("call_detection", this::stats);
+    }
+
+    public static CallDetectionEngine get(Context ctx) {
+        CallDetectionEngine e = shared;
+        if (e != null) return e;
+        synchronized (CallDetectionEngine.class) {
+            if (shared == null) shared = new CallDetectionEngine(ctx.getApplicationContext());
+            return shared;
+        }
+    }
+
+    /** 쓸 수 있는 빠른 소스 등록 (여러 번 불러도 한 번만) */
+    public synchronized void start() {
+        if (callback != null || Build.VERSION.SDK_INT < Build.VERSION_CODES.S) return;
+        if (ContextCompat.checkSelfPermission(app, Manifest.permission.READ_PHONE_STATE)
+                != PackageManager.PERMISSION_GRANTED) {
+            return;
+        }
+        try {
+            TelephonyManager tm = (TelephonyManager) app.getSystemService(Context.TELEPHONY_SERVICE);
+            if (tm == null) return;
+            CallStateCallback cb = new CallStateCallback();
+            tm.registerTelephonyCallback(callbackExec, cb);
+            callback = cb;
+            sourceCycles[indexOf(SOURCE_CALLBACK)] = closedCycles;     // 지난 사이클은 못 본 소스
+            Log.d(TAG, "[CallDetectionEngine] TelephonyCallback registered");
+        } catch (Throwable t) {
+            Log.w(TAG, "[CallDetectionEngine] TelephonyCallback register failed: " + t.getMessage());
+        }
+    }
+
+    /** 스크리닝 서비스가 받은 수신 번호 (울리기 전/직후, 메인 스레드) → 방송과 같은 파이프라인에서 처리 */
+    public void onScreened(String number) {
+        final long at = SystemClock.elapsedRealtime();
+        ReceiverPipeline.submit("screening", null,
+                () -> onState(SOURCE_SCREENING, TelephonyManager.EXTRA_STATE_RINGING, number, at));
+    }
+
+    /**
+     * 통화 상태 이벤트 (모든 소스 공용). 상태 전이만 락 안에서 직렬화하고,
+     * 사이클이 닫히면 콜로그 조회/발송은 락 밖에서 한다 (다른 소스의 이벤트를 막지 않게).
+     * @param at 이벤트를 받은 시각 (elapsedRealtime, 큐 대기 전)
+     */
+    void onState(String source, String state, String number, long at) {
+        List<CallCycleTracker.MissedCall> missed = advance(source, state, number, at);
+        if (number != null && TelephonyManager.EXTRA_STATE_RINGING.equals(state)) {
+            AutoReplyUseCase.get(app).prefetchName(number, "MISSED");     // 울리는 동안 {name} 미리 읽기
+        }
+        if (missed == null) return;
+        resolveCycle(missed, source, at);
+        PrefsCompactor.maybeSchedule(app);      // 만료 키 정리 (간격 제한, 백그라운드)
+    }
+
+    /** 상태 전이 (락 안): 이 이벤트로 사이클이 닫혔으면 부재중 후보, 아니면 null */
+    private synchronized List<CallCycleTracker.MissedCall> advance(String source, String state, String number, long at) {
+        final long now = System.currentTimeMillis();
+        CallCycleTracker tracker = CallCycleTracker.get(app);
+        int s = indexOf(source);
+        // 닫힌 사이클의 늦은 전이: 끊기기 전에 받은 이벤트, 또는 지난 사이클의 IDLE 을 아직 안 보낸 소스의 이벤트
+        boolean late = at < lastIdleAt || (s != SCREENING && sourceCycles[s] < closedCycles);
+
+        if (TelephonyManager.EXTRA_STATE_RINGING.equals(state)) {
+            EventTrace.instant(EventTrace.Event.CALL_STATE, EventTrace.callState(s, 0));
+            if (late) {
+                if (EventTrace.LOGD) Log.d(TAG, "[CallDetectionEngine] late RINGING(" + source + ") for closed cycle, ignored");
+                return null;
+            }
+            cycleOpen = true;
+            tracker.onRinging(number, now);     // 번호 없는 중복/늦은 번호 채우기는 tracker 가 처리
+            if (EventTrace.LOGD) Log.d(TAG, "[CallDetectionEngine] RINGING(" + source + "): " + tracker.describe());
+
+        } else if (TelephonyManager.EXTRA_STATE_OFFHOOK.equals(state)) {
+            EventTrace.instant(EventTrace.Event.CALL_STATE, EventTrace.callState(s, 1));
+            if (late) {
+                if (EventTrace.LOGD) Log.d(TAG, "[CallDetectionEngine] late OFFHOOK(" + source + ") for closed cycle, ignored");
+                return null;
+            }
+            cycleOpen = true;
+            tracker.onOffhook(now);             // 울리던 통화 성사 → 부재중 아님
+            if (EventTrace.LOGD) Log.d(TAG, "[CallDetectionEngine] OFFHOOK(" + source + "): " + tracker.describe());
+
+        } else if (TelephonyManager.EXTRA_STATE_IDLE.equals(state)) {
+            EventTrace.instant(EventTrace.Event.CALL_STATE, EventTrace.callState(s, 2));
+            if (late || !cycleOpen) {
+                // 이미 다른(또는 같은) 소스가 닫은 사이클 → 얼마나 늦었는지만 기록하고 이 소스를 따라잡게 한다
+                sourceCycles[s] = closedCycles;
+                idleLag[s].record(Math.max(0L, at - lastIdleAt));
+                if (EventTrace.LOGD) Log.d(TAG, "[CallDetectionEngine] late IDLE(" + source + ") +" + (at - lastIdleAt) + "ms");
+                return null;
+            }
+            cycleOpen = false;
+            closedCycles++;
+            sourceCycles[s] = closedCycles;
+            lastIdleAt = at;
+            wins[s]++;
+            idleLag[s].record(0L);
+            List<CallCycleTracker.MissedCall> missed = tracker.onIdle(now);
+            if (EventTrace.LOGD) Log.d(TAG, "[CallDetectionEngine] IDLE(" + source + "): missed=" + missed);
+            return missed;
+        }
+        return null;
+    }
+
+    /** UseCase 로 위임됨 → 가장 최근 끊김부터의 시간 기록 (콜로그 관찰 경로 포함, 2분 넘으면 무시) */
+    synchronized void onDispatched() {
+        if (lastIdleAt < 0) return;
+        long ms = SystemClock.elapsedRealtime() - lastIdleAt;
+        if (ms < DISPATCH_WINDOW_MS) hangupToDispatch.record(ms);
+    }
+
+    public synchronized String stats() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < SOURCES.length; i++) {
+            sb.append(SOURCES[i]).append(" wins=").append(wins[i]).append(' ').append(idleLag[i].summary()).append('\n');
+        }
+        return sb.append(hangupToDispatch.summary()).toString();
+    }
+
+    // ===== 내부 =====
+
+    /** 닫힌 사이클의 부재중 통화를 각각 위임, 번호를 하나도 못 얻었으면 콜로그 보조 경로 (락 밖) */
+    private void resolveCycle(List<CallCycleTracker.MissedCall> missed, String source, long idleAt) {
+        boolean handled = false;
+        for (CallCycleTracker.MissedCall m : missed) {
+            if (m.number == null || m.number.trim().isEmpty()) continue;
+            // 통화 대기로 울린 통화는 받았을 수도 있음 → 콜로그로 확인
+            if (m.waiting && MissedCallReceiver.answeredInCallLog(app, m.number, m.ringAt)) {
+                if (EventTrace.LOGD) Log.d(TAG, "[CallDetectionEngine] waiting call was answered → skip " + m.number);
+                continue;
+            }
+            Diagnostics.received(m.number, idleAt);    // 끊김(가장 이른 IDLE) 기준으로 단계별 지연 측정
+            MissedCallReceiver.dispatchPrimary(app, m.number, m.ringAt);
+            handled = true;
+            if (EventTrace.LOGD) Log.d(TAG, "[CallDetectionEngine] dispatched via " + source + " → " + m.number);
+        }
+
+        // RINGING 을 못 봤거나 번호를 못 받은 경우 → 콜로그 확인
+        if (!handled) MissedCallReceiver.tryFallbackWithCallLog(app);
+    }
+
+    /** 트레이스 내보내기용 소스 이름 */
+    public static String sourceName(int index) {
+        return index >= 0 && index < SOURCES.length ? SOURCES[index] : "unknown";
+    }
+
+    private static int indexOf(String source) {
+        for (int i = 0; i < SOURCES.length; i++) if (SOURCES[i].equals(source)) return i;
+        return 0;
+    }
+
+    /** API 31+ 통화 상태 콜백 → 방송과 같은 경로로 */
+    private final class CallStateCallback extends TelephonyCallback implements TelephonyCallback.CallStateListener {
+        private boolean primed;
+
+        @Override
+        public void onCallStateChanged(int state) {
+            long at = SystemClock.elapsedRealtime();
+            // 등록 직후 현재 상태가 한 번 온다 → IDLE 이면 사이클 끝이 아니므로 무시
+            if (!primed) {
+                primed = true;
+                if (state == TelephonyManager.CALL_STATE_IDLE) return;
+            }
+            String s = state == TelephonyManager.CALL_STATE_RINGING ? TelephonyManager.EXTRA_STATE_RINGING
+                    : state == TelephonyManager.CALL_STATE_OFFHOOK ? TelephonyManager.EXTRA_STATE_OFFHOOK
+                    : TelephonyManager.EXTRA_STATE_IDLE;
+            onState(SOURCE_CALLBACK, s, null, at);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.catchcall.receiver;
+
+import android.net.Uri;
+import android.os.Build;
+import android.telecom.Call;
+import android.telecom.CallScreeningService;
+import android.util.Log;
+
+import com.example.catchcall.metrics.EventTrace;
+
+/**
+ * 수신 번호 소스 (통화 스크리닝 역할을 가진 경우에만 바인딩됨).
+ * - 울리기 전/직후에 번호를 받아 CallDetectionEngine 에 넘긴다 → Q+ 에서 방송 번호가 null 이어도 주 경로 유지
+ * - 통화에는 개입하지 않는다 (항상 기본 응답 = 허용)
+ */
+public class CallNumberScreeningService extends CallScreeningService {
+    private static final String TAG = "AutoReply";
+
+    @Override
+    public void onScreenCall(Call.Details details) {
+        try {
+            boolean incoming = Build.VERSION.SDK_INT < Build.VERSION_CODES.Q
+                    || details.getCallDirection() == Call.Details.DIRECTION_INCOMING;
+            Uri handle = details.getHandle();
+            String number = handle != null ? handle.getSchemeSpecificPart() : null;
+            if (incoming && number != null && !number.isEmpty()) {
+                if (EventTrace.LOGD) Log.d(TAG, "[CallNumberScreeningService] incoming " + number);
+                CallDetectionEngine.get(this).onScreened(number);
+            }
+        } catch (Throwable t) {
+            Log.w(TAG, "[CallNumberScreeningService] screen error: " + t.getMessage());
+        } finally {
+            respondToCall(details, new CallResponse.Builder().build());
+        }
+    }
+}
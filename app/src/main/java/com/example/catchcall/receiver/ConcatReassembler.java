@@ -0,0 +1,227 @@
+package com.example.catchcall.receiver;
+
+import android.util.Log;
+
+import com.example.catchcall.domain.KeywordMatcher;
+import com.example.catchcall.metrics.EventTrace;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 분할(concatenated) 문자 재조립 버퍼 — 여러 SMS_RECEIVED 방송에 걸쳐 도착하는 조각용.
+ *
+ * - 키: 발신번호 + 분할 참조번호(UDH IEI 0x00/0x08)
+ * - 조각은 순번 자리에 넣고, 1번부터 끊김 없이 이어진 부분만 키워드 매처에 흘려 넣는다(이어서 진행)
+ * - 키워드가 걸리거나 모든 조각이 모이면 그 즉시 한 번만 결과를 낸다 → 이후 늦게 온 조각은 무시
+ * - 미완성 메시지는 TIMEOUT_MS 후 버리고, 보관 중 글자 수/메시지 수 상한을 넘으면 오래된 것부터 버린다
+ */
+final class ConcatReassembler {
+    private static final String TAG = "AutoReply";
+
+    static final long TIMEOUT_MS = 3 * 60_000L;
+    static final int  MAX_PENDING_MESSAGES = 64;
+    static final int  MAX_PENDING_CHARS = 32 * 1024;
+
+    /** 내보낼 결과 (메시지당 1번) */
+    static final class Result {
+        final String from;
+        final String body;          // 완성 본문 또는 키워드가 걸린 지점까지 이어진 본문
+        final String keyword;       // 없으면 null
+        final boolean complete;
+
+        Result(String from, String body, String keyword, boolean complete) {
+            this.from = from;
+            this.body = body;
+            this.keyword = keyword;
+            this.complete = complete;
+        }
+    }
+
+    private static final class Pending {
+        final String from;
+        final String[] parts;
+        final long firstAt;
+        int arrived;
+        int contiguous;             // 1번부터 이어진 조각 수
+        int chars;
+        KeywordMatcher matcher;     // 진행 상태를 만든 매처 (바뀌면 처음부터 다시)
+        int state = KeywordMatcher.START;
+        boolean emitted;            // 결과를 이미 냈음 (늦은 조각 무시용 표식)
+
+        Pending(String from, int total, long now) {
+            this.from = from;
+            this.parts = new String[total];
+            this.firstAt = now;
+        }
+    }
+
+    private static final ConcatReassembler SHARED = new ConcatReassembler();
+
+    static ConcatReassembler shared() {
+        return SHARED;
+    }
+
+    private final LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+    private int pendingChars;
+    private long completed, earlyMatched, expired, evicted, lateParts;
+
+    /**
+     * 조각 하나 넣기.
+     * @param seq 1부터 시작하는 순번, total 전체 조각 수
+     * @return 낼 결과가 생기면 Result, 아니면 null
+     */
+    synchronized Result offer(String from, int ref, int seq, int total, String text, long now, KeywordMatcher matcher) {
+        expire(now);
+        if (total <= 1) return single(from, text, matcher);
+
+        String key = from + "#" + ref + "/" + total;
+        Pending p = pending.get(key);
+        if (p == null) {
+            p = new Pending(from, total, now);
+            pending.put(key, p);
+        }
+        if (p.emitted || p.parts[seq - 1] != null) {
+            lateParts++;
+            return null;
+        }
+        p.parts[seq - 1] = text;
+        p.arrived++;
+        p.chars += text.length();
+        pendingChars += text.length();
+
+        // 이어진 부분만 매처에 흘려 넣기
+        if (p.matcher != matcher) {
+            p.matcher = matcher;
+            p.state = KeywordMatcher.START;
+            p.contiguous = 0;
+        }
+        int hit = KeywordMatcher.NONE;
+        while (p.contiguous < total && p.parts[p.contiguous] != null && hit == KeywordMatcher.NONE) {
+            String part = p.parts[p.contiguous++];
+            for (int i = 0; i < part.length(); i++) {
+                p.state = matcher.step(p.state, part.charAt(i));
+                hit = matcher.outputOf(p.state);
+                if (hit != KeywordMatcher.NONE) break;
+            }
+        }
+
+        Result r = null;
+        if (hit != KeywordMatcher.NONE) {
+            earlyMatched += p.arrived < total ? 1 : 0;
+            r = new Result(from, join(p.parts, p.contiguous), matcher.keyword(hit), p.arrived == total);
+        } else if (p.arrived == total) {
+            r = new Result(from, join(p.parts, total), null, true);
+        }
+        if (r != null) {
+            if (r.complete) completed++;
+            release(p);     // 본문은 버리고 표식만 남겨 늦은 조각을 거른다
+        }
+        evictOverCap();
+        return r;
+    }
+
+    synchronized String stats() {
+        return "pending=" + pending.size() + " chars=" + pendingChars
+                + " completed=" + completed + " earlyMatched=" + earlyMatched
+                + " expired=" + expired + " evicted=" + evicted + " lateParts=" + lateParts;
+    }
+
+    // ===== 내부 =====
+
+    private Result single(String from, String text, KeywordMatcher matcher) {
+        int hit = matcher.match(text);
+        completed++;
+        return new Result(from, text, hit == KeywordMatcher.NONE ? null : matcher.keyword(hit), true);
+    }
+
+    private void release(Pending p) {
+        p.emitted = true;
+        pendingChars -= p.chars;
+        p.chars = 0;
+        Arrays.fill(p.parts, null);
+    }
+
+    /** 오래된 순(삽입 순)으로 만료 */
+    private void expire(long now) {
+        for (Iterator<Map.Entry<String, Pending>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Pending p = it.next().getValue();
+            if (now - p.firstAt < TIMEOUT_MS) break;
+            if (!p.emitted) {
+                expired++;
+                if (EventTrace.LOGD) Log.d(TAG, "[ConcatReassembler] expired incomplete from=" + p.from
+                        + " parts=" + p.arrived + "/" + p.parts.length);
+            }
+            pendingChars -= p.chars;
+            it.remove();
+        }
+    }
+
+    private void evictOverCap() {
+        Iterator<Map.Entry<String, Pending>> it = pending.entrySet().iterator();
+        while ((pending.size() > MAX_PENDING_MESSAGES || pendingChars > MAX_PENDING_CHARS) && it.hasNext()) {
+            Pending p = it.next().getValue();
+            if (!p.emitted) {
+                evicted++;
+                Log.w(TAG, "[ConcatReassembler] buffer full, drop from=" + p.from
+                        + " parts=" + p.arrived + "/" + p.parts.length);
+            }
+            pendingChars -= p.chars;
+            it.remove();
+        }
+    }
+
+    private static String join(String[] parts, int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) if (parts[i] != null) sb.append(parts[i]);
+        return sb.toString();
+    }
+
+    /**
+     * 3GPP SMS-DELIVER PDU 의 UDH 에서 분할 정보 추출.
+     * @return (ref << 16) | (total << 8) | seq, 분할 문자가 아니거나 해석 불가면 -1
+     */
+    static long concatInfo(byte[] pdu) {
+        if (pdu == null || pdu.length < 2) return -1L;
+        try {
+            int i = 0;
+            i += 1 + (pdu[i] & 0xFF);                      // SMSC 주소
+            int first = pdu[i++] & 0xFF;
+            if ((first & 0x03) != 0) return -1L;            // SMS-DELIVER 만
+            if ((first & 0x40) == 0) return -1L;            // UDHI 없음
+            int oaDigits = pdu[i++] & 0xFF;
+            i += 1 + (oaDigits + 1) / 2;                    // TOA + 주소 (semi-octet)
+            i += 1;                                         // PID
+            i += 1;                                         // DCS
+            i += 7;                                         // SCTS
+            i += 1;                                         // UDL
+            int udhl = pdu[i++] & 0xFF;
+            int end = Math.min(pdu.length, i + udhl);
+            while (i + 1 < end) {
+                int iei = pdu[i++] & 0xFF;
+                int len = pdu[i++] & 0xFF;
+                if (i + len > end) return -1L;
+                int ref, total, seq;
+                if (iei == 0x00 && len == 3) {
+                    ref = pdu[i] & 0xFF;
+                    total = pdu[i + 1] & 0xFF;
+                    seq = pdu[i + 2] & 0xFF;
+                } else if (iei == 0x08 && len == 4) {
+                    ref = ((pdu[i] & 0xFF) << 8) | (pdu[i + 1] & 0xFF);
+                    total = pdu[i + 2] & 0xFF;
+                    seq = pdu[i + 3] & 0xFF;
+                } else {
+                    i += len;
+                    continue;
+                }
+                if (total < 1 || seq < 1 || seq > total) return -1L;
+                return ((long) ref << 16) | ((long) total << 8) | seq;
+            }
+        } catch (ArrayIndexOutOfBoundsException ignore) {
+            // 잘린 PDU
+        }
+        return -1L;
+    }
+}
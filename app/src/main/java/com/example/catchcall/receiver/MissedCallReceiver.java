@@ -7,28 +7,34 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.database.Cursor;
+import android.os.SystemClock;
 import android.provider.CallLog;
 import android.telephony.TelephonyManager;
 import android.util.Log;
 
 import androidx.core.content.ContextCompat;
 
+import com.example.catchcall.data.CallLogIngestor;
+import com.example.catchcall.data.NumberKey;
+import com.example.catchcall.data.PhoneNumberCanonicalizer;
+import com.example.catchcall.data.PrefKeyFamily;
 import com.example.catchcall.domain.AutoReplyUseCase;
+import com.example.catchcall.domain.DuplicateFilter;
+import com.example.catchcall.metrics.Diagnostics;
+import com.example.catchcall.metrics.EventTrace;
 
 /**
  * 부재중 트리거 전용 리시버.
  * - 리시버에서는 쿨타임을 보지 않는다(정책은 UseCase에서만 판단).
  * - "같은 통화 1회 처리" + "주 경로 직후 짧은 억제창으로 Fallback 중복 방지"만 담당.
+ * - 방송은 CallDetectionEngine 의 한 소스일 뿐이다 (API 31+ 는 TelephonyCallback, 번호는 스크리닝 서비스가 더 빠름).
+ *   통화 상태는 CallCycleTracker(저널) 가 통화별로 추적 → 통화 대기 중 놓친 전화도 각각 처리.
  */
 public class MissedCallReceiver extends BroadcastReceiver {
     private static final String TAG = "AutoReply";
-    private static final String PREF = "auto_reply";
-    private static final long   FALLBACK_SUPPRESS_MS = 10_000L; // 주 경로 후 10초간 Fallback 억제
-
-    // 최근 사이클 상태
-    private static boolean wasRinging = false;
-    private static boolean wasOffhook = false;
-    private static String  lastIncoming = null;
+    private static final String PREF = PrefKeyFamily.LAST_TS.prefName;
+    private static final long   FALLBACK_SUPPRESS_MS = PrefKeyFamily.SUPPRESS_UNTIL.ttlMs(); // 주 경로 후 10초간 Fallback 억제
+    private static final long   DISPATCH_CLAIM_MS = 60_000L;
 
     @Override
     public void onReceive(Context context, Intent intent) {
@@ -38,142 +44,133 @@ public class MissedCallReceiver extends BroadcastReceiver {
         final String number = intent.getStringExtra(TelephonyManager.EXTRA_INCOMING_NUMBER); // Q+ 에선 null 가능
         if (state == null) return;
 
-        Log.d(TAG, "[MissedCallReceiver] onReceive: state=" + state
-                + " num=" + number
-                + " wasRinging=" + wasRinging
-                + " wasOffhook=" + wasOffhook);
-
-        if (TelephonyManager.EXTRA_STATE_RINGING.equals(state)) {
-            wasRinging = true;
-            wasOffhook = false;
-            lastIncoming = number; // null일 수 있음
-            Log.d(TAG, "[MissedCallReceiver] RINGING: cache incoming=" + number);
-
-        } else if (TelephonyManager.EXTRA_STATE_OFFHOOK.equals(state)) {
-            wasOffhook = true;     // 통화 성사 → 부재중 아님
-            Log.d(TAG, "[MissedCallReceiver] OFFHOOK");
-
-        } else if (TelephonyManager.EXTRA_STATE_IDLE.equals(state)) {
-            Log.d(TAG, "[MissedCallReceiver] IDLE: evaluate (wasRinging=" + wasRinging + ", wasOffhook=" + wasOffhook + ")");
-
-            boolean handled = false;
-
-            // 1) 주 경로: RINGING → (OFFHOOK 없이) → IDLE = 전형적 부재중
-            if (wasRinging && !wasOffhook) {
-                String target = pickTarget(number, lastIncoming);
-                if (!isNullOrEmpty(target)) {
-                    dispatchAutoReply(context, target);          // 정책은 UseCase에서 판단
-                    markLastProcessedCallTsNow(context, target); // 같은 사이클 재처리 방지
-                    setSuppressWindow(context, target, FALLBACK_SUPPRESS_MS); // ★ Fallback 억제창
-                    handled = true;
-                    Log.d(TAG, "[MissedCallReceiver] dispatched via primary → " + target);
-                }
-            }
-
-            // 2) 보조 경로: RINGING이 없거나 번호를 못 받은 경우 → 콜로그 확인
-            if (!handled) {
-                tryFallbackWithCallLog(context);
-            }
-
-            // 3) 상태 초기화
-            wasRinging = false;
-            wasOffhook = false;
-            lastIncoming = null;
-            Log.d(TAG, "[MissedCallReceiver] state cleared");
-        }
+        // 받은 시각은 큐 대기 전에 잡는다 (소스별 지연 측정용)
+        final long at = SystemClock.elapsedRealtime();
+        final Context app = context.getApplicationContext();
+        final CallDetectionEngine engine = CallDetectionEngine.get(app);
+        engine.start();     // API 31+: 이후 사이클은 TelephonyCallback 이 먼저 잡는다
+
+        // 콜로그 조회/prefs/발송은 메인 스레드 밖에서 (도착 순서대로 단일 소비자가 처리)
+        ReceiverPipeline.submit("phone_state:" + state, goAsync(),
+                () -> engine.onState(CallDetectionEngine.SOURCE_BROADCAST, state, number, at));
     }
 
     // ====== Fallback & Helper ======
 
-    private void tryFallbackWithCallLog(Context ctx) {
-        if (ContextCompat.checkSelfPermission(ctx, Manifest.permission.READ_CALL_LOG)
-                != PackageManager.PERMISSION_GRANTED) {
-            Log.w(TAG, "[MissedCallReceiver] Fallback skipped: READ_CALL_LOG permission missing");
-            return;
-        }
-
-        Cursor c = null;
-        try {
-            c = ctx.getContentResolver().query(
-                    CallLog.Calls.CONTENT_URI,
-                    new String[]{CallLog.Calls.NUMBER, CallLog.Calls.TYPE, CallLog.Calls.DATE},
-                    null, null,
-                    CallLog.Calls.DATE + " DESC"
-            );
-            if (c != null && c.moveToFirst()) {
-                final String num = c.getString(c.getColumnIndexOrThrow(CallLog.Calls.NUMBER));
-                final int type   = c.getInt(c.getColumnIndexOrThrow(CallLog.Calls.TYPE));
-                final long when  = c.getLong(c.getColumnIndexOrThrow(CallLog.Calls.DATE));
-                final long now   = System.currentTimeMillis();
-
-                boolean recent = (now - when) < 120_000L;            // 2분 내 최신만
-                boolean missed = (type == CallLog.Calls.MISSED_TYPE);
-                long lastTs = prefs(ctx).getLong(lastTsKey(num), 0L);
-                boolean alreadyProcessed = (when == lastTs);         // 같은 '한 통화'는 한 번만
-
-                // ★ 주 경로 직후 억제창: 같은 번호에 대해 잠깐 Fallback 무시
-                if (isSuppressed(ctx, num)) {
-                    Log.d(TAG, "[MissedCallReceiver] Fallback suppressed for " + num);
-                    return;
-                }
-
-                Log.d(TAG, "[MissedCallReceiver] Fallback check: recent=" + recent
-                        + ", missed=" + missed
-                        + ", alreadyProcessed=" + alreadyProcessed
-                        + ", num=" + num + ", when=" + when);
-
-                if (recent && missed && !isNullOrEmpty(num) && !alreadyProcessed) {
-                    dispatchAutoReply(ctx, num);                     // 정책은 UseCase가 판단
-                    prefs(ctx).edit().putLong(lastTsKey(num), when).apply(); // 이번 '통화' 처리 기록
-                    Log.d(TAG, "[MissedCallReceiver] Fallback dispatched → " + num);
-                }
-            } else {
-                Log.d(TAG, "[MissedCallReceiver] Fallback: empty CallLog");
-            }
-        } catch (Throwable t) {
-            Log.w(TAG, "[MissedCallReceiver] Fallback error", t);
-        } finally {
-            if (c != null) c.close();
-        }
+    /** 보조 경로: 마지막으로 처리한 콜로그 행 이후의 새 부재중만 (전부, 정확히 한 번) */
+    static void tryFallbackWithCallLog(Context ctx) {
+        int n = CallLogIngestor.get(ctx).ingest(System.currentTimeMillis(), FALLBACK_SINK);
+        if (n < 0) Log.w(TAG, "[MissedCallReceiver] Fallback skipped: READ_CALL_LOG permission missing");
     }
 
-    // 대상 번호 선택: 비어있으면 null 취급
-    private String pickTarget(String extraIncoming, String cachedIncoming) {
-        if (!isNullOrEmpty(cachedIncoming)) return cachedIncoming;
-        if (!isNullOrEmpty(extraIncoming))  return extraIncoming;
-        return null;
+    /**
+     * 주 경로(통화 상태로 확정된 부재중) 위임 + 같은 통화 재처리 방지 + Fallback 억제창
+     * @param ringAt 이 통화가 울린 시각 (CallCycleTracker, 통화 단위 중복 판정 키)
+     */
+    static void dispatchPrimary(Context ctx, String number, long ringAt) {
+        dispatchAutoReply(ctx, number, ringAt);      // 정책은 UseCase에서 판단
+        markLastProcessedCallTsNow(ctx, number);     // 같은 사이클 재처리 방지
+        setSuppressWindow(ctx, number);              // ★ Fallback 억제창
     }
 
+    /** 콜로그에서 새로 찾은 부재중 1건 (리시버 IDLE 보조 경로 / ContentObserver 공용) */
+    public static final CallLogIngestor.Sink FALLBACK_SINK = (ctx, num, when) -> {
+        long lastTs = PrefKeyFamily.LAST_TS.read(prefs(ctx), PhoneNumberCanonicalizer.canonicalOrRaw(num), System.currentTimeMillis()); // 만료 항목은 없는 것으로
+        boolean alreadyProcessed = lastTs >= when;            // 주 경로가 이 통화 이후 시각으로 이미 처리
+
+        // ★ 주 경로 직후 억제창: 같은 번호에 대해 잠깐 Fallback 무시
+        if (isSuppressed(ctx, num)) {
+            Diagnostics.count(Diagnostics.Outcome.SUPPRESSED);
+            EventTrace.instant(EventTrace.Event.FALLBACK_SUPPRESSED, num);
+            if (EventTrace.LOGD) Log.d(TAG, "[MissedCallReceiver] Fallback suppressed for " + num);
+            return;
+        }
+        if (EventTrace.LOGD) Log.d(TAG, "[MissedCallReceiver] Fallback check: alreadyProcessed=" + alreadyProcessed
+                + ", num=" + num + ", when=" + when);
+
+        if (alreadyProcessed) {
+            Diagnostics.count(Diagnostics.Outcome.ALREADY_PROCESSED);
+            EventTrace.instant(EventTrace.Event.FALLBACK_ALREADY_PROCESSED, num);
+        } else {
+            EventTrace.instant(EventTrace.Event.FALLBACK_DISPATCH, num);
+            Diagnostics.received(num, SystemClock.elapsedRealtime());   // 보조 경로는 수집 시각 기준
+            dispatchAutoReply(ctx, num, when);                // 정책은 UseCase가 판단
+            prefs(ctx).edit().putLong(lastTsKey(num), when).apply(); // 이번 '통화' 처리 기록
+            if (EventTrace.LOGD) Log.d(TAG, "[MissedCallReceiver] Fallback dispatched → " + num);
+        }
+    };
+
     private static boolean isNullOrEmpty(String s) {
         return s == null || s.trim().isEmpty();
     }
 
+    /** 통화 대기 통화가 콜로그에 '수신(받음)'으로 남았나 (권한 없거나 기록 없으면 false = 부재중으로 취급) */
+    static boolean answeredInCallLog(Context ctx, String number, long ringAt) {
+        if (ContextCompat.checkSelfPermission(ctx, Manifest.permission.READ_CALL_LOG)
+                != PackageManager.PERMISSION_GRANTED) {
+            return false;
+        }
+        try (Cursor c = ctx.getContentResolver().query(
+                CallLog.Calls.CONTENT_URI,
+                new String[]{CallLog.Calls.TYPE},
+                CallLog.Calls.NUMBER + " = ? AND " + CallLog.Calls.DATE + " >= ?",
+                new String[]{number, String.valueOf(ringAt - 10_000L)},
+                CallLog.Calls.DATE + " ASC")) {
+            return c != null && c.moveToFirst()
+                    && c.getInt(c.getColumnIndexOrThrow(CallLog.Calls.TYPE)) == CallLog.Calls.INCOMING_TYPE;
+        } catch (Throwable t) {
+            Log.w(TAG, "[MissedCallReceiver] call log check failed: " + t.getMessage());
+            return false;
+        }
+    }
+
     // ====== 중복/억제 유틸 ======
-    private SharedPreferences prefs(Context ctx) {
+    private static SharedPreferences prefs(Context ctx) {
         return ctx.getSharedPreferences(PREF, Context.MODE_PRIVATE);
     }
-    private String lastTsKey(String num)      { return "last_ts_" + num; }
-    private String suppressKey(String num)    { return "suppress_until_" + num; }
+    /** 번호는 정규형으로 (방송의 "+8210…" 과 콜로그의 "010…" 이 같은 키) */
+    private static String lastTsKey(String num)      { return PrefKeyFamily.LAST_TS.key(PhoneNumberCanonicalizer.canonicalOrRaw(num)); }
 
-    private void markLastProcessedCallTsNow(Context ctx, String num) {
+    private static void markLastProcessedCallTsNow(Context ctx, String num) {
         prefs(ctx).edit().putLong(lastTsKey(num), System.currentTimeMillis()).apply();
     }
 
-    private void setSuppressWindow(Context ctx, String num, long windowMs) {
+    /** 억제창은 메모리 중복 필터로 (창 = FALLBACK_SUPPRESS_MS, prefs 키 없음) */
+    private static DuplicateFilter suppressFilter(Context ctx) {
+        return DuplicateFilter.named(ctx, "fallback_suppress", FALLBACK_SUPPRESS_MS);
+    }
+
+    private static void setSuppressWindow(Context ctx, String num) {
         if (isNullOrEmpty(num)) return;
-        long until = System.currentTimeMillis() + windowMs;
-        prefs(ctx).edit().putLong(suppressKey(num), until).apply();
+        suppressFilter(ctx).mark(NumberKey.of(num), "", System.currentTimeMillis());
     }
 
-    private boolean isSuppressed(Context ctx, String num) {
+    private static boolean isSuppressed(Context ctx, String num) {
         if (isNullOrEmpty(num)) return false;
-        long until = prefs(ctx).getLong(suppressKey(num), 0L);
-        return System.currentTimeMillis() < until;
+        return suppressFilter(ctx).seen(NumberKey.of(num), "", System.currentTimeMillis());
     }
 
-    /** 실제 발송 요청은 UseCase 한 곳으로만 위임 (쿨타임/정책은 거기서 판단) */
-    private void dispatchAutoReply(Context ctx, String number) {
-        new AutoReplyUseCase(ctx).onMissedCall(number);
-        Log.d(TAG, "[MissedCallReceiver] dispatched to UseCase: " + number);
+    /** 같은 부재중(번호 + 울린 시각)이 여러 번 위임되지 않게 (DISPATCH_CLAIM_MS 동안) */
+    private static DuplicateFilter dispatchClaims(Context ctx) {
+        return DuplicateFilter.named(ctx, "missed_dispatch", DISPATCH_CLAIM_MS);
+    }
+
+    /**
+     * 실제 발송 요청은 UseCase 한 곳으로만 위임 (쿨타임/정책은 거기서 판단).
+     * 중복 판정은 통화 단위: 같은 번호라도 다시 울린 통화(울린 시각이 다름)는 새 부재중이다.
+     */
+    private static void dispatchAutoReply(Context ctx, String number, long ringAt) {
+        if (dispatchClaims(ctx).checkAndMark(NumberKey.of(number), Long.toString(ringAt), System.currentTimeMillis())) {
+            Diagnostics.count(Diagnostics.Outcome.DUPLICATE);
+            EventTrace.instant(EventTrace.Event.MISSED_DUPLICATE, number);
+            if (EventTrace.LOGD) Log.d(TAG, "[MissedCallReceiver] already dispatched by another source: " + number);
+            return;
+        }
+        EventTrace.instant(EventTrace.Event.MISSED_DISPATCH, number);
+        AutoReplyUseCase useCase = AutoReplyUseCase.get(ctx);
+        useCase.prefetchName(number, "MISSED");     // 울릴 때 이미 읽었으면 캐시 적중
+        useCase.onMissedCall(number);
+        CallDetectionEngine.get(ctx).onDispatched();
+        if (EventTrace.LOGD) Log.d(TAG, "[MissedCallReceiver] dispatched to UseCase: " + number);
     }
 }
@@ -0,0 +1,138 @@
+package com.example.catchcall.receiver;
+
+import android.content.BroadcastReceiver;
+import android.util.Log;
+
+import com.example.catchcall.metrics.Diagnostics;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 리시버 → 백그라운드 처리 파이프라인 (단일 소비자).
+ * - 리시버는 goAsync() 로 받은 PendingResult 와 작업을 넘기고 바로 반환한다.
+ * - 큐는 고정 크기: 가득 차면 새 이벤트는 버리고(dropped 집계) 즉시 finish().
+ * - 작업이 끝나거나 방송 마감(DEADLINE_MS)이 되면, 둘 중 먼저 오는 쪽에서 finish() 를 정확히 1번 호출.
+ * - 단일 소비자이므로 이벤트는 도착 순서대로 처리된다 (통화 상태 전이 순서 보장).
+ */
+public final class ReceiverPipeline {
+    private static final String TAG = "AutoReply";
+
+    static final int  CAPACITY = 64;
+    /** 포그라운드 방송 ANR 한도(10초)보다 여유 있게 */
+    static final long DEADLINE_MS = 8_000L;
+
+    private static final BlockingQueue<Event> QUEUE = new ArrayBlockingQueue<>(CAPACITY);
+    private static final ScheduledThreadPoolExecutor WATCHDOG = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "receiver-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final AtomicLong submitted = new AtomicLong();
+    private static final AtomicLong processed = new AtomicLong();
+    private static final AtomicLong dropped   = new AtomicLong();
+    private static final AtomicLong timedOut  = new AtomicLong();
+    private static final AtomicLong failed    = new AtomicLong();
+    private static volatile int maxDepth;
+
+    static {
+        WATCHDOG.setRemoveOnCancelPolicy(true);
+        Thread consumer = new Thread(ReceiverPipeline::consume, "receiver-pipeline");
+        consumer.setDaemon(true);
+        consumer.start();
+        Diagnostics.section("receiver_pipeline", ReceiverPipeline::stats);
+    }
+
+    private ReceiverPipeline() {}
+
+    /** 처리 단위: 작업 + 방송 결과(finish 1회 보장) */
+    private static final class Event {
+        final String name;
+        final Runnable work;
+        final BroadcastReceiver.PendingResult result;
+        final AtomicBoolean finished = new AtomicBoolean(false);
+        volatile ScheduledFuture<?> deadline;
+
+        Event(String name, Runnable work, BroadcastReceiver.PendingResult result) {
+            this.name = name;
+            this.work = work;
+            this.result = result;
+        }
+
+        /** 처음 호출한 쪽만 finish() */
+        boolean finish() {
+            if (!finished.compareAndSet(false, true)) return false;
+            ScheduledFuture<?> f = deadline;
+            if (f != null) f.cancel(false);
+            if (result != null) {
+                try {
+                    result.finish();
+                } catch (Throwable t) {
+                    Log.w(TAG, "[ReceiverPipeline] finish failed: " + t.getMessage());
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 리시버에서 호출 (메인 스레드). 큐가 가득 차면 false (이벤트 버림, finish 완료).
+     * @param result goAsync() 결과 (null 이면 finish 없이 작업만 큐잉)
+     */
+    public static boolean submit(String name, BroadcastReceiver.PendingResult result, Runnable work) {
+        submitted.incrementAndGet();
+        Event e = new Event(name, work, result);
+        if (!QUEUE.offer(e)) {
+            dropped.incrementAndGet();
+            Log.w(TAG, "[ReceiverPipeline] queue full, drop " + name + " (dropped=" + dropped.get() + ")");
+            e.finish();
+            return false;
+        }
+        int depth = QUEUE.size();
+        if (depth > maxDepth) maxDepth = depth;
+        e.deadline = WATCHDOG.schedule(() -> {
+            if (e.finish()) {
+                timedOut.incrementAndGet();
+                Log.w(TAG, "[ReceiverPipeline] deadline reached, finish early: " + e.name);
+            }
+        }, DEADLINE_MS, TimeUnit.MILLISECONDS);
+        if (e.finished.get()) e.deadline.cancel(false);   // 이미 처리 끝난 경우
+        return true;
+    }
+
+    private static void consume() {
+        while (true) {
+            Event e;
+            try {
+                e = QUEUE.take();
+            } catch (InterruptedException ie) {
+                continue;
+            }
+            try {
+                e.work.run();
+                processed.incrementAndGet();
+            } catch (Throwable t) {
+                failed.incrementAndGet();
+                Log.e(TAG, "[ReceiverPipeline] " + e.name + " failed", t);
+            } finally {
+                e.finish();
+            }
+        }
+    }
+
+    public static String stats() {
+        return "submitted=" + submitted.get()
+                + " processed=" + processed.get()
+                + " dropped=" + dropped.get()
+                + " timedOut=" + timedOut.get()
+                + " failed=" + failed.get()
+                + " depth=" + QUEUE.size() + "/" + CAPACITY
+                + " maxDepth=" + maxDepth;
+    }
+}
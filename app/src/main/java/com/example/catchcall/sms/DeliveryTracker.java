@@ -0,0 +1,283 @@
+package com.example.catchcall.sms;
+
+import android.app.Activity;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.catchcall.metrics.Diagnostics;
+import com.example.catchcall.metrics.LatencyHistogram;
+
+/**
+ * 발송(sent)/수신 확인(delivered) 보고 추적.
+ *
+ * - 고정 크기 슬롯 배열: 메시지마다 슬롯 하나, 슬롯마다 sent/delivered PendingIntent 한 쌍
+ *   (requestCode 를 슬롯 번호로 재사용 → 동시 추적 수가 늘어도 PendingIntent 수는 상한이 있다)
+ *   sent 는 immutable, delivered 는 상태 보고 PDU 를 받아야 해서 mutable
+ * - 멀티파트는 모든 파트가 같은 PendingIntent 를 쓰고, 보고 개수를 세어 한 메시지의 결과로 합친다
+ * - 세대(gen) 값을 extra 로 실어 재사용된 슬롯에 늦게 도착한 이전 메시지 보고를 걸러낸다
+ * - 슬롯이 모자라면 수신 확인만 기다리던 가장 오래된 슬롯을 회수한다
+ * - dispatch→sent, sent→delivered 지연 시간을 히스토그램으로 남긴다
+ */
+public final class DeliveryTracker {
+    private static final String TAG = "AutoReply";
+
+    public static final String ACTION_SENT = "com.example.catchcall.action.SMS_SENT";
+    public static final String ACTION_DELIVERED = "com.example.catchcall.action.SMS_DELIVERED";
+    public static final String EXTRA_SLOT = "slot";
+    public static final String EXTRA_GEN = "gen";
+
+    static final int CAPACITY = 256;
+
+    private static final byte FREE = 0, SENDING = 1, DELIVERING = 2;
+
+    /** 한 메시지의 최종 발송 결과 (Activity.RESULT_OK 또는 첫 실패 코드) */
+    public interface Listener {
+        void onSendOutcome(long jobId, int resultCode);
+    }
+
+    /** begin() 결과: 이번 메시지에 붙일 PendingIntent */
+    public static final class Ticket {
+        public final int slot;
+        public final int gen;
+        public final PendingIntent sent;
+        public final PendingIntent delivered;
+
+        Ticket(int slot, int gen, PendingIntent sent, PendingIntent delivered) {
+            this.slot = slot;
+            this.gen = gen;
+            this.sent = sent;
+            this.delivered = delivered;
+        }
+    }
+
+    private static volatile DeliveryTracker instance;
+
+    public static DeliveryTracker get(Context ctx) {
+        DeliveryTracker t = instance;
+        if (t != null) return t;
+        synchronized (DeliveryTracker.class) {
+            if (instance == null) instance = new DeliveryTracker(ctx.getApplicationContext());
+            return instance;
+        }
+    }
+
+    private final Context ctx;
+    private volatile Listener listener;
+
+    private final byte[] state = new byte[CAPACITY];
+    private final int[] gen = new int[CAPACITY];
+    private final long[] jobId = new long[CAPACITY];
+    private final int[] expected = new int[CAPACITY];       // 0 = 아직 모름 (dispatch 직후 채움)
+    private final int[] sentCount = new int[CAPACITY];
+    private final int[] failCode = new int[CAPACITY];
+    private final int[] deliveredCount = new int[CAPACITY];
+    private final boolean[] awaitDelivery = new boolean[CAPACITY];
+    private final long[] dispatchAt = new long[CAPACITY];
+    private final long[] sentAt = new long[CAPACITY];
+    private int cursor;
+    private int inUse;
+
+    private final LatencyHistogram dispatchToSent = new LatencyHistogram("dispatch_to_sent");
+    private final LatencyHistogram sentToDelivered = new LatencyHistogram("sent_to_delivered");
+    private long sentOk, sentFailed, delivered, deliveryFailed, reclaimed, stale;
+
+    private DeliveryTracker(Context app) {
+        this.ctx = app;
+        Diagnostics.section("delivery", this::stats);
+    }
+
+    public void setListener(Listener l) {
+        this.listener = l;
+    }
+
+    /** 발송 직전: 슬롯을 잡고 PendingIntent 를 만든다 */
+    public Ticket begin(long id) {
+        int s, g;
+        synchronized (this) {
+            s = acquireSlot();
+            g = ++gen[s];
+            state[s] = SENDING;
+            jobId[s] = id;
+            expected[s] = 0;
+            sentCount[s] = 0;
+            failCode[s] = 0;
+            deliveredCount[s] = 0;
+            awaitDelivery[s] = false;
+            dispatchAt[s] = SystemClock.elapsedRealtime();
+            sentAt[s] = 0;
+            inUse++;
+        }
+        return new Ticket(s, g, pendingIntent(ACTION_SENT, s, g, false), pendingIntent(ACTION_DELIVERED, s, g, true));
+    }
+
+    /**
+     * dispatch 직후: 보고가 몇 개 올지 알려준다.
+     * @param parts 파트 수 (MMS/단문은 1)
+     * @param withDelivery 수신 확인 보고를 기다릴지 (MMS 는 없음)
+     */
+    public void expect(Ticket t, int parts, boolean withDelivery) {
+        Outcome o;
+        synchronized (this) {
+            if (!current(t.slot, t.gen)) return;
+            expected[t.slot] = Math.max(1, parts);
+            awaitDelivery[t.slot] = withDelivery;
+            o = checkSent(t.slot);              // 보고가 먼저 와 있었을 수 있음
+        }
+        notify(o);
+    }
+
+    /** 발송 자체가 실패해 보고가 오지 않을 때 */
+    public synchronized void release(Ticket t) {
+        if (current(t.slot, t.gen)) free(t.slot);
+    }
+
+    /** sentIntent 보고 (파트마다 1번) */
+    public void onSent(int slot, int g, int resultCode) {
+        Outcome o;
+        synchronized (this) {
+            if (slot < 0 || slot >= CAPACITY || !current(slot, g) || state[slot] != SENDING) {
+                stale++;
+                return;
+            }
+            sentCount[slot]++;
+            if (resultCode != Activity.RESULT_OK && failCode[slot] == 0) failCode[slot] = resultCode;
+            o = checkSent(slot);
+        }
+        notify(o);
+    }
+
+    /**
+     * deliveryIntent 보고 (파트마다 1번).
+     * @param status TP-Status: 0x00~0x1F 완료, 0x20~0x3F 재시도 중(최종 아님), 0x40~ 실패
+     */
+    public synchronized void onDelivered(int slot, int g, int status) {
+        if (slot < 0 || slot >= CAPACITY || !current(slot, g) || !awaitDelivery[slot]) {
+            stale++;
+            return;
+        }
+        if (status >= 0x20 && status < 0x40) return;
+        if (status >= 0x40) {
+            deliveryFailed++;
+            Log.w(TAG, "[DeliveryTracker] delivery failed job=" + jobId[slot] + " status=" + status);
+            awaitDelivery[slot] = false;
+            if (state[slot] == DELIVERING) free(slot);
+            return;
+        }
+        deliveredCount[slot]++;
+        int need = expected[slot] == 0 ? Integer.MAX_VALUE : expected[slot];
+        if (deliveredCount[slot] < need) return;
+        delivered++;
+        awaitDelivery[slot] = false;
+        if (sentAt[slot] > 0) sentToDelivered.record(SystemClock.elapsedRealtime() - sentAt[slot]);
+        if (state[slot] == DELIVERING) free(slot);
+    }
+
+    public synchronized String stats() {
+        return "inUse=" + inUse + "/" + CAPACITY
+                + " sentOk=" + sentOk
+                + " sentFailed=" + sentFailed
+                + " delivered=" + delivered
+                + " deliveryFailed=" + deliveryFailed
+                + " reclaimed=" + reclaimed
+                + " stale=" + stale
+                + " " + dispatchToSent.summary()
+                + " " + sentToDelivered.summary();
+    }
+
+    public LatencyHistogram dispatchToSent() {
+        return dispatchToSent;
+    }
+
+    public LatencyHistogram sentToDelivered() {
+        return sentToDelivered;
+    }
+
+    // ===== 내부 =====
+
+    /** 결과 통지는 락 밖에서 */
+    private static final class Outcome {
+        final long jobId;
+        final int code;
+
+        Outcome(long jobId, int code) {
+            this.jobId = jobId;
+            this.code = code;
+        }
+    }
+
+    private void notify(Outcome o) {
+        if (o == null) return;
+        Listener l = listener;
+        if (l != null) l.onSendOutcome(o.jobId, o.code);
+    }
+
+    private Outcome checkSent(int s) {
+        if (expected[s] == 0 || sentCount[s] < expected[s]) return null;
+        long id = jobId[s];
+        int code = failCode[s] == 0 ? Activity.RESULT_OK : failCode[s];
+        long now = SystemClock.elapsedRealtime();
+        dispatchToSent.record(now - dispatchAt[s]);
+        if (code == Activity.RESULT_OK) {
+            sentOk++;
+            sentAt[s] = now;
+            if (awaitDelivery[s] && deliveredCount[s] < expected[s]) state[s] = DELIVERING;
+            else free(s);
+        } else {
+            sentFailed++;
+            free(s);
+        }
+        return new Outcome(id, code);
+    }
+
+    private boolean current(int s, int g) {
+        return state[s] != FREE && gen[s] == g;
+    }
+
+    private void free(int s) {
+        state[s] = FREE;
+        inUse--;
+    }
+
+    /** 빈 슬롯 → 없으면 수신 확인 대기 중 가장 오래된 슬롯 → 그래도 없으면 가장 오래된 슬롯 */
+    private int acquireSlot() {
+        for (int i = 0; i < CAPACITY; i++) {
+            int s = (cursor + i) % CAPACITY;
+            if (state[s] == FREE) {
+                cursor = (s + 1) % CAPACITY;
+                return s;
+            }
+        }
+        int victim = -1;
+        for (int s = 0; s < CAPACITY; s++) {
+            if (state[s] == DELIVERING && (victim < 0 || sentAt[s] < sentAt[victim])) victim = s;
+        }
+        if (victim < 0) {
+            for (int s = 0; s < CAPACITY; s++) {
+                if (victim < 0 || dispatchAt[s] < dispatchAt[victim]) victim = s;
+            }
+        }
+        reclaimed++;
+        Log.w(TAG, "[DeliveryTracker] slots full, reclaim slot=" + victim + " job=" + jobId[victim]);
+        free(victim);
+        return victim;
+    }
+
+    /**
+     * 수신 확인 보고는 플랫폼이 fill-in intent 로 "pdu"/"format" extra 를 붙여 보내므로 mutable 이어야 한다
+     * (immutable 이면 extra 가 버려져 실패 보고도 성공으로 보인다). 대상 컴포넌트는 명시적으로 고정.
+     */
+    private PendingIntent pendingIntent(String action, int slot, int g, boolean fillIn) {
+        Intent i = new Intent(ctx, SmsResultReceiver.class)
+                .setAction(action)
+                .putExtra(EXTRA_SLOT, slot)
+                .putExtra(EXTRA_GEN, g);
+        int mutability = !fillIn ? PendingIntent.FLAG_IMMUTABLE
+                : Build.VERSION.SDK_INT >= 31 ? PendingIntent.FLAG_MUTABLE : 0;
+        return PendingIntent.getBroadcast(ctx, slot, i,
+                PendingIntent.FLAG_UPDATE_CURRENT | mutability);
+    }
+}
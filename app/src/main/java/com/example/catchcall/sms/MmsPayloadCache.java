@@ -0,0 +1,271 @@
+package com.example.catchcall.sms;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.core.content.FileProvider;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * MMS 본문 파일 캐시 (내용 주소 기반).
+ *
+ * - 파일 이름 = 본문 SHA-256 → 같은 템플릿이면 한 번만 쓰고 재사용 (FileProvider URI/권한 부여도 재사용)
+ * - acquire() 로 고정(pin), 발송 결과가 나오면 release() → 고정된 파일은 정리 대상에서 빠진다
+ * - 크기/개수/나이 상한을 넘으면 백그라운드에서 오래 안 쓰인 파일부터 삭제
+ * - 이전 방식의 text_<millis>.txt 파일도 같이 정리
+ */
+public final class MmsPayloadCache {
+    private static final String TAG = "AutoReply";
+
+    static final long MAX_BYTES = 1024 * 1024L;
+    static final int  MAX_FILES = 64;
+    static final long MAX_AGE_MS = 7L * 24 * 60 * 60_000L;
+    /** 최근에 쓰인 파일은 고정이 풀렸어도 남긴다 (늦게 읽는 MMS 서비스 대비) */
+    static final long GRACE_MS = 10 * 60_000L;
+    private static final long MIN_EVICT_INTERVAL_MS = 10 * 60_000L;
+
+    private static final String PREFIX = "p_";
+    private static final String SUFFIX = ".txt";
+
+    private static final ExecutorService EXEC = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "mms-cache");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    /** 고정된 캐시 항목 */
+    public static final class Entry {
+        public final String key;
+        public final Uri uri;
+        final File file;
+
+        Entry(String key, Uri uri, File file) {
+            this.key = key;
+            this.uri = uri;
+            this.file = file;
+        }
+    }
+
+    private static volatile MmsPayloadCache instance;
+
+    public static MmsPayloadCache get(Context ctx) {
+        MmsPayloadCache c = instance;
+        if (c != null) return c;
+        synchronized (MmsPayloadCache.class) {
+            if (instance == null) instance = new MmsPayloadCache(ctx.getApplicationContext());
+            return instance;
+        }
+    }
+
+    private final Context ctx;
+    private final File dir;
+    private final Map<String, Integer> pins = new HashMap<>();
+    private final Map<String, Uri> uris = new HashMap<>();
+    private final Set<String> granted = new HashSet<>();     // key + "|" + 패키지
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+    private volatile long lastEvictAt;
+
+    // 최근 본문 → 키 (같은 템플릿 반복 시 해시 재계산 생략)
+    private String lastBody;
+    private String lastKey;
+
+    private long hits, misses, bytesWritten, evictedFiles, evictedBytes;
+
+    private MmsPayloadCache(Context app) {
+        this.ctx = app;
+        this.dir = new File(app.getCacheDir(), "mms");
+    }
+
+    /**
+     * 본문 파일을 확보하고 고정한다 (없으면 쓰기), 기본 메시지 앱에 읽기 권한 부여.
+     * 발송 결과가 나오면 반드시 release(key).
+     */
+    public Entry acquire(String body) throws Exception {
+        Entry e;
+        boolean wrote = false;
+        synchronized (this) {
+            String key = keyOf(body);
+            File f = new File(dir, PREFIX + key + SUFFIX);
+            byte[] bytes = null;
+            if (f.exists() && f.length() == (bytes = body.getBytes(StandardCharsets.UTF_8)).length) {
+                hits++;
+                f.setLastModified(System.currentTimeMillis());     // LRU 기준 시각
+            } else {
+                misses++;
+                if (bytes == null) bytes = body.getBytes(StandardCharsets.UTF_8);
+                write(f, bytes);
+                bytesWritten += bytes.length;
+                wrote = true;
+            }
+            Uri uri = uris.get(key);
+            if (uri == null) {
+                uri = FileProvider.getUriForFile(ctx, ctx.getPackageName() + ".fileprovider", f);
+                uris.put(key, uri);
+            }
+            Integer n = pins.get(key);
+            pins.put(key, n == null ? 1 : n + 1);
+            grantIfNeeded(key, uri);
+            e = new Entry(key, uri, f);
+        }
+        if (wrote) maybeEvict();
+        return e;
+    }
+
+    public synchronized void release(String key) {
+        Integer n = pins.get(key);
+        if (n == null) return;
+        if (n <= 1) pins.remove(key);
+        else pins.put(key, n - 1);
+    }
+
+    /** 본문으로 release (발송 큐는 본문만 들고 있으므로) */
+    public void releaseBody(String body) {
+        String key;
+        synchronized (this) {
+            key = keyOf(body);
+        }
+        release(key);
+    }
+
+    public synchronized String stats() {
+        long total = hits + misses;
+        return "hits=" + hits + " misses=" + misses
+                + " hitRate=" + (total == 0 ? 0 : (hits * 100 / total)) + "%"
+                + " bytesWritten=" + bytesWritten
+                + " evicted=" + evictedFiles + " files/" + evictedBytes + "B"
+                + " pinned=" + pins.size();
+    }
+
+    /** 최소 간격이 지났고 실행 중이 아니면 백그라운드 정리 예약 */
+    public void maybeEvict() {
+        long now = System.currentTimeMillis();
+        if (now - lastEvictAt < MIN_EVICT_INTERVAL_MS) return;
+        if (!evicting.compareAndSet(false, true)) return;
+        EXEC.execute(() -> {
+            try {
+                evictNow(System.currentTimeMillis());
+            } catch (Throwable t) {
+                Log.w(TAG, "[MmsPayloadCache] evict failed", t);
+            } finally {
+                lastEvictAt = System.currentTimeMillis();
+                evicting.set(false);
+            }
+        });
+    }
+
+    /** 동기 정리: 오래된/넘치는 파일 삭제 (고정 중이거나 최근 쓰인 파일은 제외) */
+    void evictNow(long now) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        Arrays.sort(files, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));   // 최근 것 먼저
+
+        long keptBytes = 0;
+        int keptFiles = 0;
+        int removed = 0;
+        for (File f : files) {
+            String name = f.getName();
+            boolean ours = name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            String key = ours ? name.substring(PREFIX.length(), name.length() - SUFFIX.length()) : null;
+            long age = now - f.lastModified();
+            long len = f.length();
+
+            boolean keep;
+            synchronized (this) {
+                if (key != null && pins.containsKey(key)) keep = true;
+                else if (age < GRACE_MS) keep = true;
+                else if (!ours) keep = false;                   // 이전 방식 파일
+                else keep = age < MAX_AGE_MS && keptFiles < MAX_FILES && keptBytes + len <= MAX_BYTES;
+
+                if (!keep && f.delete()) {
+                    removed++;
+                    evictedFiles++;
+                    evictedBytes += len;
+                    if (key != null) forget(key);
+                    continue;
+                }
+            }
+            keptFiles++;
+            keptBytes += len;
+        }
+        if (removed > 0) {
+            Log.d(TAG, "[MmsPayloadCache] evicted " + removed + " files, kept " + keptFiles + "/" + keptBytes + "B");
+        }
+    }
+
+    // ===== 내부 =====
+
+    private String keyOf(String body) {
+        if (lastKey != null && body.equals(lastBody)) return lastKey;
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {              // 128비트면 충돌 걱정 없음
+                sb.append(Character.forDigit((d[i] >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(d[i] & 0xF, 16));
+            }
+            lastBody = body;
+            lastKey = sb.toString();
+            return lastKey;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** 임시 파일에 쓰고 rename (읽는 쪽이 반쯤 쓰인 파일을 보지 않게) */
+    private void write(File f, byte[] bytes) throws Exception {
+        if (!dir.exists()) dir.mkdirs();
+        File tmp = new File(dir, f.getName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp)) {
+            fos.write(bytes);
+            fos.getFD().sync();
+        }
+        if (!tmp.renameTo(f)) {
+            tmp.delete();
+            throw new java.io.IOException("rename failed: " + f.getName());
+        }
+    }
+
+    /** 기본 메시지 앱에 읽기 권한 (키+패키지당 1번, 기본 앱이 바뀌면 다시) */
+    private void grantIfNeeded(String key, Uri uri) {
+        try {
+            String defPkg = android.provider.Telephony.Sms.getDefaultSmsPackage(ctx);
+            if (defPkg == null || !granted.add(key + "|" + defPkg)) return;
+            ctx.grantUriPermission(defPkg, uri, Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        } catch (Throwable t) {
+            Log.w(TAG, "[MmsPayloadCache] grantUriPermission failed: " + t.getMessage());
+        }
+    }
+
+    /** 삭제된 키의 URI/권한 기록 정리 */
+    private void forget(String key) {
+        Uri uri = uris.remove(key);
+        String prefix = key + "|";
+        for (Iterator<String> it = granted.iterator(); it.hasNext(); ) {
+            String g = it.next();
+            if (!g.startsWith(prefix)) continue;
+            it.remove();
+            if (uri != null) {
+                try {
+                    ctx.revokeUriPermission(g.substring(prefix.length()), uri, Intent.FLAG_GRANT_READ_URI_PERMISSION);
+                } catch (Throwable ignore) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.catchcall.sms;
+
+import android.telephony.SmsManager;
+import android.telephony.SmsMessage;
+
+import com.example.catchcall.domain.ReplyTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 문자 분할 계획 캐시.
+ *
+ * calculateLength / divideMessage 는 본문 전체를 매번 인코딩하므로,
+ * 한 번 계산한 결과를 본문으로 찾아 발송 경로(로그, 비용 계산, 실제 발송)가 그대로 재사용한다.
+ * - remember(): 템플릿 렌더가 함께 센 분할 수/인코딩으로 등록 (calculateLength 생략)
+ * - plan(): 본문으로 조회 (발송 큐처럼 본문만 들고 있는 쪽), 최근 몇 개만 보관
+ * - compute() / of(): 캐시 없이 계산 (편집 중 미리보기)
+ *
+ * segments/encoding 은 160/153·70/67 기준 추정이라 로그와 미리보기에만 쓴다.
+ * 발송 경로와 파트 수(비용, 보고 개수)는 실제 divideMessage 결과(partCount)로 정한다
+ * (경계의 확장 문자, 국가별 shift 표, 통신사 분할 방식에 따라 추정과 다를 수 있음). 본문마다 한 번만 나눈다.
+ */
+public final class SegmentationPlanner {
+    private static final int MAX_BY_TEXT = 32;
+
+    /** 한 본문의 분할 결과 */
+    public static final class Plan {
+        public final String text;
+        /** 추정 분할 수 (로그/미리보기용) */
+        public final int segments;
+        public final int codeUnitsUsed;
+        public final int codeUnitsRemaining;
+        /** SmsMessage.ENCODING_7BIT / ENCODING_16BIT */
+        public final int encoding;
+        /** divideMessage 결과 (처음 필요할 때 채움, 수정 금지: 발송에 그대로 넘긴다) */
+        private volatile ArrayList<String> parts;
+
+        Plan(String text, int segments, int codeUnitsUsed, int codeUnitsRemaining, int encoding) {
+            this.text = text;
+            this.segments = Math.max(1, segments);
+            this.codeUnitsUsed = codeUnitsUsed;
+            this.codeUnitsRemaining = codeUnitsRemaining;
+            this.encoding = encoding;
+        }
+
+        Plan(String text, ArrayList<String> parts, int[] len) {
+            this(text, parts.size(), len[1], len[2], len[3]);
+            this.parts = parts;
+        }
+
+        /** 실제 발송에 넘기는 파트 목록 */
+        ArrayList<String> divided() {
+            ArrayList<String> p = parts;
+            if (p == null) {
+                p = divide(text);
+                parts = p;
+            }
+            return p;
+        }
+
+        /** 실제 파트 수 (divideMessage) */
+        public int partCount() {
+            return Math.max(1, divided().size());
+        }
+
+        /** 발송 경로 (SmsSender.ROUTE_*) */
+        public int route(boolean mmsAvailable) {
+            return routeFor(partCount(), mmsAvailable);
+        }
+
+        /** 플랫폼 발송 한도 기준 비용 (MMS 는 1) */
+        public int cost(boolean mmsAvailable) {
+            return route(mmsAvailable) == SmsSender.ROUTE_MMS ? 1 : partCount();
+        }
+
+        /** 화면 표시용 한 줄 요약 (추정 분할 수 기준) */
+        public String describe(boolean mmsAvailable) {
+            String enc = encoding == SmsMessage.ENCODING_16BIT ? "UCS-2" : "GSM 7bit";
+            int route = routeFor(segments, mmsAvailable);
+            String how = route == SmsSender.ROUTE_SMS ? "단문 SMS 1통"
+                    : route == SmsSender.ROUTE_MMS ? "MMS 1통"
+                    : "멀티파트 SMS " + segments + "통";
+            return text.length() + "자 · " + enc + " · " + segments + "파트 → " + how;
+        }
+    }
+
+    private static int routeFor(int parts, boolean mmsAvailable) {
+        if (parts <= 1) return SmsSender.ROUTE_SMS;
+        return mmsAvailable ? SmsSender.ROUTE_MMS : SmsSender.ROUTE_MULTIPART;
+    }
+
+    private static final SegmentationPlanner INSTANCE = new SegmentationPlanner();
+
+    public static SegmentationPlanner get() {
+        return INSTANCE;
+    }
+
+    private final LinkedHashMap<String, Plan> byText = new LinkedHashMap<String, Plan>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Plan> eldest) {
+            return size() > MAX_BY_TEXT;
+        }
+    };
+    private long hits, misses, rendered;
+
+    private SegmentationPlanner() {}
+
+    /** 템플릿 렌더 결과 등록 (발송 큐가 같은 본문으로 plan() 하면 그대로 찾는다) */
+    public Plan remember(String text, ReplyTemplate.Output out) {
+        synchronized (this) {
+            Plan p = byText.get(text);
+            if (p != null) return p;        // 개인화 없는 템플릿: 같은 본문이 이미 있음
+        }
+        Plan p = of(text, out);
+        synchronized (this) {
+            rendered++;
+            byText.put(text, p);
+        }
+        return p;
+    }
+
+    /** 본문 기준 조회 */
+    public Plan plan(String text) {
+        synchronized (this) {
+            Plan p = byText.get(text);
+            if (p != null) {
+                hits++;
+                return p;
+            }
+            misses++;
+        }
+        Plan p = compute(text);
+        synchronized (this) {
+            byText.put(text, p);
+        }
+        return p;
+    }
+
+    public synchronized String stats() {
+        return "hits=" + hits + " misses=" + misses + " rendered=" + rendered + " cached=" + byText.size();
+    }
+
+    /** 렌더 결과로 만든 계획 (파트 나누기는 필요할 때) */
+    public static Plan of(String text, ReplyTemplate.Output out) {
+        return new Plan(text, out.segments, out.codeUnits, out.codeUnitsRemaining, out.encoding);
+    }
+
+    /** 캐시 없이 계산 */
+    public static Plan compute(String text) {
+        int[] len = SmsMessage.calculateLength(text, false);
+        return new Plan(text, divide(text), len);
+    }
+
+    private static ArrayList<String> divide(String text) {
+        ArrayList<String> parts = SmsManager.getDefault().divideMessage(text);
+        if (parts == null || parts.isEmpty()) {
+            parts = new ArrayList<>(1);
+            parts.add(text);
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,578 @@
+package com.example.catchcall.sms;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.SystemClock;
+import android.telephony.SmsManager;
+import android.util.Log;
+
+import com.example.catchcall.metrics.Diagnostics;
+import com.example.catchcall.metrics.EventTrace;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 영구 발송 큐 (outbox).
+ *
+ * - enqueue() 는 저널에 기록하고 바로 반환, 실제 발송은 워커 스레드가 한 건씩 진행
+ * - 토큰 버킷으로 플랫폼 발송 한도(앱당 30분 30파트, 초과 시 사용자 확인창) 아래로 유지
+ * - DeliveryTracker 가 모은 결과 코드로 성공/재시도(지수 백오프)/포기 결정, 성공은 SentListener 로 통지
+ * - 우선순위: MANNER > MISSED > 기타, 같은 우선순위는 먼저 들어온 순
+ * - 같은 번호+타입이 이미 대기/발송 중이면 새로 넣지 않는다(coalesce)
+ *
+ * 프로세스가 죽었다 살아나면 저널을 재생해 대기 작업을 이어간다. 토큰 차감도 저널에 남겨(최근 한도 구간만)
+ * 재시작 직후에도 플랫폼 한도 구간을 이어서 센다.
+ * 발송은 했지만 결과를 못 받은 작업(시간 초과, 결과 전에 프로세스 종료)은 중복 발송을 피하려고 다시 보내지 않고,
+ * 이미 나갔을 수 있으므로 저널의 발송 시각으로 SentListener 에 알린다 (다음 트리거가 쿨타임을 본다).
+ */
+public class SmsOutbox {
+    private static final String TAG = "AutoReply";
+
+    /** 플랫폼 기본 한도(30분 30파트)보다 여유 있게 28개, 1분에 1개 충전 */
+    static final int  RATE_CAPACITY = 28;
+    static final long RATE_REFILL_MS = 60_000L;
+    /** 이보다 오래된 차감은 다 채워졌으므로 저널에 남기지 않는다 */
+    static final long RATE_WINDOW_MS = RATE_CAPACITY * RATE_REFILL_MS;
+
+    static final int  MAX_ATTEMPTS = 5;
+    static final long BACKOFF_BASE_MS = 5_000L;
+    static final long BACKOFF_MAX_MS = 10 * 60_000L;
+    static final long RESULT_TIMEOUT_MS = 60_000L;
+
+    // OP_DISPATCH 는 이전 형식(발송 시각 없음), 새로 쓰는 기록은 OP_DISPATCH_AT. OP_SPEND = 토큰 차감 (시각, 개수)
+    private static final byte OP_ENQ = 1, OP_RETRY = 2, OP_DISPATCH = 3, OP_DONE = 4, OP_DISPATCH_AT = 5, OP_SPEND = 6;
+
+    /** 발송 작업 */
+    static final class Job {
+        final long id;
+        final String type;
+        final String number;
+        final String body;
+        final long enqueuedAt;
+        int attempts;
+        long dueAt;
+        boolean forceSms;       // MMS 실패 후 재시도는 멀티파트 SMS 로
+        boolean dispatched;     // 저널 재생용
+        long dispatchedAt;      // 마지막 발송 시각 (쿨타임 기준)
+        int route;
+
+        Job(long id, String type, String number, String body, long enqueuedAt) {
+            this.id = id;
+            this.type = type;
+            this.number = number;
+            this.body = body;
+            this.enqueuedAt = enqueuedAt;
+            this.dueAt = enqueuedAt;
+        }
+
+        int priority() {
+            if ("MANNER".equals(type)) return 0;
+            if ("MISSED".equals(type)) return 1;
+            return 2;
+        }
+    }
+
+    /** 발송이 확인(sent OK)됐거나, 결과를 모른 채 끝나 이미 나갔다고 봐야 하는 메시지 통지 */
+    public interface SentListener {
+        void onSent(String type, String number, long sentAt);
+    }
+
+    private static volatile SmsOutbox instance;
+
+    public static SmsOutbox get(Context ctx) {
+        SmsOutbox s = instance;
+        if (s != null) return s;
+        synchronized (SmsOutbox.class) {
+            if (instance == null) instance = new SmsOutbox(ctx.getApplicationContext());
+            return instance;
+        }
+    }
+
+    private final Context ctx;
+    private final SmsSender sender;
+    private final File journalFile;
+    private final ScheduledExecutorService worker;
+    private final TokenBucket bucket;
+    private final DeliveryTracker tracker;
+    private volatile SentListener sentListener;
+
+    private final List<Job> pending = new ArrayList<>();
+    private final List<Job> unreported = new ArrayList<>();    // 리스너 등록 전에 나간 작업 (재생된 결과 모름 포함)
+    private final List<long[]> spends = new ArrayList<>();     // 최근 RATE_WINDOW_MS 안의 토큰 차감 [벽시계, 개수]
+    private DataOutputStream journal;
+    private Job inFlight;
+    private ScheduledFuture<?> pumpTask;
+    private long pumpAt = Long.MAX_VALUE;
+    private ScheduledFuture<?> timeoutTask;
+    private long nextId = 1;
+
+    // 통계
+    private long enqueued, coalesced, dispatched, succeeded, retried, failed, unconfirmed, rateLimited;
+    private long waitCount, waitTotalMs, waitMaxMs;
+
+    private SmsOutbox(Context app) {
+        this.ctx = app;
+        this.sender = new SmsSender(app);
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sms-outbox");
+            t.setDaemon(true);
+            return t;
+        });
+        this.tracker = DeliveryTracker.get(app);
+        File dir = new File(app.getFilesDir(), "outbox");
+        if (!dir.exists()) dir.mkdirs();
+        this.journalFile = new File(dir, "journal");
+        synchronized (this) {
+            replayJournal();
+            rewriteJournal();
+            this.bucket = restoreBucket(System.currentTimeMillis(), SystemClock.elapsedRealtime());
+        }
+        tracker.setListener(this::onSendResult);
+        worker.execute(this::pump);
+        Diagnostics.section("outbox", this::stats);
+    }
+
+    /** 발송 요청 (아무 스레드). 큐에 들어갔거나 이미 같은 작업이 대기 중이면 true */
+    public synchronized boolean enqueue(String type, String number, String body) {
+        for (Job j : pending) {
+            if (j.number.equals(number) && j.type.equals(type)) {
+                coalesced++;
+                return true;
+            }
+        }
+        if (inFlight != null && inFlight.number.equals(number) && inFlight.type.equals(type)) {
+            coalesced++;
+            return true;
+        }
+        Job job = new Job(nextId++, type, number, body, System.currentTimeMillis());
+        pending.add(job);
+        enqueued++;
+        writeEnq(job);
+        schedulePump(0);
+        if (EventTrace.LOGD) Log.d(TAG, "[SmsOutbox] enqueue id=" + job.id + " type=" + type + " depth=" + pending.size());
+        return true;
+    }
+
+    /** 등록할 때 재생에서 나온 결과 모름 작업을 바로 넘긴다 (첫 판정 전에 쿨타임이 잡히도록 호출 스레드에서) */
+    public synchronized void setSentListener(SentListener l) {
+        this.sentListener = l;
+        if (l == null) return;
+        List<Job> replayed = new ArrayList<>(unreported);
+        unreported.clear();
+        for (Job j : replayed) reportSent(j);
+    }
+
+    /** DeliveryTracker 가 한 메시지의 결과를 모았을 때 (메인 스레드) → 워커에서 처리 */
+    public void onSendResult(long jobId, int resultCode) {
+        worker.execute(() -> handleResult(jobId, resultCode));
+    }
+
+    public synchronized int depth() {
+        return pending.size() + (inFlight != null ? 1 : 0);
+    }
+
+    public synchronized String stats() {
+        long avgWait = waitCount == 0 ? 0 : waitTotalMs / waitCount;
+        return "depth=" + depth()
+                + " enqueued=" + enqueued
+                + " coalesced=" + coalesced
+                + " dispatched=" + dispatched
+                + " ok=" + succeeded
+                + " retried=" + retried
+                + " failed=" + failed
+                + " unconfirmed=" + unconfirmed
+                + " rateLimited=" + rateLimited
+                + " tokens=" + bucket.available(SystemClock.elapsedRealtime())
+                + " waitAvgMs=" + avgWait
+                + " waitMaxMs=" + waitMaxMs;
+    }
+
+    // ===== 워커 =====
+
+    /**
+     * 다음 작업 하나 발송 (워커 스레드). 고르기/토큰 차감/기록은 락 안에서, 발송 API 호출은 락 밖에서 한다
+     * → 발송 중에도 enqueue() 가 기다리지 않는다. inFlight 가 잡혀 있는 동안 다른 작업은 나가지 않고,
+     * 결과/시간 초과 처리는 같은 워커에서 이 호출이 끝난 뒤에 돈다.
+     */
+    private void pump() {
+        final Job next;
+        final int cost;
+        final DeliveryTracker.Ticket ticket;
+        synchronized (this) {
+            pumpTask = null;
+            pumpAt = Long.MAX_VALUE;
+            if (inFlight != null) return;
+
+            long now = System.currentTimeMillis();
+            Job pick = null;
+            long earliestDue = Long.MAX_VALUE;
+            for (Job j : pending) {
+                if (j.dueAt > now) {
+                    earliestDue = Math.min(earliestDue, j.dueAt);
+                    continue;
+                }
+                if (pick == null || j.priority() < pick.priority()
+                        || (j.priority() == pick.priority() && j.id < pick.id)) {
+                    pick = j;
+                }
+            }
+            if (pick == null) {
+                if (earliestDue != Long.MAX_VALUE) schedulePump(earliestDue - now);
+                else truncateJournalIfIdle();
+                return;
+            }
+
+            long mono = SystemClock.elapsedRealtime();
+            int c = sender.cost(pick.body, !pick.forceSms);
+            long wait = bucket.msUntil(c, mono);
+            if (wait > 0) {
+                rateLimited++;
+                if (EventTrace.LOGD) Log.d(TAG, "[SmsOutbox] rate limited, wait " + wait + "ms (cost=" + c + ")");
+                schedulePump(wait);
+                return;
+            }
+            bucket.tryAcquire(c, mono);
+            spend(pick.id, c, now);
+
+            pending.remove(pick);
+            inFlight = pick;
+            pick.attempts++;
+            dispatched++;
+            pick.dispatchedAt = now;
+            writeDispatch(pick);
+            if (pick.attempts == 1) {
+                long waited = now - pick.enqueuedAt;
+                waitCount++;
+                waitTotalMs += waited;
+                waitMaxMs = Math.max(waitMaxMs, waited);
+            }
+            next = pick;
+            cost = c;
+            ticket = tracker.begin(pick.id);
+        }
+
+        int route = sender.dispatch(next.number, next.body, !next.forceSms, ticket.sent, ticket.delivered);
+
+        synchronized (this) {
+            final long id = next.id;
+            next.route = route;
+            if (route == SmsSender.ROUTE_FAIL) {
+                tracker.release(ticket);
+                handleResult(id, SmsManager.RESULT_ERROR_GENERIC_FAILURE);
+                return;
+            }
+            int parts = route == SmsSender.ROUTE_MULTIPART ? sender.parts(next.body) : 1;
+            if (route == SmsSender.ROUTE_MULTIPART && cost == 1) {
+                bucket.consume(parts - 1, SystemClock.elapsedRealtime()); // MMS → 멀티파트 폴백분 반영
+                spend(id, parts - 1, System.currentTimeMillis());
+            }
+            tracker.expect(ticket, parts, route != SmsSender.ROUTE_MMS);
+            timeoutTask = worker.schedule(() -> onTimeout(id), RESULT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void handleResult(long jobId, int code) {
+        Job job = inFlight;
+        if (job == null || job.id != jobId) {
+            if (EventTrace.LOGD) Log.d(TAG, "[SmsOutbox] stale result id=" + jobId + " code=" + code);
+            return;
+        }
+        if (timeoutTask != null) timeoutTask.cancel(false);
+        timeoutTask = null;
+        inFlight = null;
+        releasePayload(job);
+
+        if (code == Activity.RESULT_OK) {
+            succeeded++;
+            if (EventTrace.LOGD) Log.d(TAG, "[SmsOutbox] sent id=" + job.id + " attempts=" + job.attempts);
+            Diagnostics.count(Diagnostics.Outcome.SENT);
+            Diagnostics.stage(Diagnostics.Stage.SENT, job.number);
+            reportSent(job);       // 새 프로세스라 리스너가 아직 없어도 쿨타임이 빠지지 않게
+        } else if (isRetryable(job.route, code) && job.attempts < MAX_ATTEMPTS) {
+            retried++;
+            if (job.route == SmsSender.ROUTE_MMS) job.forceSms = true;
+            if (code == SmsManager.RESULT_ERROR_LIMIT_EXCEEDED && job.route != SmsSender.ROUTE_MMS) {
+                bucket.consume(RATE_CAPACITY, SystemClock.elapsedRealtime()); // 플랫폼 한도에 걸림 → 버킷 비움
+                spend(job.id, RATE_CAPACITY, System.currentTimeMillis());
+            }
+            job.dueAt = System.currentTimeMillis() + backoffMs(job.attempts);
+            pending.add(job);
+            writeRetry(job);
+            Log.w(TAG, "[SmsOutbox] retry id=" + job.id + " code=" + code + " attempts=" + job.attempts
+                    + " inMs=" + (job.dueAt - System.currentTimeMillis()));
+        } else {
+            failed++;
+            writeOp(OP_DONE, job.id);
+            Log.w(TAG, "[SmsOutbox] give up id=" + job.id + " code=" + code + " attempts=" + job.attempts);
+        }
+        schedulePump(0);
+    }
+
+    private synchronized void onTimeout(long jobId) {
+        Job job = inFlight;
+        if (job == null || job.id != jobId) return;
+        // 결과를 못 받음: 이미 나갔을 수 있으므로 다시 보내지 않는다
+        timeoutTask = null;
+        inFlight = null;
+        releasePayload(job);
+        unconfirmed++;
+        reportSent(job);
+        Log.w(TAG, "[SmsOutbox] no result within " + RESULT_TIMEOUT_MS + "ms, id=" + jobId);
+        schedulePump(0);
+    }
+
+    /**
+     * 나간 작업(발송 확인 또는 결과 모름)을 발송 시각으로 통지하고 끝낸다.
+     * 리스너가 아직 없으면 등록 때까지 미룬다: 그동안 OP_DONE 을 쓰지 않으므로
+     * 통지 전에 프로세스가 죽어도 재생에서 dispatch 상태로 다시 나온다.
+     */
+    private void reportSent(Job job) {
+        SentListener l = sentListener;
+        if (l == null) {
+            unreported.add(job);
+            return;
+        }
+        l.onSent(job.type, job.number, job.dispatchedAt > 0 ? job.dispatchedAt : job.enqueuedAt);
+        writeOp(OP_DONE, job.id);
+    }
+
+    /** 토큰 차감 기록 (메모리 + 저널, 한도 구간이 지난 기록은 버린다) */
+    private void spend(long jobId, int n, long now) {
+        if (n <= 0) return;
+        pruneSpends(now);
+        spends.add(new long[]{now, n});
+        writeSpend(jobId, now, n);
+    }
+
+    private void pruneSpends(long now) {
+        while (!spends.isEmpty() && now - spends.get(0)[0] >= RATE_WINDOW_MS) spends.remove(0);
+    }
+
+    /** 저널에서 읽은 최근 차감을 다시 적용한 버킷 (벽시계 간격을 elapsedRealtime 으로 옮김) */
+    private TokenBucket restoreBucket(long now, long mono) {
+        long start = spends.isEmpty() ? mono : mono - Math.max(0L, now - spends.get(0)[0]);
+        TokenBucket b = new TokenBucket(RATE_CAPACITY, RATE_REFILL_MS, start);
+        for (long[] sp : spends) b.consume((int) sp[1], mono - Math.max(0L, now - sp[0]));
+        if (EventTrace.LOGD && !spends.isEmpty()) Log.d(TAG, "[SmsOutbox] rate bucket restored: spends=" + spends.size() + " tokens=" + b.available(mono));
+        return b;
+    }
+
+    /** MMS 본문 파일 고정 해제 (결과가 나왔으니 정리 대상이 되어도 된다) */
+    private void releasePayload(Job job) {
+        if (job.route == SmsSender.ROUTE_MMS) MmsPayloadCache.get(ctx).releaseBody(job.body);
+    }
+
+    private void schedulePump(long delayMs) {
+        long at = SystemClock.elapsedRealtime() + Math.max(0, delayMs);
+        if (pumpTask != null && pumpAt <= at) return;
+        if (pumpTask != null) pumpTask.cancel(false);
+        pumpAt = at;
+        pumpTask = worker.schedule(this::pump, Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+    }
+
+    static long backoffMs(int attempts) {
+        long base = BACKOFF_BASE_MS << Math.min(20, Math.max(0, attempts - 1));
+        long capped = Math.min(BACKOFF_MAX_MS, base);
+        return capped + ThreadLocalRandom.current().nextLong(capped / 4 + 1);
+    }
+
+    /** 일시적 오류만 재시도 (SMS/MMS 결과 코드 체계가 달라 경로별로 판단) */
+    static boolean isRetryable(int route, int code) {
+        if (route == SmsSender.ROUTE_MMS) {
+            return code == SmsManager.MMS_ERROR_RETRY
+                    || code == SmsManager.MMS_ERROR_IO_ERROR
+                    || code == SmsManager.MMS_ERROR_UNABLE_CONNECT_MMS
+                    || code == SmsManager.MMS_ERROR_HTTP_FAILURE
+                    || code == SmsManager.MMS_ERROR_NO_DATA_NETWORK
+                    || code == SmsManager.MMS_ERROR_UNSPECIFIED;
+        }
+        return code == SmsManager.RESULT_ERROR_GENERIC_FAILURE
+                || code == SmsManager.RESULT_ERROR_RADIO_OFF
+                || code == SmsManager.RESULT_ERROR_NO_SERVICE
+                || code == SmsManager.RESULT_ERROR_LIMIT_EXCEEDED;
+    }
+
+    // ===== 저널 =====
+
+    private void replayJournal() {
+        if (!journalFile.exists()) return;
+        Map<Long, Job> jobs = new LinkedHashMap<>();
+        // 기록 중 끊긴 꼬리는 EOF 로 끝나고, 직후 rewriteJournal() 이 살아있는 작업만 다시 쓴다
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            while (true) {
+                byte op = in.readByte();
+                long id = in.readLong();
+                if (op == OP_ENQ) {
+                    Job j = new Job(id, in.readUTF(), in.readUTF(), in.readUTF(), in.readLong());
+                    j.attempts = in.readInt();
+                    j.dueAt = in.readLong();
+                    j.forceSms = in.readBoolean();
+                    jobs.put(id, j);
+                } else if (op == OP_RETRY) {
+                    int attempts = in.readInt();
+                    long dueAt = in.readLong();
+                    boolean forceSms = in.readBoolean();
+                    Job j = jobs.get(id);
+                    if (j != null) {
+                        j.attempts = attempts;
+                        j.dueAt = dueAt;
+                        j.forceSms = forceSms;
+                        j.dispatched = false;
+                    }
+                } else if (op == OP_DISPATCH || op == OP_DISPATCH_AT) {
+                    long at = op == OP_DISPATCH_AT ? in.readLong() : 0L;
+                    Job j = jobs.get(id);
+                    if (j != null) {
+                        j.dispatched = true;
+                        j.dispatchedAt = at;
+                    }
+                } else if (op == OP_DONE) {
+                    jobs.remove(id);
+                } else if (op == OP_SPEND) {
+                    long at = in.readLong();
+                    int n = in.readInt();
+                    spends.add(new long[]{at, n});
+                } else {
+                    break;
+                }
+                nextId = Math.max(nextId, id + 1);
+            }
+        } catch (EOFException eof) {
+            // 끝
+        } catch (IOException e) {
+            Log.w(TAG, "[SmsOutbox] journal replay error: " + e.getMessage());
+        }
+        pruneSpends(System.currentTimeMillis());
+        for (Job j : jobs.values()) {
+            if (j.dispatched) {
+                unconfirmed++;   // 결과 모름 → 중복 방지를 위해 재발송 안 함, 쿨타임은 기록
+                unreported.add(j);
+                continue;
+            }
+            pending.add(j);
+        }
+        if (EventTrace.LOGD) Log.d(TAG, "[SmsOutbox] replayed journal: pending=" + pending.size() + " unconfirmed=" + unconfirmed);
+    }
+
+    /** 살아있는 작업만으로 저널을 다시 쓴다 */
+    private void rewriteJournal() {
+        closeJournal();
+        try {
+            journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile, false)));
+            pruneSpends(System.currentTimeMillis());
+            for (long[] sp : spends) writeSpend(0L, sp[0], (int) sp[1]);
+            for (Job j : pending) writeEnq(j);
+            for (Job j : unreported) {          // 통지 전에 또 죽어도 다음 재생에서 다시 나오도록
+                writeEnq(j);
+                writeDispatch(j);
+            }
+            if (inFlight != null) {
+                writeEnq(inFlight);
+                writeDispatch(inFlight);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "[SmsOutbox] journal open failed: " + e.getMessage());
+            journal = null;
+        }
+    }
+
+    /** 할 일이 없으면 저널을 비운다 (rewriteJournal 이 덮어쓰기로 다시 열고 최근 차감만 남긴다) */
+    private void truncateJournalIfIdle() {
+        if (!pending.isEmpty() || inFlight != null || !unreported.isEmpty() || journalFile.length() == 0) return;
+        rewriteJournal();
+    }
+
+    private void writeEnq(Job j) {
+        if (journal == null) return;
+        try {
+            journal.writeByte(OP_ENQ);
+            journal.writeLong(j.id);
+            journal.writeUTF(j.type);
+            journal.writeUTF(j.number);
+            journal.writeUTF(j.body);
+            journal.writeLong(j.enqueuedAt);
+            journal.writeInt(j.attempts);
+            journal.writeLong(j.dueAt);
+            journal.writeBoolean(j.forceSms);
+            journal.flush();
+        } catch (IOException e) {
+            Log.w(TAG, "[SmsOutbox] journal write failed: " + e.getMessage());
+        }
+    }
+
+    private void writeRetry(Job j) {
+        if (journal == null) return;
+        try {
+            journal.writeByte(OP_RETRY);
+            journal.writeLong(j.id);
+            journal.writeInt(j.attempts);
+            journal.writeLong(j.dueAt);
+            journal.writeBoolean(j.forceSms);
+            journal.flush();
+        } catch (IOException e) {
+            Log.w(TAG, "[SmsOutbox] journal write failed: " + e.getMessage());
+        }
+    }
+
+    private void writeDispatch(Job j) {
+        if (journal == null) return;
+        try {
+            journal.writeByte(OP_DISPATCH_AT);
+            journal.writeLong(j.id);
+            journal.writeLong(j.dispatchedAt);
+            journal.flush();
+        } catch (IOException e) {
+            Log.w(TAG, "[SmsOutbox] journal write failed: " + e.getMessage());
+        }
+    }
+
+    private void writeSpend(long id, long at, int n) {
+        if (journal == null) return;
+        try {
+            journal.writeByte(OP_SPEND);
+            journal.writeLong(id);
+            journal.writeLong(at);
+            journal.writeInt(n);
+            journal.flush();
+        } catch (IOException e) {
+            Log.w(TAG, "[SmsOutbox] journal write failed: " + e.getMessage());
+        }
+    }
+
+    private void writeOp(byte op, long id) {
+        if (journal == null) return;
+        try {
+            journal.writeByte(op);
+            journal.writeLong(id);
+            journal.flush();
+        } catch (IOException e) {
+            Log.w(TAG, "[SmsOutbox] journal write failed: " + e.getMessage());
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException ignore) {
+        }
+        journal = null;
+    }
+}
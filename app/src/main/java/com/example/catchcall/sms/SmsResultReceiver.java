@@ -0,0 +1,46 @@
+package com.example.catchcall.sms;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.telephony.SmsMessage;
+import android.util.Log;
+
+import com.example.catchcall.metrics.EventTrace;
+
+/** 발송 결과(sentIntent) / 수신 확인(deliveryIntent) 보고 → DeliveryTracker */
+public class SmsResultReceiver extends BroadcastReceiver {
+    private static final String TAG = "AutoReply";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (intent == null) return;
+        String action = intent.getAction();
+        int slot = intent.getIntExtra(DeliveryTracker.EXTRA_SLOT, -1);
+        int gen = intent.getIntExtra(DeliveryTracker.EXTRA_GEN, -1);
+        if (slot < 0) return;
+
+        if (DeliveryTracker.ACTION_SENT.equals(action)) {
+            int code = getResultCode();
+            if (EventTrace.LOGD) Log.d(TAG, "[SmsResultReceiver] sent slot=" + slot + " resultCode=" + code);
+            DeliveryTracker.get(context).onSent(slot, gen, code);
+        } else if (DeliveryTracker.ACTION_DELIVERED.equals(action)) {
+            int status = deliveryStatus(intent);
+            if (EventTrace.LOGD) Log.d(TAG, "[SmsResultReceiver] delivered slot=" + slot + " status=" + status);
+            DeliveryTracker.get(context).onDelivered(slot, gen, status);
+        }
+    }
+
+    /** 상태 보고 PDU 의 TP-Status (파싱 실패 시 완료로 본다) */
+    private static int deliveryStatus(Intent intent) {
+        try {
+            byte[] pdu = intent.getByteArrayExtra("pdu");
+            if (pdu == null) return 0;
+            SmsMessage m = SmsMessage.createFromPdu(pdu, intent.getStringExtra("format"));
+            return m == null ? 0 : m.getStatus();
+        } catch (Throwable t) {
+            Log.w(TAG, "[SmsResultReceiver] status parse failed: " + t.getMessage());
+            return 0;
+        }
+    }
+}
@@ -1,10 +1,9 @@
 package com.example.catchcall.sms;
 
 import android.Manifest;
+import android.app.PendingIntent;
 import android.content.Context;
-import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.telephony.SmsManager;
@@ -12,11 +11,11 @@ import android.telephony.SubscriptionManager;
 import android.util.Log;
 
 import androidx.core.app.ActivityCompat;
-import androidx.core.content.FileProvider;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.nio.charset.StandardCharsets;
+import com.example.catchcall.domain.SentFingerprintRing;
+import com.example.catchcall.metrics.Diagnostics;
+import com.example.catchcall.metrics.EventTrace;
+
 import java.util.ArrayList;
 
 public class SmsSender {
@@ -25,32 +24,85 @@ public class SmsSender {
 
     public SmsSender(Context ctx) { this.ctx = ctx.getApplicationContext(); }
 
-    public boolean send(String number, String msg) {
+    public static final int ROUTE_FAIL = 0;
+    public static final int ROUTE_SMS = 1;
+    public static final int ROUTE_MULTIPART = 2;
+    public static final int ROUTE_MMS = 3;
+
+    /**
+     * 발송 요청: SmsOutbox 에 넣고 바로 반환 (실제 발송/재시도/속도 제한은 outbox 가 담당).
+     * @return 큐에 들어갔으면 true (발송 성공 여부가 아님)
+     */
+    public boolean send(String type, String number, String msg) {
         boolean hasPerm = ActivityCompat.checkSelfPermission(ctx, Manifest.permission.SEND_SMS)
                 == PackageManager.PERMISSION_GRANTED;
-        Log.d(TAG, "[SmsSender] SEND attempt → num=" + number + " perm=" + hasPerm
+        EventTrace.instant(EventTrace.Event.SEND_REQUEST, number);
+        if (EventTrace.LOGD) Log.d(TAG, "[SmsSender] SEND request → num=" + number + " type=" + type + " perm=" + hasPerm
                 + " len=" + (msg == null? -1 : msg.length()));
         if (!hasPerm || number == null || number.trim().isEmpty() || msg == null) return false;
+        return SmsOutbox.get(ctx).enqueue(type, number, msg);
+    }
+
+    /** 발송 비용(플랫폼 한도 기준 파트 수): MMS 로 갈 장문은 1 */
+    int cost(String msg, boolean allowMms) {
+        try {
+            SegmentationPlanner.Plan plan = SegmentationPlanner.get().plan(msg);
+            return plan.cost(plan.partCount() > 1 && allowMms && isDefaultSmsApp());
+        } catch (Throwable t) {
+            return 1;
+        }
+    }
 
+    /** 멀티파트 SMS 로 보낼 때의 실제 파트 수 (보고 개수) */
+    int parts(String msg) {
+        try {
+            return SegmentationPlanner.get().plan(msg).partCount();
+        } catch (Throwable t) {
+            return 1;
+        }
+    }
+
+    /**
+     * 실제 발송 (SmsOutbox 워커에서 호출).
+     * 결과/수신 확인 보고는 DeliveryTracker 가 모은다: 멀티파트는 모든 파트에 같은 PendingIntent 를 단다.
+     * @return 사용한 경로(ROUTE_*), 실패 시 ROUTE_FAIL
+     */
+    int dispatch(String number, String msg, boolean allowMms, PendingIntent sentIntent, PendingIntent deliveryIntent) {
+        EventTrace.begin(EventTrace.Event.SMS_DISPATCH, number);
+        try {
+            int route = dispatchRoute(number, msg, allowMms, sentIntent, deliveryIntent);
+            EventTrace.instant(EventTrace.Event.SMS_ROUTE, route);
+            return route;
+        } finally {
+            EventTrace.end(EventTrace.Event.SMS_DISPATCH);
+        }
+    }
+
+    private int dispatchRoute(String number, String msg, boolean allowMms, PendingIntent sentIntent, PendingIntent deliveryIntent) {
+        // 자기 발송 echo 판별용 지문 (SmsReceiver 가 확인). 실제 전송보다 먼저 남긴다
+        SentFingerprintRing.get(ctx).record(number, msg, System.currentTimeMillis());
         try {
             SmsManager sm = getDefaultSmsManager();
+            Diagnostics.stage(Diagnostics.Stage.DISPATCH, number);
 
-            // 길이 판단
-            ArrayList<String> parts = sm.divideMessage(msg);
+            // 길이 판단: 본문별 분할 계획 재사용 (경로/파트 수는 추정이 아니라 실제 divideMessage 결과로)
+            SegmentationPlanner.Plan plan = SegmentationPlanner.get().plan(msg);
 
-            if (parts.size() <= 1) {
+            if (plan.partCount() <= 1) {
                 // ▶ 짧은 건 SMS 1통
-                sm.sendTextMessage(number, null, msg, null, null);
-                Log.d(TAG, "[SmsSender] SMS single dispatched");
-                return true;
+                sm.sendTextMessage(number, null, msg, sentIntent, deliveryIntent);
+                if (EventTrace.LOGD) Log.d(TAG, "[SmsSender] SMS single dispatched");
+                return ROUTE_SMS;
             }
 
             // ▶ 장문: 가능한 경우 MMS 1통으로 전송
-            if (isDefaultSmsApp()) {
-                boolean ok = sendAsMmsText(number, msg);
+            if (!allowMms) {
+                if (EventTrace.LOGD) Log.d(TAG, "[SmsSender] MMS disabled for this attempt → multipart SMS");
+            } else if (isDefaultSmsApp()) {
+                boolean ok = sendAsMmsText(number, msg, sentIntent);
                 if (ok) {
-                    Log.d(TAG, "[SmsSender] MMS dispatched (single long message)");
-                    return true;
+                    if (EventTrace.LOGD) Log.d(TAG, "[SmsSender] MMS dispatched (single long message)");
+                    return ROUTE_MMS;
                 } else {
                     Log.w(TAG, "[SmsSender] MMS failed, fallback to multipart SMS");
                 }
@@ -59,13 +111,20 @@ public class SmsSender {
             }
 
             // ▶ 폴백: 멀티파트 SMS (기본앱이 아니거나 MMS 실패 시)
-            sm.sendMultipartTextMessage(number, null, parts, null, null);
-            Log.d(TAG, "[SmsSender] Multipart SMS dispatched (fallback)");
-            return true;
+            ArrayList<String> parts = plan.divided();
+            ArrayList<PendingIntent> sentIntents = new ArrayList<>(parts.size());
+            ArrayList<PendingIntent> deliveryIntents = new ArrayList<>(parts.size());
+            for (int i = 0; i < parts.size(); i++) {
+                sentIntents.add(sentIntent);
+                deliveryIntents.add(deliveryIntent);
+            }
+            sm.sendMultipartTextMessage(number, null, parts, sentIntents, deliveryIntents);
+            if (EventTrace.LOGD) Log.d(TAG, "[SmsSender] Multipart SMS dispatched (fallback)");
+            return ROUTE_MULTIPART;
 
         } catch (Throwable t) {
             Log.e(TAG, "[SmsSender] send error: " + t.getClass().getSimpleName() + " " + t.getMessage());
-            return false;
+            return ROUTE_FAIL;
         }
     }
 
@@ -106,7 +165,7 @@ public class SmsSender {
         try {
             String defPkg = android.provider.Telephony.Sms.getDefaultSmsPackage(ctx);
             boolean isDefault = ctx.getPackageName().equals(defPkg);
-            Log.d(TAG, "[SmsSender] isDefaultSmsApp=" + isDefault + " defaultPkg=" + defPkg);
+            if (EventTrace.LOGD) Log.d(TAG, "[SmsSender] isDefaultSmsApp=" + isDefault + " defaultPkg=" + defPkg);
             return isDefault;
         } catch (Throwable t) {
             // 일부 기기에서 API 접근 불가 시 이전 방식으로 폴백(안전하게 false 처리)
@@ -115,41 +174,26 @@ public class SmsSender {
         }
     }
 
-    /** 텍스트만 들어간 MMS 한 통으로 전송 */
-    private boolean sendAsMmsText(String to, String body) {
-        File f = null;
+    /**
+     * 텍스트만 들어간 MMS 한 통으로 전송.
+     * 본문 파일은 MmsPayloadCache 에서 재사용하며, 성공 시 고정(pin)은 발송 결과가 나올 때 SmsOutbox 가 푼다.
+     */
+    private boolean sendAsMmsText(String to, String body, PendingIntent sentIntent) {
+        MmsPayloadCache cache = MmsPayloadCache.get(ctx);
+        MmsPayloadCache.Entry payload = null;
         try {
-            // 텍스트를 파일로 만들어 첨부 (text/plain)
-            File dir = new File(ctx.getCacheDir(), "mms");
-            if (!dir.exists()) dir.mkdirs();
-            f = new File(dir, "text_" + System.currentTimeMillis() + ".txt");
-            try (FileOutputStream fos = new FileOutputStream(f)) {
-                fos.write(body.getBytes(StandardCharsets.UTF_8));
-            }
-            Uri uri = FileProvider.getUriForFile(ctx, ctx.getPackageName()+".fileprovider", f);
-
-            // 기본 메시지 앱 패키지에 URI 읽기 권한 부여
-            try {
-                String defPkg = android.provider.Telephony.Sms.getDefaultSmsPackage(ctx);
-                if (defPkg != null) {
-                    ctx.grantUriPermission(defPkg, uri, Intent.FLAG_GRANT_READ_URI_PERMISSION);
-                }
-            } catch (Throwable t) {
-                Log.w(TAG, "[SmsSender] grantUriPermission failed: " + t.getMessage());
-            }
+            payload = cache.acquire(body);
 
             SmsManager sm = getDefaultSmsManager();
             Bundle overrides = null; // 캐리어 기본 설정 사용
             // locationUrl(null) → 시스템 MMSC 사용
-            sm.sendMultimediaMessage(ctx, uri, null, overrides, null);
+            sm.sendMultimediaMessage(ctx, payload.uri, null, overrides, sentIntent);
             return true;
 
         } catch (Throwable t) {
             Log.e(TAG, "[SmsSender] sendAsMmsText failed: " + t.getMessage());
+            if (payload != null) cache.release(payload.key);
             return false;
-        } finally {
-            // 파일은 캐시에 남겨두어도 무방. 즉시 삭제 원하면 아래 주석 해제
-            // if (f != null) try { f.delete(); } catch (Throwable ignore) {}
         }
     }
 }
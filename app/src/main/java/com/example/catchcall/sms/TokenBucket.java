@@ -0,0 +1,57 @@
+package com.example.catchcall.sms;
+
+/**
+ * 토큰 버킷 (발송 속도 제한).
+ * capacity 개까지 모이고, refillIntervalMs 마다 1개씩 찬다.
+ * 시각은 호출자가 넘긴다(단조 증가 시계 권장) → 테스트/벤치에서 재현 가능.
+ */
+public final class TokenBucket {
+    private final int capacity;
+    private final long refillIntervalMs;
+    private long tokens;          // 빚(음수)을 허용: 부득이한 초과 발송 뒤에는 그만큼 더 기다린다
+    private long lastRefillAt;
+
+    public TokenBucket(int capacity, long refillIntervalMs, long now) {
+        if (capacity < 1 || refillIntervalMs < 1) throw new IllegalArgumentException();
+        this.capacity = capacity;
+        this.refillIntervalMs = refillIntervalMs;
+        this.tokens = capacity;
+        this.lastRefillAt = now;
+    }
+
+    /** n 개(최대 capacity 로 잘라서 판단)가 있으면 차감하고 true */
+    public synchronized boolean tryAcquire(int n, long now) {
+        refill(now);
+        if (tokens < Math.min(n, capacity)) return false;
+        tokens -= n;
+        return true;
+    }
+
+    /** 판단 없이 차감 (폴백 경로처럼 이미 보낸 양을 반영할 때) */
+    public synchronized void consume(int n, long now) {
+        refill(now);
+        tokens -= n;
+    }
+
+    /** n 개를 얻기까지 남은 ms (0 이면 지금 가능) */
+    public synchronized long msUntil(int n, long now) {
+        refill(now);
+        long need = Math.min(n, capacity) - tokens;
+        if (need <= 0) return 0L;
+        return need * refillIntervalMs - (now - lastRefillAt);
+    }
+
+    public synchronized long available(long now) {
+        refill(now);
+        return tokens;
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefillAt;
+        if (elapsed < refillIntervalMs) return;
+        long add = elapsed / refillIntervalMs;
+        lastRefillAt += add * refillIntervalMs;
+        tokens = Math.min(capacity, tokens + add);
+        if (tokens == capacity) lastRefillAt = now;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.catchcall.data;
+
+import android.content.SharedPreferences;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * 설정 스냅샷: setter 직후 교체되는지, 테스트 모드/쿨타임이 함께 보이는지, 바뀌지 않은 템플릿/키워드는 재사용하는지.
+ * 스냅샷은 프로세스 전역이라 테스트 전체가 prefs 하나를 같이 쓰고, 테스트마다 키를 지워 기본값으로 되돌린다.
+ */
+public class SettingsSnapshotTest {
+    private static final FakePrefs PREFS = new FakePrefs();
+    private static final String[] KEYS = {"feature_enabled", "test_mode", "cooldown_sec", "template_missed",
+            "template_manner", "manner_keywords", "callback_eta_min"};
+
+    private SettingsStore store;
+
+    @Before
+    public void reset() {
+        store = new SettingsStore(PREFS);
+        store.snapshot();                   // 첫 호출에서 리스너 등록
+        SharedPreferences.Editor e = PREFS.edit();
+        for (String k : KEYS) e.remove(k);
+        e.apply();
+    }
+
+    @Test
+    public void settersReplaceSnapshotAtOnce() {
+        SettingsSnapshot before = store.snapshot();
+        assertTrue(before.featureEnabled);
+        assertEquals(5L, before.cooldownSeconds);
+
+        store.setCooldownSeconds(300);
+        assertEquals(300L, store.snapshot().cooldownSeconds);
+        store.setTestMode(true);
+        SettingsSnapshot s = store.snapshot();
+        assertTrue(s.testMode);
+        assertEquals(0L, s.cooldownSeconds);                // 테스트 모드면 0, 설정값은 그대로
+        assertEquals(300L, s.configuredCooldownSeconds);
+        store.setFeatureEnabled(false);
+        assertFalse(store.snapshot().featureEnabled);
+
+        // 이미 받아 둔 스냅샷은 바뀌지 않는다 (판단 1회 동안 같은 설정)
+        assertEquals(5L, before.cooldownSeconds);
+        assertFalse(before.testMode);
+    }
+
+    @Test
+    public void negativeValuesAreClamped() {
+        store.setCooldownSeconds(-10);
+        assertEquals(0L, store.snapshot().configuredCooldownSeconds);
+        store.setCallbackEtaMinutes(-5);
+        assertEquals(0L, store.snapshot().callbackEtaMinutes);
+    }
+
+    @Test
+    public void templatesCompileOnlyWhenChanged() {
+        store.setMissedTemplate("{name|고객}님 부재중 안내");
+        SettingsSnapshot s = store.snapshot();
+        assertEquals("{name|고객}님 부재중 안내", s.missedReply.source());
+        assertTrue(s.missedReply.isPersonalized());
+
+        store.setCooldownSeconds(60);                       // 다른 설정만 바뀜 → 같은 컴파일 결과
+        assertSame(s.missedReply, store.snapshot().missedReply);
+        assertSame(s.mannerReply, store.snapshot().mannerReply);
+
+        store.setMannerTemplate("매너콜 안내 문구");
+        assertSame(s.missedReply, store.snapshot().missedReply);
+        assertEquals("매너콜 안내 문구", store.snapshot().mannerReply.source());
+
+        store.setMissedTemplate("   ");                     // 비우면 기본 문구
+        assertEquals(store.getMissedTemplate(), store.snapshot().missedTemplate);
+        assertNotEquals("   ", store.snapshot().missedTemplate);
+    }
+
+    @Test
+    public void keywordListKeepsIdentityUntilChanged() {
+        List<String> defaults = store.snapshot().mannerKeywords;
+        assertEquals(Arrays.asList("매너콜", "콜키퍼"), defaults);
+
+        store.setMannerKeywords(" 콜키퍼 , 통화중 안내\n콜키퍼\n\n");
+        List<String> words = store.snapshot().mannerKeywords;
+        assertEquals(Arrays.asList("콜키퍼", "통화중 안내"), words);  // 공백 정리, 중복 제거
+
+        store.setTestMode(true);                            // 키워드 외 변경 → 같은 인스턴스 (매처 재생성 안 함)
+        assertSame(words, store.snapshot().mannerKeywords);
+        store.setMannerKeywords("콜키퍼,통화중 안내");        // 내용이 같으면 같은 인스턴스
+        assertSame(words, store.snapshot().mannerKeywords);
+
+        store.setMannerKeywords(" , \n ");                   // 유효한 키워드가 없으면 기본값
+        assertEquals(defaults, store.snapshot().mannerKeywords);
+        try {
+            store.snapshot().mannerKeywords.add("x");
+            fail("keyword list is mutable");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    /** 메모리 SharedPreferences (실제 구현처럼 읽기마다 락, apply 시 리스너 호출) */
+    static final class FakePrefs implements SharedPreferences {
+        private final Map<String, Object> map = new HashMap<>();
+        private final List<OnSharedPreferenceChangeListener> listeners = new ArrayList<>();
+
+        @Override public synchronized Map<String, ?> getAll() { return new HashMap<>(map); }
+        @Override public synchronized String getString(String k, String d) { Object v = map.get(k); return v != null ? (String) v : d; }
+        @SuppressWarnings("unchecked")
+        @Override public synchronized Set<String> getStringSet(String k, Set<String> d) { Object v = map.get(k); return v != null ? (Set<String>) v : d; }
+        @Override public synchronized int getInt(String k, int d) { Object v = map.get(k); return v != null ? (Integer) v : d; }
+        @Override public synchronized long getLong(String k, long d) { Object v = map.get(k); return v != null ? (Long) v : d; }
+        @Override public synchronized float getFloat(String k, float d) { Object v = map.get(k); return v != null ? (Float) v : d; }
+        @Override public synchronized boolean getBoolean(String k, boolean d) { Object v = map.get(k); return v != null ? (Boolean) v : d; }
+        @Override public synchronized boolean contains(String k) { return map.containsKey(k); }
+        @Override public Editor edit() { return new FakeEditor(); }
+        @Override public synchronized void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener l) { listeners.add(l); }
+        @Override public synchronized void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener l) { listeners.remove(l); }
+
+        private final class FakeEditor implements Editor {
+            private final Map<String, Object> puts = new HashMap<>();
+            private final Set<String> removes = new HashSet<>();
+            private boolean clear;
+
+            @Override public Editor putString(String k, String v) { puts.put(k, v); return this; }
+            @Override public Editor putStringSet(String k, Set<String> v) { puts.put(k, v); return this; }
+            @Override public Editor putInt(String k, int v) { puts.put(k, v); return this; }
+            @Override public Editor putLong(String k, long v) { puts.put(k, v); return this; }
+            @Override public Editor putFloat(String k, float v) { puts.put(k, v); return this; }
+            @Override public Editor putBoolean(String k, boolean v) { puts.put(k, v); return this; }
+            @Override public Editor remove(String k) { removes.add(k); return this; }
+            @Override public Editor clear() { clear = true; return this; }
+            @Override public boolean commit() { apply(); return true; }
+
+            @Override public void apply() {
+                List<OnSharedPreferenceChangeListener> ls;
+                Set<String> changed = new HashSet<>(puts.keySet());
+                changed.addAll(removes);
+                synchronized (FakePrefs.this) {
+                    if (clear) map.clear();
+                    for (String k : removes) map.remove(k);
+                    map.putAll(puts);
+                    ls = new ArrayList<>(listeners);
+                }
+                for (String k : changed) for (OnSharedPreferenceChangeListener l : ls) l.onSharedPreferenceChanged(FakePrefs.this, k);
+            }
+        }
+    }
+}
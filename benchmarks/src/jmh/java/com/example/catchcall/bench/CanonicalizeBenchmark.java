@@ -0,0 +1,47 @@
+package com.example.catchcall.bench;
+
+import com.example.catchcall.data.NumberKey;
+import com.example.catchcall.data.PhoneNumberCanonicalizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 번호 정규화 비용 (:core PhoneNumberCanonicalizer).
+ *
+ * 데이터: 국내/국제/대표번호/영문 발신자가 섞인 표기 코퍼스 (정규화 테스트 표와 같은 형식).
+ * legacy 는 기존 SmsReceiver.normalizeNumber (정규식 치환), key 는 할당 없는 키 계산,
+ * canonical 은 문자열 + LRU (코퍼스가 캐시보다 작아 대부분 적중).
+ */
+@State(Scope.Thread)
+public class CanonicalizeBenchmark {
+    private static final String[] CORPUS = {
+            "01012345678", "010-1234-5678", "010 1234 5678", "+821012345678", "+82 10-1234-5678",
+            "+82 (0)10 1234 5678", "821012345678", "(02) 1234-5678", "+82-31-123-4567", "+82 1588 1234",
+            "1588-1234", "114", "+1 (415) 555-0123", "001821012345678", "+12345678901234567890", "VMS",
+    };
+
+    private int i;
+
+    private String next() {
+        String s = CORPUS[i++];
+        if (i == CORPUS.length) i = 0;
+        return s;
+    }
+
+    @Benchmark
+    public String legacy() {
+        return next().replaceAll("[^0-9+]", "");
+    }
+
+    @Benchmark
+    public long key() {
+        return NumberKey.of(next());
+    }
+
+    @Benchmark
+    public String canonical() {
+        return PhoneNumberCanonicalizer.canonical(next());
+    }
+}
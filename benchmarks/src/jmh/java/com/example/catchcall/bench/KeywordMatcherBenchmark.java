@@ -0,0 +1,80 @@
+package com.example.catchcall.bench;
+
+import com.example.catchcall.domain.KeywordMatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 매너콜 키워드 판정 비용 (:core KeywordMatcher).
+ *
+ * 데이터: 안내 문자 조각을 이어 붙인 본문 2000개 (키워드 조각은 드물게 → 대부분 미매칭 경로),
+ * 키워드는 기본 2개 또는 300개. legacy 는 기존 SmsReceiver.isMannerKeyword
+ * (toLowerCase + replaceAll + contains 반복), ahoCorasick 은 본문 한 번 훑기.
+ */
+@State(Scope.Thread)
+public class KeywordMatcherBenchmark {
+    private static final int BODIES = 2_000;
+
+    @Param({"2", "300"})
+    public int keywords;
+
+    private List<String> words;
+    private KeywordMatcher matcher;
+    private String[] bodies;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        words = new ArrayList<>();
+        words.add("매너콜");
+        words.add("콜키퍼");
+        for (int n = 0; words.size() < keywords - 1; n++) words.add("안내문구" + n + "번");
+        if (keywords > 2) words.add("Call Keeper");
+        matcher = new KeywordMatcher(words);
+
+        String[] fragments = {"[Web발신] ", "고객님께서 ", "010-1234-5678 ", "으로 ", "전화하셨습니다. ",
+                "매너 콜 ", "콜키퍼 ", "통화 중 ", "부재중 ", "안내 ", "서비스 ", "Call Keeper ", "확인 바랍니다. "};
+        Random rnd = new Random(7);
+        bodies = new String[BODIES];
+        for (int b = 0; b < BODIES; b++) {
+            StringBuilder sb = new StringBuilder();
+            int n = 6 + rnd.nextInt(10);
+            for (int j = 0; j < n; j++) {
+                String f = fragments[rnd.nextInt(fragments.length)];
+                if ((f.startsWith("매너") || f.startsWith("콜키") || f.startsWith("Call")) && rnd.nextInt(4) != 0) continue;
+                sb.append(f);
+            }
+            bodies[b] = sb.toString();
+        }
+    }
+
+    private String next() {
+        String s = bodies[i++];
+        if (i == BODIES) i = 0;
+        return s;
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        String norm = next().toLowerCase(Locale.KOREA).replaceAll("\\s+", "");
+        for (String w : words) {
+            if (norm.contains(w.toLowerCase(Locale.KOREA).replaceAll("\\s+", ""))) return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public int ahoCorasick() {
+        return matcher.match(next());
+    }
+}
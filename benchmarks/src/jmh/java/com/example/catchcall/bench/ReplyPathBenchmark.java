@@ -0,0 +1,248 @@
+package com.example.catchcall.bench;
+
+import com.example.catchcall.data.NumberKey;
+import com.example.catchcall.data.PhoneNumberCanonicalizer;
+import com.example.catchcall.data.SendHistoryStore;
+import com.example.catchcall.domain.CooldownIndex;
+import com.example.catchcall.domain.KeywordMatcher;
+import com.example.catchcall.domain.ReplyPolicy;
+import com.example.catchcall.domain.ReplyRules;
+import com.example.catchcall.domain.ReplyTemplate;
+import com.example.catchcall.domain.SenderClassifier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 자동문자 판정 경로 단계별 비용 + 전체 경로 (:core).
+ *
+ * 데이터:
+ *  - 번호: 국내/국제/구분자 표기가 섞인 numbers 개 (쿨타임 인덱스 용량보다 많으면 미스 → 영구 이력 조회)
+ *  - 영구 이력: 임시 디렉터리의 SendHistoryStore (앱과 같은 mmap 인덱스), 번호 절반은 두 타입 모두 발송 이력
+ *  - 본문: 40~400자 한글/영문 문자, 1/4 은 매너콜 키워드 포함
+ *  - 발신자 규칙: 앱 기본 규칙 (res/raw/sender_rules.txt)
+ *  - 발송 규칙: ReplyRules 기본 규칙 (cooldown-both $cooldown), 앱과 같은 ReplyPolicy.ruleDecision
+ *  - 템플릿: 자리표시자 4종이 들어간 한글 안내문 (~600자), 번호마다 이름/부재중 횟수가 다름
+ *
+ * 전체 경로는 앱이 부르는 순서 그대로:
+ *  - mannerSms: ReplyPolicy.screenSms (가드 → 발신자 분류 → 키워드) → 번호 정규화 → 규칙 판정
+ *  - missedCall: 번호 정규화 → 규칙 판정 (AutoReplyUseCase)
+ * 기기 상태 가드(자기 번호, 최근 발송 echo, 중복 문자)는 앱 구현(SmsGuards)이라 늘 통과로 두고,
+ * 렌더/발송은 포함하지 않는다.
+ */
+@State(Scope.Thread)
+public class ReplyPathBenchmark {
+
+    private static final String[] KEYWORDS = {"매너콜", "콜키퍼", "통화중 안내", "Call Keeper", "부재중 전화 알림"};
+    private static final String[] FILLER = {
+            "고객님", "안녕하세요", "잠시 후 다시", "연락 부탁드립니다", "회의 중입니다", "ok", "thanks",
+            "배송 예정", "010-", "확인 부탁", "[Web발신]", "오늘", "내일", "  ", "\n", "카드 승인",
+    };
+    private static final long COOLDOWN_MS = 5 * 60_000L;
+
+    /** 서로 다른 번호 수 (CooldownIndex 기본 용량 4096 과 비교) */
+    @Param({"1000", "20000"})
+    public int numbers;
+
+    private String[] rawNumbers;
+    private String[] canonical;
+    private long[] keys;
+    private String[] senders;
+    private String[] bodies;
+    private SenderClassifier classifier;
+    private KeywordMatcher keywords;
+    private CooldownIndex cooldowns;
+    private ReplyPolicy policy;
+    private ReplyTemplate template;
+    private final ReplyTemplate.Values values = new ReplyTemplate.Values();
+    private final ReplyTemplate.Output rendered = new ReplyTemplate.Output();
+    private String[] names;
+    private SendHistoryStore store;
+    private File dir;
+    private long now;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random rnd = new Random(42);
+        now = System.currentTimeMillis();
+
+        rawNumbers = new String[numbers];
+        canonical = new String[numbers];
+        keys = new long[numbers];
+        senders = new String[numbers];
+        for (int n = 0; n < numbers; n++) {
+            String mid = String.format(Locale.ROOT, "%04d", rnd.nextInt(10_000));
+            String end = String.format(Locale.ROOT, "%04d", rnd.nextInt(10_000));
+            switch (n % 4) {
+                case 0: rawNumbers[n] = "010" + mid + end; break;
+                case 1: rawNumbers[n] = "010-" + mid + "-" + end; break;
+                case 2: rawNumbers[n] = "+8210" + mid + end; break;
+                default: rawNumbers[n] = "+82 10-" + mid + "-" + end; break;
+            }
+            canonical[n] = PhoneNumberCanonicalizer.canonical(rawNumbers[n]);
+            keys[n] = NumberKey.of(canonical[n]);
+            // 발신자: 대부분 휴대폰, 일부 대표번호/영문 발신자
+            int r = rnd.nextInt(20);
+            senders[n] = r == 0 ? "1588" + end : r == 1 ? "VMS" : rawNumbers[n];
+        }
+
+        bodies = new String[numbers];
+        for (int n = 0; n < numbers; n++) {
+            StringBuilder sb = new StringBuilder();
+            int len = 40 + rnd.nextInt(360);
+            boolean hit = rnd.nextInt(4) == 0;
+            int at = hit ? rnd.nextInt(len) : -1;
+            while (sb.length() < len) {
+                if (at >= 0 && sb.length() >= at) {
+                    sb.append(KEYWORDS[rnd.nextInt(KEYWORDS.length)]);
+                    at = -1;
+                }
+                sb.append(FILLER[rnd.nextInt(FILLER.length)]).append(' ');
+            }
+            bodies[n] = sb.toString();
+        }
+
+        classifier = SenderClassifier.compile(resource("/sender_rules.txt"));
+        List<String> words = new ArrayList<>();
+        for (String k : KEYWORDS) words.add(k);
+        keywords = new KeywordMatcher(words);
+
+        dir = Files.createTempDirectory("reply-bench").toFile();
+        store = new SendHistoryStore(dir);
+        for (int n = 0; n < numbers; n += 2) {
+            store.saveLastSent(keys[n], SendHistoryStore.TYPE_MISSED, now - rnd.nextInt(600_000));
+            store.saveLastSent(keys[n], SendHistoryStore.TYPE_MANNER, now - rnd.nextInt(600_000));
+        }
+        cooldowns = new CooldownIndex(CooldownIndex.DEFAULT_MAX_ENTRIES, new CooldownIndex.Backing() {
+            @Override public long load(long key, int type) { return store.getLastSent(key, type); }
+            @Override public void save(long key, int type, long when) {
+                try {
+                    store.saveLastSent(key, type, when);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        policy = new ReplyPolicy(classifier, keywords, (from, body, at) -> ReplyPolicy.Verdict.PASS, cooldowns);
+
+        StringBuilder tpl = new StringBuilder();
+        while (tpl.length() < 600) {
+            tpl.append("{name|고객}님, 지금은 전화를 받을 수 없어 자동으로 안내드립니다. ")
+                    .append("{time}에 주신 전화가 오늘 {missedCount}번째 부재중입니다. ")
+                    .append("{callbackEta}까지 다시 연락드리겠습니다. ");
+        }
+        template = ReplyTemplate.compile(tpl.toString());
+        names = new String[numbers];
+        for (int n = 0; n < numbers; n++) names[n] = n % 3 == 0 ? null : n % 3 == 1 ? "홍길동" : "Alex Kim";
+        values.time = now;
+        values.callbackAt = now + 30 * 60_000L;
+
+        // 판정이 실제 경로와 같은지 미리 확인 (잘못된 데이터로 재면 의미가 없음)
+        check("01012345678".equals(PhoneNumberCanonicalizer.canonical("+82 10-1234-5678")), "canonical");
+        check(policy.screenSms("15881234", "매너콜", now) == ReplyPolicy.Verdict.SPECIAL_SENDER, "carrier");
+        check(policy.screenSms("01012345678", "회의 중", now) == ReplyPolicy.Verdict.NO_KEYWORD, "keyword");
+        check(keywords.match("매 너 콜") != KeywordMatcher.NONE, "keyword spacing");
+        check(!ReplyRules.allowed(policy.ruleDecision(canonical[0], ReplyRules.MISSED, now, 60 * 60_000L)), "cooldown");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    private int next() {
+        int n = i++;
+        if (i == numbers) i = 0;
+        return n;
+    }
+
+    // ===== 단계별 =====
+
+    @Benchmark
+    public long canonicalKey() {
+        return NumberKey.of(rawNumbers[next()]);
+    }
+
+    @Benchmark
+    public String canonicalString() {
+        return PhoneNumberCanonicalizer.canonical(rawNumbers[next()]);
+    }
+
+    @Benchmark
+    public SenderClassifier.Category classifySender() {
+        return classifier.classify(senders[next()]);
+    }
+
+    @Benchmark
+    public int matchKeyword() {
+        return keywords.match(bodies[next()]);
+    }
+
+    @Benchmark
+    public long ruleDecision() {
+        return policy.ruleDecision(canonical[next()], ReplyRules.MANNER, now, COOLDOWN_MS);
+    }
+
+    @Benchmark
+    public int renderTemplate() {
+        int n = next();
+        values.name = names[n];
+        values.missedCount = 1 + (n & 7);
+        template.render(values, rendered);
+        return rendered.segments + rendered.text.length();
+    }
+
+    // ===== 전체 경로 =====
+
+    @Benchmark
+    public long missedCall() {
+        String number = PhoneNumberCanonicalizer.canonical(rawNumbers[next()]);
+        if (number == null) return -1L;
+        return policy.ruleDecision(number, ReplyRules.MISSED, now, COOLDOWN_MS);
+    }
+
+    @Benchmark
+    public long mannerSms() {
+        int n = next();
+        if (policy.screenSms(senders[n], bodies[n], now) != ReplyPolicy.Verdict.PASS) return -1L;
+        String number = PhoneNumberCanonicalizer.canonical(senders[n]);
+        if (number == null) return -1L;
+        return policy.ruleDecision(number, ReplyRules.MANNER, now, COOLDOWN_MS);
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) throw new IllegalStateException("benchmark data check failed: " + what);
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = ReplyPathBenchmark.class.getResourceAsStream(name)) {
+            if (in == null) throw new IOException(name + " not on classpath");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.catchcall.bench;
+
+import com.example.catchcall.domain.ReplyRules;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * 발송 규칙 판정 비용 (:core ReplyRules.evaluate).
+ *
+ * 데이터: 번호 1024개의 타입별 마지막 발송 시각 (1/3 은 보낸 적 없음, 나머지는 최근 30분 안).
+ * rules=default 는 기존 A~D 한 줄, full 은 방해 금지 시간 + 일일 한도 + 타입별 + 공통 쿨타임 4줄.
+ */
+@State(Scope.Thread)
+public class ReplyRulesBenchmark {
+    private static final long MIN = 60_000L;
+    // 2026-01-01 12:00 KST
+    private static final long NOW = 1767193200000L + 12 * 60 * MIN;
+
+    @Param({"default", "full"})
+    public String rules;
+
+    private ReplyRules table;
+    private int today;
+    private long[] last;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        table = "default".equals(rules) ? ReplyRules.defaults()
+                : ReplyRules.compile("quiet 23:00-07:00\ndaily-cap 5\ncooldown SAME 10m\ncooldown-both $cooldown",
+                        TimeZone.getTimeZone("Asia/Seoul"));
+        today = table.localDay(NOW);
+        last = new long[1024];
+        Random rnd = new Random(3);
+        for (int n = 0; n < last.length; n++) last[n] = rnd.nextInt(3) == 0 ? 0L : NOW - rnd.nextInt(30) * MIN;
+    }
+
+    @Benchmark
+    public long evaluate() {
+        int n = i++;
+        return table.evaluate(n & 1, last[n & 1023], last[(n + 7) & 1023], today, n & 7, NOW, 5 * MIN);
+    }
+}
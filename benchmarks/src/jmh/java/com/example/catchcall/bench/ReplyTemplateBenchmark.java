@@ -0,0 +1,71 @@
+package com.example.catchcall.bench;
+
+import com.example.catchcall.domain.ReplyTemplate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.TimeZone;
+
+/**
+ * 자동문자 렌더 비용 (:core ReplyTemplate).
+ *
+ * 데이터: 자리표시자 4종이 들어간 안내문을 600자 넘게 이어 붙인 템플릿 (UCS-2, 여러 파트),
+ * 부재중 횟수만 매번 바뀐다. replaceChain 은 발송마다 String.replace 를 이어 붙이는 방식
+ * (분할 수는 따로 세야 함), compiled 는 재사용 버퍼에 렌더 + 분할 수/인코딩 계산.
+ */
+@State(Scope.Thread)
+public class ReplyTemplateBenchmark {
+    private static final TimeZone SEOUL = TimeZone.getTimeZone("Asia/Seoul");
+    private static final long MIN = 60_000L;
+    // 2026-01-01 09:05 KST
+    private static final long TIME = 1767193200000L + 9 * 60 * MIN + 5 * MIN;
+
+    private String text;
+    private ReplyTemplate template;
+    private ReplyTemplate.Values values;
+    private ReplyTemplate.Output out;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String src = "{name|고객}님, 안녕하세요. 지금은 전화를 받을 수 없어 자동으로 안내드립니다. "
+                + "오늘 {time}에 주신 전화가 {missedCount}번째 부재중으로 확인되었습니다. "
+                + "확인하는 대로 {callbackEta}까지 다시 연락드리겠습니다. ";
+        StringBuilder b = new StringBuilder();
+        while (b.length() < 600) b.append(src);
+        text = b.toString();
+        template = ReplyTemplate.compile(text);
+        values = new ReplyTemplate.Values();
+        values.name = "홍길동";
+        values.time = TIME;
+        values.callbackAt = TIME + 30 * MIN;
+        values.zone = SEOUL;
+        out = new ReplyTemplate.Output();
+    }
+
+    @Benchmark
+    public String replaceChain() {
+        values.missedCount = 1 + (i++ & 7);
+        return text.replace("{name|고객}", values.name.toString())
+                .replace("{time}", clock(values.time))
+                .replace("{missedCount}", Integer.toString(values.missedCount))
+                .replace("{callbackEta}", clock(values.callbackAt));
+    }
+
+    @Benchmark
+    public int compiled() {
+        values.missedCount = 1 + (i++ & 7);
+        template.render(values, out);
+        return out.segments + out.text.length();
+    }
+
+    private static String clock(long when) {
+        long local = when + SEOUL.getOffset(when);
+        int minute = (int) Math.floorMod(Math.floorDiv(local, MIN), 1440L);
+        return String.format("%02d:%02d", minute / 60, minute % 60);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.catchcall.bench;
+
+import com.example.catchcall.data.NumberKey;
+import com.example.catchcall.data.SendHistoryStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * 발송 이력 저장소 조회/기록 비용 (:core SendHistoryStore, 임시 디렉터리).
+ *
+ * 데이터: "010" + 8자리 번호 entries 개, 두 타입을 번갈아 기록.
+ * lookupMiss 는 저장소에 없는 번호의 키 계산까지 포함한다. append 는 로그 압축 비용을 평균으로 포함한다.
+ */
+@State(Scope.Thread)
+public class SendHistoryStoreBenchmark {
+    private static final long T0 = 1_700_000_000_000L;
+
+    @Param({"10000", "100000", "1000000"})
+    public int entries;
+
+    private File dir;
+    private SendHistoryStore store;
+    private long[] keys;
+    private int[] order;
+    private int i;
+    private long tick;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("history-bench").toFile();
+        store = new SendHistoryStore(dir);
+        keys = new long[entries];
+        for (int n = 0; n < entries; n++) {
+            keys[n] = NumberKey.of("010" + (10_000_000 + n));
+            store.saveLastSent(keys[n], n & 1, T0 + n);
+        }
+        Random rnd = new Random(42);
+        order = new int[entries];
+        for (int n = 0; n < entries; n++) order[n] = rnd.nextInt(entries);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    private int next() {
+        int n = order[i++];
+        if (i == entries) i = 0;
+        return n;
+    }
+
+    @Benchmark
+    public long lookupHit() {
+        return store.getLastSent(keys[next()], SendHistoryStore.TYPE_MISSED);
+    }
+
+    @Benchmark
+    public long lookupMiss() {
+        return store.getLastSent(NumberKey.of("011" + (10_000_000 + next())), SendHistoryStore.TYPE_MANNER);
+    }
+
+    @Benchmark
+    public long append() throws IOException {
+        store.saveLastSent(keys[next()], SendHistoryStore.TYPE_MANNER, T0 + tick++);
+        return tick;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.catchcall.bench;
+
+import com.example.catchcall.domain.SenderClassifier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * 발신 번호 분류 비용 (:core SenderClassifier).
+ *
+ * 데이터: 실제 수신 문자에서 보이는 발신자 형식 코퍼스 (휴대폰/유선/대표번호/수신자부담/국제/영문 이름),
+ * 규칙은 앱 기본 규칙 (res/raw/sender_rules.txt). legacy 는 기존 SmsReceiver.isCarrierOrSystemAddress.
+ */
+@State(Scope.Thread)
+public class SenderClassifierBenchmark {
+    private static final String[] CORPUS = {
+            "01012345678", "+821012345678", "821012345678", "0212345678", "031-123-4567", "+82 2 1234 5678",
+            "15881234", "15447777", "16449999", "18005555", "1588", "159", "114", "1345",
+            "0801234567", "080-123-4567", "08012345678", "00700", "001821012345678", "+14155550123",
+            "#CMAS#Presidential", "VMS", "Voicemail", "voicemail@carrier", "KT", "SKTelecom", "LG U+",
+            "T world", "Samsung Card", "*86", "Anonymous", "0", "+", "1666-1234", "15 88 12 34",
+    };
+
+    private SenderClassifier classifier;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        classifier = SenderClassifier.compile(resource("/sender_rules.txt"));
+    }
+
+    private String next() {
+        String s = CORPUS[i++];
+        if (i == CORPUS.length) i = 0;
+        return s;
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        String f = next().trim();
+        if (f.isEmpty()) return true;
+        if (f.matches("^(15|16|18)\\d{2,}$")) return true;
+        if (f.startsWith("080")) return true;
+        if (f.startsWith("00")) return true;
+        String lower = f.toLowerCase(Locale.KOREA);
+        return lower.contains("voicemail") || lower.contains("vms");
+    }
+
+    @Benchmark
+    public SenderClassifier.Category trie() {
+        return classifier.classify(next());
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = SenderClassifierBenchmark.class.getResourceAsStream(name)) {
+            if (in == null) throw new IOException(name + " not on classpath");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.catchcall.data;
+
+/**
+ * 정규화된 전화번호 → long 키 변환.
+ * - 정규형은 PhoneNumberCanonicalizer 기준 ("+82 10-…" 와 "010-…" 는 같은 키)
+ * - 숫자 17자리 이하: 손실 없이 packing (선행 '+' 여부, 자릿수, 숫자값)
+ * - 그보다 길면: 64bit 해시 (최상위 비트로 구분)
+ * 숫자가 하나도 없으면 NONE(0).
+ */
+public final class NumberKey {
+    public static final long NONE = 0L;
+
+    static final int  MAX_PACKED_DIGITS = 17;          // 10^17 < 2^57
+    private static final long PLUS_BIT = 1L << 62;
+    private static final int  LEN_SHIFT = 57;
+    static final long HASH_BIT = 1L << 63;
+    static final long HASH_SEED = 0xcbf29ce484222325L; // FNV-1a (17자리 초과 시 사용)
+
+    private NumberKey() {}
+
+    public static long of(CharSequence number) {
+        return PhoneNumberCanonicalizer.key(number);
+    }
+
+    static long pack(boolean plus, int digits, long value) {
+        return (plus ? PLUS_BIT : 0L) | ((long) digits << LEN_SHIFT) | value;
+    }
+
+    static long mix(long hash, char c) {
+        return (hash ^ c) * 0x100000001b3L;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.catchcall.data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 전화번호 정규형 (리시버/저장소/가드 공용).
+ *
+ * - 구분자(공백, '-', '(', ')', '.' 등)는 버리고 숫자와 맨 앞 '+' 만 본다
+ * - 한국 번호의 국제 표기는 국내 표기로: "+82 10-1234-5678", "+82 (0)10…", "821012345678" → "01012345678"
+ *   · '+82' 뒤 국내번호 8~10자리 (앞의 0 은 있어도 됨), '+' 없는 '82' 는 뒤가 9~10자리일 때만
+ *     (국내 번호는 0/1 로 시작하므로 82 로 시작하는 10자리 이상은 국제 표기뿐)
+ *   · 대표번호 "+82 1588-1234" → "15881234" (국내에서도 0 없이 건다)
+ * - 그 밖의 '+' 번호는 "+숫자" 그대로
+ * 문자열과 NumberKey 는 같은 한 번의 스캔으로 만든다 → 같은 사람이면 어느 표기로 와도 같은 키.
+ * canonical() 은 최근 번호를 작은 LRU 에 둔다 (같은 발신자가 방송/콜로그/발송 경로에서 반복됨).
+ */
+public final class PhoneNumberCanonicalizer {
+
+    private static final int CACHE_SIZE = 64;
+    private static final int MAX_TAIL_DIGITS = 17;
+
+    private static final Map<String, String> CACHE = new LinkedHashMap<String, String>(CACHE_SIZE * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private static final String NO_DIGITS = new String("");   // 캐시용 표식 (숫자 없는 입력)
+    private static long hits;
+    private static long misses;
+
+    private PhoneNumberCanonicalizer() {}
+
+    /** 정규형 문자열 (숫자가 없으면 null) */
+    public static String canonical(String raw) {
+        if (raw == null || raw.isEmpty()) return null;
+        synchronized (CACHE) {
+            String c = CACHE.get(raw);
+            if (c != null) {
+                hits++;
+                return c == NO_DIGITS ? null : c;
+            }
+            misses++;
+        }
+        StringBuilder sb = new StringBuilder(raw.length());
+        String c = scan(raw, sb) == NumberKey.NONE ? null : sb.toString();
+        synchronized (CACHE) {
+            CACHE.put(raw, c == null ? NO_DIGITS : c);
+        }
+        return c;
+    }
+
+    /** 정규형 문자열이 있으면 그것, 없으면 원문 (prefs 키 접미사 등 문자열 그대로 쓰는 곳) */
+    public static String canonicalOrRaw(String raw) {
+        String c = canonical(raw);
+        return c == null ? raw : c;
+    }
+
+    /** 정규형의 NumberKey (할당 없음) */
+    public static long key(CharSequence raw) {
+        return raw == null ? NumberKey.NONE : scan(raw, null);
+    }
+
+    public static String stats() {
+        synchronized (CACHE) {
+            return "canonical cache size=" + CACHE.size() + " hits=" + hits + " misses=" + misses;
+        }
+    }
+
+    /**
+     * 한 번의 스캔으로 키 계산 (+ out 이 있으면 정규형 문자열도).
+     * 앞 두 자리와 나머지 값을 따로 모아 두었다가 끝에서 82 국가번호를 떼어낸다.
+     */
+    static long scan(CharSequence s, StringBuilder out) {
+        boolean plus = false;
+        int digits = 0;
+        int head = 0;           // 앞 두 자리 값
+        int third = -1;         // 셋째 자리
+        long tail = 0L;         // 셋째 자리부터의 값 (MAX_TAIL_DIGITS 까지)
+        long all = 0L;          // 전체 값 (NumberKey 압축 한도까지)
+        long hash = NumberKey.HASH_SEED;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                int d = c - '0';
+                if (digits < 2) head = head * 10 + d;
+                else if (digits - 2 < MAX_TAIL_DIGITS) tail = tail * 10 + d;
+                if (digits == 2) third = d;
+                if (digits < NumberKey.MAX_PACKED_DIGITS) all = all * 10 + d;
+                hash = NumberKey.mix(hash, c);
+                digits++;
+                if (out != null) out.append(c);
+            } else if (c == '+' && digits == 0 && !plus) {
+                plus = true;
+                hash = NumberKey.mix(hash, c);
+            }
+        }
+        if (digits == 0) return NumberKey.NONE;
+
+        if (head == 82 && digits > 2) {
+            int national = digits - 2 - (third == 0 ? 1 : 0);  // 국내번호 (0 제외) 자릿수
+            boolean korean = plus
+                    ? national >= 8 && national <= 10
+                    : third != 0 && national >= 9 && national <= 10;
+            if (korean) {
+                // 15xx/16xx/18xx 대표번호 (1로 시작하는 8자리) 는 국내에서도 0 없이 건다
+                boolean zero = !(third == 1 && national == 8);
+                if (out != null) {
+                    if (third == 0) out.delete(0, 2);           // "82 0 10…" → "010…"
+                    else out.replace(0, 2, zero ? "0" : "");    // "82 10…"   → "010…", "82 1588…" → "1588…"
+                }
+                return NumberKey.pack(false, national + (zero ? 1 : 0), tail);
+            }
+        }
+        if (out != null && plus) out.insert(0, '+');
+        if (digits > NumberKey.MAX_PACKED_DIGITS) return hash | NumberKey.HASH_BIT;
+        return NumberKey.pack(plus, digits, all);
+    }
+}
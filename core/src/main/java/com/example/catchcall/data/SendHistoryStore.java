@@ -0,0 +1,383 @@
+package com.example.catchcall.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 번호+타입별 마지막 발송 시각 저장소 (SharedPreferences 대체).
+ *
+ * - history.log : append-only 레코드 로그 [key(8) | type(1) | ts(8)]
+ * - history.idx : mmap 된 open-addressing 해시 인덱스
+ *   [key(8) | ts MISSED(8) | ts MANNER(8) | 오늘 발송 횟수(8) | 오늘 부재중 횟수(8)]
+ *   (횟수 = TYPE_DAY_COUNT / TYPE_MISSED_COUNT 자리, 값은 packed long (날 << 32 | 횟수): CooldownIndex.packDayCount)
+ *
+ * 조회는 인덱스 1회 probe(O(1)), 기록은 로그 append + 인덱스 슬롯 갱신.
+ * 인덱스 헤더에 "반영된 로그 길이"를 두고, 열 때 그 이후 로그만 재생한다.
+ * 인덱스가 없거나 깨졌으면(이전 버전 포함) 로그 전체로 다시 만든다.
+ */
+public class SendHistoryStore {
+    public static final int TYPE_MISSED = 0;
+    public static final int TYPE_MANNER = 1;
+    /** 발송 시각이 아닌 daily-cap 용 오늘 발송 횟수 (getLastSent/saveLastSent 에 같은 자리로 넘긴다) */
+    public static final int TYPE_DAY_COUNT = 2;
+    /** {missedCount} 용 오늘 부재중/매너콜 트리거 횟수 (차단된 트리거 포함, 값 형식은 TYPE_DAY_COUNT 와 같다) */
+    public static final int TYPE_MISSED_COUNT = 3;
+    private static final int TYPES = 4;
+
+    private static final String LOG_FILE = "history.log";
+    private static final String IDX_FILE = "history.idx";
+
+    private static final int MAGIC   = 0x53484958; // "SHIX"
+    private static final int VERSION = 3;            // 1: 슬롯 24바이트 (횟수 없음), 2: 32바이트 (부재중 횟수 없음)
+
+    static final int RECORD = 17;
+    private static final int HEADER = 32;            // magic, version, capacity, size, appliedLog, reserved
+    private static final int SLOT   = 8 + 8 * TYPES;
+    private static final int OFF_SIZE = 12;
+    private static final int OFF_APPLIED = 16;
+
+    static final int  MIN_CAPACITY = 1024;
+    /** 인덱스 파일(HEADER + cap * SLOT)이 int 오프셋/MappedByteBuffer 한도(2GB) 안에 드는 최대 2의 거듭제곱 (1 << 25) */
+    static final int  MAX_CAPACITY = Integer.highestOneBit((Integer.MAX_VALUE - HEADER) / SLOT);
+    private static final long MIN_LOG_COMPACT_BYTES = 64 * 1024;
+    private static final long DAY_MS = 86_400_000L;
+
+    private final File dir;
+    private FileChannel log;
+    private final ByteBuffer rec = ByteBuffer.allocate(RECORD);
+    private long logLen;
+
+    private final int maxCapacity;
+    private MappedByteBuffer idx;
+    private int capacity;
+    private int mask;
+    private int size;
+
+    public SendHistoryStore(File dir) throws IOException {
+        this(dir, MAX_CAPACITY);
+    }
+
+    /** maxCapacity: 인덱스가 더 못 커지면 새 번호가 들어올 때 가장 오래된 번호를 밀어낸다 (테스트용으로 낮출 수 있음) */
+    SendHistoryStore(File dir, int maxCapacity) throws IOException {
+        this.dir = dir;
+        this.maxCapacity = Math.max(MIN_CAPACITY, Math.min(maxCapacity, MAX_CAPACITY));
+        if (!dir.exists() && !dir.mkdirs()) throw new IOException("mkdirs failed: " + dir);
+
+        this.log = new RandomAccessFile(new File(dir, LOG_FILE), "rw").getChannel();
+        long len = log.size();
+        long whole = len - (len % RECORD);       // 기록 중 끊긴 꼬리 레코드 제거
+        if (whole != len) log.truncate(whole);
+        this.logLen = whole;
+
+        if (!openIndex()) rebuildIndex();
+    }
+
+    public static int typeOf(String type) {
+        if ("MISSED".equals(type)) return TYPE_MISSED;
+        if ("MANNER".equals(type)) return TYPE_MANNER;
+        throw new IllegalArgumentException("unknown type: " + type);
+    }
+
+    /** 번호+타입별 마지막 발송 시각 (없으면 0), TYPE_DAY_COUNT / TYPE_MISSED_COUNT 면 저장된 횟수 값 */
+    public synchronized long getLastSent(long key, int type) {
+        if (key == NumberKey.NONE) return 0L;
+        int slot = find(key);
+        return slot < 0 ? 0L : idx.getLong(slotOffset(slot) + 8 + 8 * type);
+    }
+
+    /** 두 타입 중 더 최근 발송 시각 (없으면 0) */
+    public synchronized long getLastSentAny(long key) {
+        if (key == NumberKey.NONE) return 0L;
+        int slot = find(key);
+        if (slot < 0) return 0L;
+        int off = slotOffset(slot);
+        return Math.max(idx.getLong(off + 8), idx.getLong(off + 16));
+    }
+
+    /** 번호+타입별 마지막 발송 시각 기록 (로그 append → 인덱스 반영) */
+    public synchronized void saveLastSent(long key, int type, long when) throws IOException {
+        if (key == NumberKey.NONE) return;
+        appendLog(key, type, when);
+        put(key, type, when);
+        idx.putLong(OFF_APPLIED, logLen);
+        if (logLen > MIN_LOG_COMPACT_BYTES && logLen > 4L * size * TYPES * RECORD) compactLog();
+    }
+
+    /**
+     * 두 타입 모두 cutoff 이전(또는 없음)이고 부재중 횟수도 cutoff 전날 이전인 번호를 최대 maxEntries 개 제거.
+     * 번호 단위로만 지우므로 A~D 정책 판정은 달라지지 않는다 (둘 다 쿨타임 밖 → 허용).
+     * 횟수의 날은 기기 시간대 기준이라 UTC 날과 하루까지 다를 수 있어 하루 여유를 둔다.
+     * 제거 후 로그를 인덱스 기준으로 다시 써서 재오픈 시 되살아나지 않게 한다.
+     */
+    public synchronized int evictOlderThan(long cutoff, int maxEntries) throws IOException {
+        long cutoffDay = Math.floorDiv(cutoff, DAY_MS) - 1;
+        int evicted = 0;
+        int i = 0;
+        while (i < capacity && evicted < maxEntries) {
+            int off = slotOffset(i);
+            long k = idx.getLong(off);
+            if (k != NumberKey.NONE
+                    && idx.getLong(off + 8) < cutoff
+                    && idx.getLong(off + 16) < cutoff
+                    && (idx.getLong(off + 8 + 8 * TYPE_MISSED_COUNT) >> 32) < cutoffDay) {
+                removeSlot(i);       // 뒤쪽 항목이 i 로 당겨질 수 있으니 i 를 다시 본다
+                evicted++;
+                continue;
+            }
+            i++;
+        }
+        if (evicted > 0) {
+            size -= evicted;
+            idx.putInt(OFF_SIZE, size);
+            compactLog();
+        }
+        return evicted;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long logBytes() {
+        return logLen;
+    }
+
+    public synchronized void close() throws IOException {
+        log.close();
+    }
+
+    // ===== 인덱스 =====
+
+    private boolean openIndex() {
+        File f = new File(dir, IDX_FILE);
+        if (!f.exists() || f.length() < HEADER) return false;
+        try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+            MappedByteBuffer m = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+            int cap = m.getInt(8);
+            long applied = m.getLong(OFF_APPLIED);
+            boolean valid = m.getInt(0) == MAGIC
+                    && m.getInt(4) == VERSION
+                    && cap >= MIN_CAPACITY && Integer.bitCount(cap) == 1
+                    && raf.length() == HEADER + (long) cap * SLOT
+                    && applied >= 0 && applied <= logLen && applied % RECORD == 0;
+            if (!valid) return false;
+            idx = m;
+            capacity = cap;
+            mask = cap - 1;
+            size = m.getInt(OFF_SIZE);
+            replayLog(applied);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void rebuildIndex() throws IOException {
+        File tmp = newIndex(capacityFor(logLen / RECORD));
+        size = 0;
+        replayLog(0);
+        installIndex(tmp);
+    }
+
+    private void replayLog(long from) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(RECORD * 4096);
+        long pos = from;
+        while (pos < logLen) {
+            buf.clear();
+            int n = log.read(buf, pos);
+            if (n <= 0) break;
+            buf.flip();
+            while (buf.remaining() >= RECORD) {
+                long key = buf.getLong();
+                int type = buf.get();
+                long ts = buf.getLong();
+                if (key != NumberKey.NONE && type >= TYPE_MISSED && type < TYPES) put(key, type, ts);
+                pos += RECORD;
+            }
+        }
+        idx.putLong(OFF_APPLIED, logLen);
+    }
+
+    private void put(long key, int type, long when) throws IOException {
+        int slot = find(key);
+        if (slot < 0) {
+            if ((size + 1) * 4L > capacity * 3L) {
+                if (capacity < maxCapacity) grow();
+                else evictStalest(key);      // 적재율 3/4 를 넘기지 않는다 → 빈 칸이 남아 probe 가 늘 끝난다
+            }
+            slot = insertSlot(idx, mask, key);
+            size++;
+            idx.putInt(OFF_SIZE, size);
+        }
+        idx.putLong(slotOffset(slot) + 8 + 8 * type, when);
+    }
+
+    private int find(long key) {
+        int i = mix(key) & mask;
+        while (true) {
+            long k = idx.getLong(slotOffset(i));
+            if (k == key) return i;
+            if (k == NumberKey.NONE) return -1;
+            i = (i + 1) & mask;
+        }
+    }
+
+    private static int insertSlot(MappedByteBuffer m, int mask, long key) {
+        int i = mix(key) & mask;
+        while (m.getLong(slotOffset(i)) != NumberKey.NONE) i = (i + 1) & mask;
+        m.putLong(slotOffset(i), key);
+        return i;
+    }
+
+    /**
+     * 인덱스가 최대 크기로 찼을 때: key 의 홈 위치부터 처음 만나는 클러스터에서
+     * 마지막 발송이 가장 오래된 번호 하나를 지운다 (전체 스캔 없이 O(클러스터)).
+     */
+    private void evictStalest(long key) {
+        int i = mix(key) & mask;
+        while (idx.getLong(slotOffset(i)) == NumberKey.NONE) i = (i + 1) & mask;
+        int victim = i;
+        long oldest = Long.MAX_VALUE;
+        for (int j = i; idx.getLong(slotOffset(j)) != NumberKey.NONE; j = (j + 1) & mask) {
+            int off = slotOffset(j);
+            long last = Math.max(idx.getLong(off + 8), idx.getLong(off + 16));
+            if (last < oldest) {
+                oldest = last;
+                victim = j;
+            }
+        }
+        removeSlot(victim);
+        size--;
+    }
+
+    /** linear probing 삭제: 같은 클러스터의 뒤 항목을 빈 칸으로 당긴다 */
+    private void removeSlot(int hole) {
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            int offJ = slotOffset(j);
+            long k = idx.getLong(offJ);
+            if (k == NumberKey.NONE) break;
+            int home = mix(k) & mask;
+            boolean stays = (hole <= j) ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (stays) continue;
+            int offH = slotOffset(hole);
+            idx.putLong(offH, k);
+            for (int t = 0; t < TYPES; t++) idx.putLong(offH + 8 + 8 * t, idx.getLong(offJ + 8 + 8 * t));
+            hole = j;
+        }
+        int off = slotOffset(hole);
+        idx.putLong(off, NumberKey.NONE);
+        for (int t = 0; t < TYPES; t++) idx.putLong(off + 8 + 8 * t, 0L);
+    }
+
+    private void grow() throws IOException {
+        MappedByteBuffer old = idx;
+        int oldCap = capacity;
+        File tmp = newIndex(oldCap * 2);
+        for (int i = 0; i < oldCap; i++) {
+            int off = slotOffset(i);
+            long k = old.getLong(off);
+            if (k == NumberKey.NONE) continue;
+            int to = slotOffset(insertSlot(idx, mask, k));
+            for (int t = 0; t < TYPES; t++) idx.putLong(to + 8 + 8 * t, old.getLong(off + 8 + 8 * t));
+        }
+        idx.putInt(OFF_SIZE, size);
+        idx.putLong(OFF_APPLIED, old.getLong(OFF_APPLIED));
+        installIndex(tmp);
+    }
+
+    /** 새 인덱스를 tmp 파일에 만들어 현재 인덱스로 쓴다 (채운 뒤 installIndex 로 교체) */
+    private File newIndex(int cap) throws IOException {
+        File tmp = new File(dir, IDX_FILE + ".tmp");
+        MappedByteBuffer m;
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw")) {
+            raf.setLength(0);
+            raf.setLength(HEADER + (long) cap * SLOT);
+            m = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        }
+        m.putInt(0, MAGIC);
+        m.putInt(4, VERSION);
+        m.putInt(8, cap);
+        m.putInt(OFF_SIZE, 0);
+        m.putLong(OFF_APPLIED, 0L);
+        idx = m;
+        capacity = cap;
+        mask = cap - 1;
+        return tmp;
+    }
+
+    /** 다 채운 tmp 인덱스로 교체 (교체 전 크래시 시 기존 인덱스/로그로 복구) */
+    private void installIndex(File tmp) throws IOException {
+        if (!tmp.renameTo(new File(dir, IDX_FILE))) throw new IOException("rename failed: " + tmp);
+    }
+
+    // ===== 로그 =====
+
+    private void appendLog(long key, int type, long when) throws IOException {
+        rec.clear();
+        rec.putLong(key).put((byte) type).putLong(when).flip();
+        while (rec.hasRemaining()) log.write(rec, logLen + rec.position());
+        logLen += RECORD;
+    }
+
+    /** 로그가 살아있는 항목 대비 너무 커지면 인덱스 내용으로 다시 쓴다 */
+    private void compactLog() throws IOException {
+        File tmp = new File(dir, LOG_FILE + ".tmp");
+        long written = 0;
+        try (FileChannel out = new RandomAccessFile(tmp, "rw").getChannel()) {
+            out.truncate(0);
+            ByteBuffer buf = ByteBuffer.allocate(RECORD * 4096);
+            for (int i = 0; i < capacity; i++) {
+                int off = slotOffset(i);
+                long k = idx.getLong(off);
+                if (k == NumberKey.NONE) continue;
+                for (int t = TYPE_MISSED; t < TYPES; t++) {
+                    long ts = idx.getLong(off + 8 + 8 * t);
+                    if (ts == 0L) continue;
+                    if (buf.remaining() < RECORD) written += flush(out, buf, written);
+                    buf.putLong(k).put((byte) t).putLong(ts);
+                }
+            }
+            written += flush(out, buf, written);
+        }
+        File logFile = new File(dir, LOG_FILE);
+        if (!tmp.renameTo(logFile)) throw new IOException("rename failed: " + tmp);
+        // 교체된 파일을 다시 연다 (기존 채널은 이전 파일을 가리킴)
+        FileChannel prev = log;
+        log = new RandomAccessFile(logFile, "rw").getChannel();
+        logLen = written;
+        idx.putLong(OFF_APPLIED, logLen);
+        prev.close();
+    }
+
+    private static long flush(FileChannel out, ByteBuffer buf, long at) throws IOException {
+        buf.flip();
+        long n = 0;
+        while (buf.hasRemaining()) n += out.write(buf, at + n);
+        buf.clear();
+        return n;
+    }
+
+    // ===== 유틸 =====
+
+    private static int slotOffset(int slot) {
+        return HEADER + slot * SLOT;
+    }
+
+    private int capacityFor(long entries) {
+        long cap = MIN_CAPACITY;
+        while (cap * 3 < entries * 4 && cap < maxCapacity) cap <<= 1;
+        return (int) cap;
+    }
+
+    /** 홈 슬롯 해시 (테스트에서 클러스터 위치를 고를 때도 쓴다) */
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.catchcall.domain;
+
+/**
+ * 프로세스 전역 쿨타임 인덱스 (발송 이력 앞단 메모리 캐시).
+ *
+ * - 키: NumberKey 로 packing 된 번호(long), 값: 타입별 마지막 발송 시각 2개(MISSED, MANNER)
+ * - open-addressing(linear probing) 배열 + 슬롯 인덱스 기반 LRU 이중 연결 리스트 → boxing/할당 없음
+ * - 미스 시 Backing(영구 이력)에서 읽어 채움(없음=0 도 캐시), 저장은 Backing 에 먼저 쓰고 반영(write-through)
+ * - 최대 항목 수를 넘으면 가장 오래 안 쓰인 항목부터 제거
+ * - 슬롯마다 오늘 발송 횟수(daily-cap 용)도 둔다. Backing 의 DAY_COUNT 자리로 함께 읽고 쓰므로
+ *   프로세스가 새로 뜨거나 LRU 에서 밀려나도 이어서 센다
+ * - 발송 판정은 decide() → ReplyRules 판정표 (기본 규칙 = 기존 A~D)
+ */
+public final class CooldownIndex implements ReplyPolicy.Cooldowns {
+    public static final int MISSED = 0;
+    public static final int MANNER = 1;
+
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+    /** 슬롯당 메모리: key 8 + ts 16 + prev/next 8 + day/count 8 (용량은 maxEntries 의 2배 이상) */
+    public static final int BYTES_PER_SLOT = 40;
+
+    /** daily-cap 용 오늘 발송 횟수 자리 (SendHistoryStore.TYPE_DAY_COUNT 와 같은 값) */
+    public static final int DAY_COUNT = 2;
+
+    /**
+     * 영구 이력 (SentLogRepository).
+     * type 이 MISSED/MANNER 면 마지막 발송 시각, DAY_COUNT 면 packDayCount 값 (없으면 0)
+     */
+    public interface Backing {
+        long load(long key, int type);
+        void save(long key, int type, long when);
+    }
+
+    private static volatile CooldownIndex shared;
+
+    private final Backing backing;
+    private final int maxEntries;
+    private final int mask;
+    private final long[] keys;
+    private final long[] ts;
+    private final int[] prev;
+    private final int[] next;
+    private final int[] day;      // count 를 센 날 (ReplyRules.localDay)
+    private final int[] count;    // 그날 발송 횟수
+    private volatile ReplyRules rules = ReplyRules.defaults();
+    private int head = -1;   // 가장 최근 사용
+    private int tail = -1;   // 가장 오래전 사용
+    private int size;
+
+    private long hits, misses, evictions;
+
+    public CooldownIndex(int maxEntries, Backing backing) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries < 1");
+        this.backing = backing;
+        this.maxEntries = maxEntries;
+        int cap = Integer.highestOneBit(Math.max(2, maxEntries) * 2 - 1) << 1;   // >= 2 * maxEntries
+        this.mask = cap - 1;
+        this.keys = new long[cap];
+        this.ts = new long[cap * 2];
+        this.prev = new int[cap];
+        this.next = new int[cap];
+        this.day = new int[cap];
+        this.count = new int[cap];
+    }
+
+    /** 프로세스 전역 인스턴스 (최초 호출의 backing 사용) */
+    public static CooldownIndex shared(Backing backing) {
+        CooldownIndex s = shared;
+        if (s != null) return s;
+        synchronized (CooldownIndex.class) {
+            if (shared == null) shared = new CooldownIndex(DEFAULT_MAX_ENTRIES, backing);
+            return shared;
+        }
+    }
+
+    /** 발송 규칙 교체 (다음 판정부터) */
+    public void setRules(ReplyRules rules) {
+        this.rules = rules;
+    }
+
+    public ReplyRules rules() {
+        return rules;
+    }
+
+    /**
+     * 현재 규칙으로 판정 (probe 1회, 할당 없음).
+     * @return ReplyRules.ALLOW 또는 차단 결정 (ReplyRules.reason/remainMs)
+     */
+    @Override
+    public synchronized long decide(long key, int type, long now, long cooldownMs) {
+        if (key == 0L) return ReplyRules.ALLOW;
+        int s = slotFor(key);
+        return rules.evaluate(type, ts[s * 2 + MISSED], ts[s * 2 + MANNER], day[s], count[s], now, cooldownMs);
+    }
+
+    public synchronized long lastSent(long key, int type) {
+        if (key == 0L) return 0L;
+        return ts[slotFor(key) * 2 + type];
+    }
+
+    /** 영구 이력(발송 시각 + 오늘 횟수)에 먼저 기록한 뒤 인덱스 갱신 */
+    public synchronized void saveLastSent(long key, int type, long when) {
+        if (key == 0L) {
+            backing.save(key, type, when);
+            return;
+        }
+        int s = slotFor(key);
+        int d = rules.localDay(when);
+        int c = day[s] == d ? count[s] + 1 : 1;
+        backing.save(key, type, when);
+        backing.save(key, DAY_COUNT, packDayCount(d, c));
+        ts[s * 2 + type] = when;
+        day[s] = d;
+        count[s] = c;
+    }
+
+    /** 오늘 횟수 저장 형식: 날(localDay) << 32 | 횟수 */
+    public static long packDayCount(int day, int count) {
+        return ((long) day << 32) | (count & 0xFFFFFFFFL);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized String stats() {
+        return "size=" + size + "/" + maxEntries + " hits=" + hits + " misses=" + misses + " evictions=" + evictions;
+    }
+
+    // ===== 내부 =====
+
+    /** 있으면 MRU 로 올리고, 없으면 Backing 에서 읽어 채운다 */
+    private int slotFor(long key) {
+        int i = mix(key) & mask;
+        while (keys[i] != 0L) {
+            if (keys[i] == key) {
+                hits++;
+                moveToHead(i);
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        misses++;
+        long m = backing.load(key, MISSED);
+        long n = backing.load(key, MANNER);
+        long dc = backing.load(key, DAY_COUNT);
+        if (size == maxEntries) {
+            removeSlot(tail);
+            evictions++;
+            i = mix(key) & mask;                 // 삭제로 클러스터가 당겨졌을 수 있음
+            while (keys[i] != 0L) i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        ts[i * 2 + MISSED] = m;
+        ts[i * 2 + MANNER] = n;
+        day[i] = (int) (dc >> 32);
+        count[i] = (int) dc;
+        linkHead(i);
+        size++;
+        return i;
+    }
+
+    private void linkHead(int s) {
+        prev[s] = -1;
+        next[s] = head;
+        if (head >= 0) prev[head] = s;
+        head = s;
+        if (tail < 0) tail = s;
+    }
+
+    private void unlink(int s) {
+        int p = prev[s], n = next[s];
+        if (p >= 0) next[p] = n; else head = n;
+        if (n >= 0) prev[n] = p; else tail = p;
+    }
+
+    private void moveToHead(int s) {
+        if (head == s) return;
+        unlink(s);
+        linkHead(s);
+    }
+
+    /** linear probing 삭제: 같은 클러스터 뒤 항목을 당기면서 LRU 링크도 옮긴다 */
+    private void removeSlot(int hole) {
+        unlink(hole);
+        size--;
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            long k = keys[j];
+            if (k == 0L) break;
+            int home = mix(k) & mask;
+            boolean stays = (hole <= j) ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (stays) continue;
+            moveSlot(j, hole);
+            hole = j;
+        }
+        keys[hole] = 0L;
+    }
+
+    private void moveSlot(int from, int to) {
+        keys[to] = keys[from];
+        ts[to * 2] = ts[from * 2];
+        ts[to * 2 + 1] = ts[from * 2 + 1];
+        day[to] = day[from];
+        count[to] = count[from];
+        int p = prev[from], n = next[from];
+        prev[to] = p;
+        next[to] = n;
+        if (p >= 0) next[p] = to; else head = to;
+        if (n >= 0) prev[n] = to; else tail = to;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.catchcall.domain;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 키워드 다중 매칭 (Aho-Corasick).
+ *
+ * - 생성 시 한 번 오토마톤을 만들고, 매칭은 본문 문자를 한 번 훑는다 (키워드 수와 무관)
+ * - 공백은 건너뛰고 대소문자는 접어서 비교 ("매너 콜", "CALL keeper" 도 매칭)
+ * - 전이는 (상태, 문자) → 상태 open-addressing 표 → 매칭 중 할당 없음
+ * - step()/outputOf() 로 여러 조각(멀티파트)을 이어 붙이지 않고 흘려 넣을 수 있다
+ */
+public final class KeywordMatcher implements ReplyPolicy.Keywords {
+    /** 시작 상태 */
+    public static final int START = 0;
+    /** 매칭 없음 */
+    public static final int NONE = -1;
+
+    private final String[] keywords;
+    // 전이 표: key = state << 16 | char
+    private final long[] edgeKeys;
+    private final int[] edgeVals;
+    private final int edgeMask;
+    private final int[] fail;
+    /** 이 상태에서 끝나는 키워드(없으면 실패 링크를 따라 가장 가까운 것), 없으면 NONE */
+    private final int[] output;
+
+    public KeywordMatcher(Collection<String> words) {
+        List<String> kept = new ArrayList<>();
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        trie.add(new HashMap<>());
+        terminal.add(NONE);
+
+        for (String w : words) {
+            if (w == null) continue;
+            int s = START;
+            int len = 0;
+            for (int i = 0; i < w.length(); i++) {
+                char c = w.charAt(i);
+                if (isSkipped(c)) continue;
+                c = fold(c);
+                Integer next = trie.get(s).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new HashMap<>());
+                    terminal.add(NONE);
+                    trie.get(s).put(c, next);
+                }
+                s = next;
+                len++;
+            }
+            if (len == 0 || terminal.get(s) != NONE) continue;   // 빈 키워드/중복 제외
+            terminal.set(s, kept.size());
+            kept.add(w.trim());
+        }
+        this.keywords = kept.toArray(new String[0]);
+
+        int states = trie.size();
+        int edges = states - 1;
+        int cap = Integer.highestOneBit(Math.max(4, edges * 2 - 1)) << 1;
+        this.edgeKeys = new long[cap];
+        this.edgeVals = new int[cap];
+        this.edgeMask = cap - 1;
+        Arrays.fill(edgeKeys, -1L);
+        for (int s = 0; s < states; s++) {
+            for (Map.Entry<Character, Integer> e : trie.get(s).entrySet()) {
+                putEdge(s, e.getKey(), e.getValue());
+            }
+        }
+
+        // 실패 링크 / 출력 (BFS)
+        this.fail = new int[states];
+        this.output = new int[states];
+        for (int s = 0; s < states; s++) output[s] = terminal.get(s);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : trie.get(START).values()) {
+            fail[child] = START;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            for (Map.Entry<Character, Integer> e : trie.get(s).entrySet()) {
+                char c = e.getKey();
+                int child = e.getValue();
+                int f = fail[s];
+                while (f != START && edge(f, c) < 0) f = fail[f];
+                int target = edge(f, c);
+                fail[child] = (target >= 0 && target != child) ? target : START;
+                if (output[child] == NONE) output[child] = output[fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    public int size() {
+        return keywords.length;
+    }
+
+    public String keyword(int index) {
+        return keywords[index];
+    }
+
+    /** 처음 끝나는 키워드 번호, 없으면 NONE */
+    public int match(CharSequence text) {
+        if (text == null) return NONE;
+        int s = START;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            s = step(s, text.charAt(i));
+            int out = output[s];
+            if (out != NONE) return out;
+        }
+        return NONE;
+    }
+
+    /** 처음 끝나는 키워드 문자열, 없으면 null */
+    @Override
+    public String find(CharSequence text) {
+        int i = match(text);
+        return i == NONE ? null : keywords[i];
+    }
+
+    /** 문자 하나 진행 (공백은 상태 유지) */
+    public int step(int state, char c) {
+        if (isSkipped(c)) return state;
+        c = fold(c);
+        int s = state;
+        while (true) {
+            int next = edge(s, c);
+            if (next >= 0) return next;
+            if (s == START) return START;
+            s = fail[s];
+        }
+    }
+
+    /** 이 상태에서 끝난 키워드 번호, 없으면 NONE */
+    public int outputOf(int state) {
+        return output[state];
+    }
+
+    // ===== 내부 =====
+
+    static boolean isSkipped(char c) {
+        return Character.isWhitespace(c) || Character.isSpaceChar(c);
+    }
+
+    static char fold(char c) {
+        return c < 0x80 ? (c >= 'A' && c <= 'Z' ? (char) (c + 32) : c) : Character.toLowerCase(c);
+    }
+
+    private int edge(int state, char c) {
+        long key = ((long) state << 16) | c;
+        int i = mix(key) & edgeMask;
+        while (true) {
+            long k = edgeKeys[i];
+            if (k == key) return edgeVals[i];
+            if (k == -1L) return -1;
+            i = (i + 1) & edgeMask;
+        }
+    }
+
+    private void putEdge(int state, char c, int to) {
+        long key = ((long) state << 16) | c;
+        int i = mix(key) & edgeMask;
+        while (edgeKeys[i] != -1L) i = (i + 1) & edgeMask;
+        edgeKeys[i] = key;
+        edgeVals[i] = to;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 29));
+    }
+}
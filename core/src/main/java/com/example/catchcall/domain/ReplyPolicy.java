@@ -0,0 +1,71 @@
+package com.example.catchcall.domain;
+
+import com.example.catchcall.data.NumberKey;
+
+/**
+ * 자동문자 발송 판정 단계 (순수 Java, 앱과 JVM 벤치마크가 같은 코드를 쓴다).
+ *
+ * 단계:
+ *  - 매너콜 문자 선별: 기기 상태 가드(echo/자기 번호/중복) → 발신자 분류(통신사/특수번호면 중단) → 본문 키워드
+ *  - 발송 규칙: 정규화된 번호 하나에 대해 ReplyRules (쿨타임 / 일일 한도 / 방해 금지 시간)
+ * 각 단계는 아래 인터페이스 뒤에 있다
+ * (SenderClassifier / KeywordMatcher / 앱 SmsGuards / CooldownIndex).
+ * 앱 리시버는 키워드를 분할 문자 재조립 중에 이미 찾으므로 screenSender 까지만 부르고,
+ * UseCase 는 번호 정규화 뒤 ruleDecision 을 부른다.
+ */
+public final class ReplyPolicy {
+
+    /** 문자 선별 결과 (PASS 가 아니면 그 단계에서 중단) */
+    public enum Verdict { PASS, ECHO, SELF, DUPLICATE, SPECIAL_SENDER, NO_KEYWORD }
+
+    /** 발신자 분류 */
+    public interface Senders {
+        SenderClassifier.Category classify(CharSequence address);
+    }
+
+    /** 본문 키워드 (없으면 null) */
+    public interface Keywords {
+        String find(CharSequence text);
+    }
+
+    /** 기기 상태 가드: 최근 발송 echo / 자기 번호 / 같은 문자 재도착. 통과면 PASS */
+    public interface Guards {
+        Verdict check(String from, String body, long now);
+    }
+
+    /** 번호별 발송 규칙 판정 (ReplyRules 결정값: ALLOW 또는 사유/남은 ms) */
+    public interface Cooldowns {
+        long decide(long key, int type, long now, long cooldownMs);
+    }
+
+    private final Senders senders;
+    private final Keywords keywords;
+    private final Guards guards;
+    private final Cooldowns cooldowns;
+
+    public ReplyPolicy(Senders senders, Keywords keywords, Guards guards, Cooldowns cooldowns) {
+        this.senders = senders;
+        this.keywords = keywords;
+        this.guards = guards;
+        this.cooldowns = cooldowns;
+    }
+
+    /** 가드 → 발신자 분류 (키워드는 보지 않는다) */
+    public Verdict screenSender(String from, String body, long now) {
+        Verdict v = guards.check(from, body, now);
+        if (v != Verdict.PASS) return v;
+        return senders.classify(from) == SenderClassifier.Category.NORMAL ? Verdict.PASS : Verdict.SPECIAL_SENDER;
+    }
+
+    /** 가드 → 발신자 분류 → 본문 키워드 */
+    public Verdict screenSms(String from, String body, long now) {
+        Verdict v = screenSender(from, body, now);
+        if (v != Verdict.PASS) return v;
+        return keywords.find(body) != null ? Verdict.PASS : Verdict.NO_KEYWORD;
+    }
+
+    /** 정규화된 번호의 규칙 판정. ReplyRules 결정값 */
+    public long ruleDecision(String number, int type, long now, long cooldownMs) {
+        return cooldowns.decide(NumberKey.of(number), type, now, Math.max(0L, cooldownMs));
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.catchcall.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * 발송 정책 규칙 (선언형 텍스트 → 평평한 판정표로 한 번 컴파일).
+ *
+ * 형식 (한 줄에 규칙 하나, '#' 뒤는 주석, 위에서부터 처음 막는 규칙이 결정):
+ *   cooldown-both  <기간>              두 타입 모두 보낸 적 있고 마지막 발송 후 기간 안 지남 → 차단 (기존 A~D)
+ *   cooldown       <대상> <기간>       대상 타입의 마지막 발송 후 기간 안 지남 → 차단
+ *                                      대상: MISSED / MANNER / SAME(이번 요청과 같은 타입) / ANY
+ *   daily-cap      <횟수>              오늘(기기 시간대) 이 번호로 보낸 횟수가 횟수 이상 → 차단
+ *   quiet          <HH:MM>-<HH:MM>     이 시간대(기기 시간대, 자정 넘김 가능)에는 차단
+ *   기간: 30s / 10m / 2h / 1d / $cooldown(설정 쿨타임, 0 이면 규칙 꺼짐)
+ *
+ * 평가는 번호별 고정 상태(타입별 마지막 발송 시각, 오늘 날짜, 오늘 횟수)만 보고,
+ * 규칙마다 상수 시간·할당 없음. 결과는 long 하나에 (사유, 규칙 번호, 남은 ms) 를 담는다.
+ */
+public final class ReplyRules {
+
+    /** 기존 A~D 정책 그대로 */
+    public static final String DEFAULT = "cooldown-both $cooldown\n";
+
+    public static final int MISSED = CooldownIndex.MISSED;
+    public static final int MANNER = CooldownIndex.MANNER;
+
+    public enum Reason { ALLOW, COOLDOWN_BOTH, COOLDOWN, DAILY_CAP, QUIET_HOURS }
+
+    private static final Reason[] REASONS = Reason.values();
+
+    public static final long ALLOW = 0L;
+
+    private static final int OP_COOLDOWN_BOTH = 0;
+    private static final int OP_COOLDOWN = 1;
+    private static final int OP_DAILY_CAP = 2;
+    private static final int OP_QUIET = 3;
+
+    private static final int T_MISSED = MISSED;
+    private static final int T_MANNER = MANNER;
+    private static final int T_SAME = 2;
+    private static final int T_ANY = 3;
+
+    private static final long FROM_SETTING = -1L;       // 기간 = 설정 쿨타임
+    private static final long DAY_MS = 86_400_000L;
+    private static final long MINUTE_MS = 60_000L;
+    private static final long REMAIN_MASK = (1L << 48) - 1;
+    private static final int MAX_RULES = 255;
+
+    // 판정표 (규칙 i = 각 배열의 i 번째)
+    private final int[] op;
+    private final int[] target;
+    private final long[] arg;           // 기간 ms / 횟수 / (시작분 << 16 | 끝분)
+    private final String[] source;      // 원문 (설명용)
+    private final TimeZone zone;
+
+    private ReplyRules(int[] op, int[] target, long[] arg, String[] source, TimeZone zone) {
+        this.op = op;
+        this.target = target;
+        this.arg = arg;
+        this.source = source;
+        this.zone = zone;
+    }
+
+    public static ReplyRules defaults() {
+        return compile(DEFAULT);
+    }
+
+    public static ReplyRules compile(String text) {
+        return compile(text, TimeZone.getDefault());
+    }
+
+    /**
+     * 규칙 텍스트 컴파일.
+     * @throws IllegalArgumentException 형식이 잘못된 줄이 있으면 (줄 번호 포함)
+     */
+    public static ReplyRules compile(String text, TimeZone zone) {
+        List<int[]> ops = new ArrayList<>();
+        List<Long> args = new ArrayList<>();
+        List<String> src = new ArrayList<>();
+        String[] lines = text == null ? new String[0] : text.split("\n");
+        for (int ln = 0; ln < lines.length; ln++) {
+            String line = lines[ln];
+            int hash = line.indexOf('#');
+            if (hash >= 0) line = line.substring(0, hash);
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            String[] f = line.split("\\s+");
+            try {
+                String name = f[0].toLowerCase(Locale.ROOT);
+                switch (name) {
+                    case "cooldown-both":
+                        expect(f, 2);
+                        ops.add(new int[]{OP_COOLDOWN_BOTH, T_ANY});
+                        args.add(parseDuration(f[1]));
+                        break;
+                    case "cooldown":
+                        expect(f, 3);
+                        ops.add(new int[]{OP_COOLDOWN, parseTarget(f[1])});
+                        args.add(parseDuration(f[2]));
+                        break;
+                    case "daily-cap":
+                        expect(f, 2);
+                        int cap = Integer.parseInt(f[1]);
+                        if (cap < 1) throw new IllegalArgumentException("cap < 1");
+                        ops.add(new int[]{OP_DAILY_CAP, T_ANY});
+                        args.add((long) cap);
+                        break;
+                    case "quiet":
+                        expect(f, 2);
+                        ops.add(new int[]{OP_QUIET, T_ANY});
+                        args.add(parseWindow(f[1]));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown rule " + f[0]);
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("line " + (ln + 1) + ": " + e.getMessage(), e);
+            }
+            src.add(line);
+        }
+        if (ops.size() > MAX_RULES) throw new IllegalArgumentException("too many rules: " + ops.size());
+
+        int n = ops.size();
+        int[] op = new int[n];
+        int[] target = new int[n];
+        long[] arg = new long[n];
+        for (int i = 0; i < n; i++) {
+            op[i] = ops.get(i)[0];
+            target[i] = ops.get(i)[1];
+            arg[i] = args.get(i);
+        }
+        return new ReplyRules(op, target, arg, src.toArray(new String[0]), zone);
+    }
+
+    public int size() {
+        return op.length;
+    }
+
+    /**
+     * 판정 (할당 없음).
+     * @param type       이번 요청 타입 (MISSED / MANNER)
+     * @param lastMissed 이 번호의 마지막 부재중 발송 시각 (없으면 0)
+     * @param lastManner 이 번호의 마지막 매너콜 발송 시각 (없으면 0)
+     * @param countDay   dayCount 를 센 날 (localDay)
+     * @param dayCount   그날 보낸 횟수
+     * @param cooldownMs 설정 쿨타임 ($cooldown)
+     * @return ALLOW(0) 또는 차단 결정 (reason/rule/remainMs 로 풀어 본다)
+     */
+    public long evaluate(int type, long lastMissed, long lastManner, int countDay, int dayCount,
+                         long now, long cooldownMs) {
+        for (int i = 0; i < op.length; i++) {
+            long remain = 0L;
+            switch (op[i]) {
+                case OP_COOLDOWN_BOTH: {
+                    long d = duration(i, cooldownMs);
+                    if (lastMissed > 0 && lastManner > 0 && d > 0) {
+                        remain = d - (now - Math.max(lastMissed, lastManner));
+                    }
+                    break;
+                }
+                case OP_COOLDOWN: {
+                    long d = duration(i, cooldownMs);
+                    int t = target[i] == T_SAME ? type : target[i];
+                    long last = t == T_MISSED ? lastMissed
+                            : t == T_MANNER ? lastManner
+                            : Math.max(lastMissed, lastManner);
+                    if (last > 0 && d > 0) remain = d - (now - last);
+                    break;
+                }
+                case OP_DAILY_CAP: {
+                    if (countDay == localDay(now) && dayCount >= arg[i]) {
+                        remain = nextDayStart(now) - now;
+                    }
+                    break;
+                }
+                case OP_QUIET: {
+                    long local = now + zone.getOffset(now);
+                    int minute = (int) Math.floorMod(local / MINUTE_MS, 1440L);
+                    int start = (int) (arg[i] >>> 16), end = (int) (arg[i] & 0xFFFF);
+                    boolean inside = start <= end ? (minute >= start && minute < end)
+                            : (minute >= start || minute < end);
+                    if (inside) {
+                        int left = end > minute ? end - minute : end + 1440 - minute;
+                        remain = left * MINUTE_MS - Math.floorMod(local, MINUTE_MS);
+                        if (remain <= 0) remain = 1L;
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+            if (remain > 0) return pack(op[i] + 1, i, remain);
+        }
+        return ALLOW;
+    }
+
+    /**
+     * 판정에 필요한 발송 이력 기간: 가장 긴 쿨타임, daily-cap 이 있으면 최소 하루.
+     * 이보다 오래된 이력은 지워도 판정이 달라지지 않는다 (PrefsCompactor).
+     */
+    public long historyHorizonMs(long cooldownMs) {
+        long horizon = 0L;
+        for (int i = 0; i < op.length; i++) {
+            if (op[i] == OP_COOLDOWN_BOTH || op[i] == OP_COOLDOWN) horizon = Math.max(horizon, duration(i, cooldownMs));
+            else if (op[i] == OP_DAILY_CAP) horizon = Math.max(horizon, DAY_MS);
+        }
+        return horizon;
+    }
+
+    /** 기기 시간대 기준 날짜 번호 (daily-cap 용) */
+    public int localDay(long when) {
+        return (int) Math.floorDiv(when + zone.getOffset(when), DAY_MS);
+    }
+
+    public static boolean allowed(long decision) {
+        return decision == ALLOW;
+    }
+
+    public static Reason reason(long decision) {
+        return REASONS[(int) (decision >>> 56)];
+    }
+
+    public static int rule(long decision) {
+        return (int) ((decision >>> 48) & 0xFF);
+    }
+
+    public static long remainMs(long decision) {
+        return decision & REMAIN_MASK;
+    }
+
+    /** 로그용 설명 */
+    public String describe(long decision) {
+        if (decision == ALLOW) return "ALLOW";
+        int r = rule(decision);
+        return reason(decision) + " remainMs=" + remainMs(decision)
+                + (r < source.length ? " rule#" + (r + 1) + "='" + source[r] + "'" : "");
+    }
+
+    // ===== 내부 =====
+
+    private long duration(int i, long cooldownMs) {
+        return arg[i] == FROM_SETTING ? cooldownMs : arg[i];
+    }
+
+    private long nextDayStart(long now) {
+        long start = (long) (localDay(now) + 1) * DAY_MS;
+        return start - zone.getOffset(now);
+    }
+
+    private static long pack(int reason, int rule, long remain) {
+        return ((long) reason << 56) | ((long) rule << 48) | Math.min(remain, REMAIN_MASK);
+    }
+
+    private static void expect(String[] f, int n) {
+        if (f.length != n) throw new IllegalArgumentException(f[0] + " expects " + (n - 1) + " argument(s)");
+    }
+
+    private static int parseTarget(String s) {
+        switch (s.toUpperCase(Locale.ROOT)) {
+            case "MISSED": return T_MISSED;
+            case "MANNER": return T_MANNER;
+            case "SAME": return T_SAME;
+            case "ANY": return T_ANY;
+            default: throw new IllegalArgumentException("target " + s);
+        }
+    }
+
+    static long parseDuration(String s) {
+        if ("$cooldown".equalsIgnoreCase(s)) return FROM_SETTING;
+        if (s.length() < 2) throw new IllegalArgumentException("duration " + s);
+        long n = Long.parseLong(s.substring(0, s.length() - 1));
+        if (n < 0) throw new IllegalArgumentException("duration " + s);
+        switch (Character.toLowerCase(s.charAt(s.length() - 1))) {
+            case 's': return n * 1000L;
+            case 'm': return n * MINUTE_MS;
+            case 'h': return n * 60 * MINUTE_MS;
+            case 'd': return n * DAY_MS;
+            default: throw new IllegalArgumentException("duration unit " + s);
+        }
+    }
+
+    private static long parseWindow(String s) {
+        int dash = s.indexOf('-');
+        if (dash < 0) throw new IllegalArgumentException("window " + s);
+        int start = parseClock(s.substring(0, dash)) % 1440;
+        int end = parseClock(s.substring(dash + 1));           // 24:00 = 1440 (00:00-24:00 은 하루 종일)
+        if (start == end % 1440 && end != 1440) throw new IllegalArgumentException("empty window " + s);
+        return ((long) start << 16) | end;
+    }
+
+    private static int parseClock(String s) {
+        int colon = s.indexOf(':');
+        if (colon < 0) throw new IllegalArgumentException("time " + s);
+        int h = Integer.parseInt(s.substring(0, colon));
+        int m = Integer.parseInt(s.substring(colon + 1));
+        if (h < 0 || h > 24 || m < 0 || m > 59 || (h == 24 && m != 0)) throw new IllegalArgumentException("time " + s);
+        return h * 60 + m;
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.catchcall.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * 자동문자 템플릿 (저장할 때 한 번 리터럴/슬롯 조각으로 컴파일 → 발송마다 재사용 버퍼에 렌더).
+ *
+ * 자리표시자:
+ *   {name}         연락처 이름
+ *   {time}         전화(문자)를 받은 시각 HH:mm
+ *   {missedCount}  오늘 이 번호의 부재중 횟수
+ *   {callbackEta}  다시 연락드릴 예정 시각 HH:mm
+ *   {name|고객}    값이 없을 때 '|' 뒤 문구로 대신
+ *   {{ ... }}      짝을 이룬 {{ }} 는 중괄호 하나씩으로 (겹치지 않음). 짝 없는 {{ 나 }} 는
+ *                  그대로 둔다 (예전에 저장한 ":-}}" 같은 문구가 바뀌지 않게). 모르는 {이름} 도 그대로
+ *
+ * 렌더는 조각을 이어 붙이면서 GSM 7bit 가능 여부와 길이를 함께 세어
+ * 분할 수/인코딩을 돌려준다 (발송 경로가 본문을 다시 훑지 않고 SMS/MMS 를 고른다).
+ * 리터럴 조각의 인코딩/길이는 컴파일 때 미리 계산해 둔다.
+ */
+public final class ReplyTemplate {
+
+    /** SmsMessage.ENCODING_7BIT / ENCODING_16BIT 와 같은 값 */
+    public static final int ENCODING_7BIT = 1;
+    public static final int ENCODING_16BIT = 3;
+
+    private static final int SLOT_LITERAL = -1;
+    private static final int SLOT_NAME = 0;
+    private static final int SLOT_TIME = 1;
+    private static final int SLOT_MISSED_COUNT = 2;
+    private static final int SLOT_CALLBACK_ETA = 3;
+    private static final String[] SLOT_NAMES = {"name", "time", "missedCount", "callbackEta"};
+
+    // 단문 한도 (단일 / 연결 메시지 파트당, UDH 6바이트 제외)
+    private static final int GSM_SINGLE = 160, GSM_PART = 153;
+    private static final int UCS2_SINGLE = 70, UCS2_PART = 67;
+
+    /** 렌더 입력 (발송마다 값만 바꿔 재사용) */
+    public static final class Values {
+        public CharSequence name;       // 없으면 null
+        public long time;               // epoch ms, 0 이면 없음
+        public int missedCount;         // 0 이하면 없음
+        public long callbackAt;         // epoch ms, 0 이면 없음
+        public TimeZone zone = TimeZone.getDefault();
+    }
+
+    /** 렌더 결과 (스레드마다 하나를 재사용: text 는 매번 비우고 다시 채운다) */
+    public static final class Output {
+        public final StringBuilder text = new StringBuilder(768);
+        public int segments;
+        public int encoding;
+        /** 전체 길이 (7bit 면 septet, 아니면 UTF-16 code unit) */
+        public int codeUnits;
+        /** 마지막 파트에 남은 길이 */
+        public int codeUnitsRemaining;
+    }
+
+    // 조각 표 (i 번째 조각 = 각 배열의 i 번째)
+    private final String source;
+    private final int[] slot;
+    private final String[] literal;         // 리터럴 조각 또는 슬롯 기본값 (없으면 "")
+    private final boolean[] gsm;            // literal 이 7bit 로 표현 가능한가
+    private final int[] septets;            // literal 의 septet 수 (확장 문자는 2)
+    private final boolean personalized;
+
+    private ReplyTemplate(String source, int[] slot, String[] literal) {
+        this.source = source;
+        this.slot = slot;
+        this.literal = literal;
+        this.gsm = new boolean[slot.length];
+        this.septets = new int[slot.length];
+        boolean any = false;
+        for (int i = 0; i < slot.length; i++) {
+            int n = septets(literal[i]);
+            gsm[i] = n >= 0;
+            septets[i] = Math.max(n, 0);
+            any |= slot[i] != SLOT_LITERAL;
+        }
+        this.personalized = any;
+    }
+
+    /** 템플릿 문자열 컴파일 (형식 오류 없음: 해석 못 하는 부분은 리터럴) */
+    public static ReplyTemplate compile(String text) {
+        String src = text == null ? "" : text;
+        List<Integer> slots = new ArrayList<>();
+        List<String> parts = new ArrayList<>();
+        StringBuilder lit = new StringBuilder();
+        int i = 0, n = src.length();
+        int escapeClose = -1;       // 열린 {{ 의 짝 }} 위치
+        while (i < n) {
+            char c = src.charAt(i);
+            if (c == '{' && escapeClose < i && src.startsWith("{{", i)) {
+                int close = src.indexOf("}}", i + 2);
+                if (close >= 0) {                       // 짝이 있는 {{ → '{'
+                    escapeClose = close;
+                    lit.append('{');
+                    i += 2;
+                    continue;
+                }
+            } else if (c == '}' && i == escapeClose) {  // 열린 {{ 를 닫는 }} → '}'
+                lit.append('}');
+                i += 2;
+                continue;
+            }
+            if (c == '{') {
+                int close = src.indexOf('}', i + 1);
+                int s = close < 0 ? SLOT_LITERAL : slotOf(src, i + 1, close);
+                if (s != SLOT_LITERAL) {
+                    if (lit.length() > 0) {
+                        slots.add(SLOT_LITERAL);
+                        parts.add(lit.toString());
+                        lit.setLength(0);
+                    }
+                    int bar = src.indexOf('|', i + 1);
+                    slots.add(s);
+                    parts.add(bar >= 0 && bar < close ? src.substring(bar + 1, close) : "");
+                    i = close + 1;
+                    continue;
+                }
+            }
+            lit.append(c);
+            i++;
+        }
+        if (lit.length() > 0 || slots.isEmpty()) {
+            slots.add(SLOT_LITERAL);
+            parts.add(lit.toString());
+        }
+        int[] slot = new int[slots.size()];
+        for (int k = 0; k < slot.length; k++) slot[k] = slots.get(k);
+        return new ReplyTemplate(src, slot, parts.toArray(new String[0]));
+    }
+
+    public String source() {
+        return source;
+    }
+
+    /** 자리표시자가 하나라도 있나 (없으면 렌더 결과가 값과 무관하게 늘 같다. source 와는 {{ }} 만큼 다를 수 있다) */
+    public boolean isPersonalized() {
+        return personalized;
+    }
+
+    public int pieces() {
+        return slot.length;
+    }
+
+    /** out.text 를 비우고 렌더 + 분할 수/인코딩 계산 (할당 없음, 버퍼가 모자랄 때만 늘어남) */
+    public void render(Values v, Output out) {
+        StringBuilder sb = out.text;
+        sb.setLength(0);
+        boolean allGsm = true;
+        int sept = 0;
+        for (int i = 0; i < slot.length; i++) {
+            int start = sb.length();
+            boolean filled = slot[i] != SLOT_LITERAL && appendSlot(slot[i], v, sb);
+            if (filled) {
+                if (allGsm) {
+                    int n = septets(sb, start, sb.length());
+                    if (n < 0) allGsm = false;
+                    else sept += n;
+                }
+            } else {
+                sb.append(literal[i]);              // 리터럴 또는 슬롯 기본값
+                if (allGsm) {
+                    if (gsm[i]) sept += septets[i];
+                    else allGsm = false;
+                }
+            }
+        }
+        if (allGsm) {
+            measure(out, ENCODING_7BIT, sept, GSM_SINGLE, GSM_PART);
+        } else {
+            measure(out, ENCODING_16BIT, sb.length(), UCS2_SINGLE, UCS2_PART);
+        }
+    }
+
+    /** 편의용 (미리보기 등): 새 Output 에 렌더한 본문 */
+    public String render(Values v) {
+        Output out = new Output();
+        render(v, out);
+        return out.text.toString();
+    }
+
+    // ===== 내부 =====
+
+    private static int slotOf(String src, int from, int close) {
+        int bar = src.indexOf('|', from);
+        int end = bar >= 0 && bar < close ? bar : close;
+        for (int s = 0; s < SLOT_NAMES.length; s++) {
+            String name = SLOT_NAMES[s];
+            if (end - from == name.length() && src.regionMatches(from, name, 0, name.length())) return s;
+        }
+        return SLOT_LITERAL;
+    }
+
+    /** 슬롯 값 붙이기 (값이 없으면 false → 기본값) */
+    private static boolean appendSlot(int s, Values v, StringBuilder sb) {
+        switch (s) {
+            case SLOT_NAME:
+                if (v.name == null || v.name.length() == 0) return false;
+                sb.append(v.name);
+                return true;
+            case SLOT_TIME:
+                if (v.time <= 0) return false;
+                appendClock(sb, v.time, v.zone);
+                return true;
+            case SLOT_MISSED_COUNT:
+                if (v.missedCount <= 0) return false;
+                sb.append(v.missedCount);
+                return true;
+            case SLOT_CALLBACK_ETA:
+                if (v.callbackAt <= 0) return false;
+                appendClock(sb, v.callbackAt, v.zone);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static void appendClock(StringBuilder sb, long when, TimeZone zone) {
+        long local = when + zone.getOffset(when);
+        int minute = (int) Math.floorMod(Math.floorDiv(local, 60_000L), 1440L);
+        int h = minute / 60, m = minute % 60;
+        sb.append((char) ('0' + h / 10)).append((char) ('0' + h % 10)).append(':')
+                .append((char) ('0' + m / 10)).append((char) ('0' + m % 10));
+    }
+
+    private static void measure(Output out, int encoding, int units, int single, int part) {
+        out.encoding = encoding;
+        out.codeUnits = units;
+        if (units <= single) {
+            out.segments = 1;
+            out.codeUnitsRemaining = single - units;
+        } else {
+            out.segments = (units + part - 1) / part;
+            out.codeUnitsRemaining = out.segments * part - units;
+        }
+    }
+
+    // ----- GSM 03.38 기본/확장 문자표 -----
+
+    private static final String GSM_BASIC =         // 0x1B(ESC) 는 문자가 아니므로 뺐다
+            "@£$¥èéùìòÇ\nØø\rÅåΔ_ΦΓΛΩΠΨΣΘΞÆæßÉ !\"#¤%&'()*+,-./0123456789:;<=>?"
+                    + "¡ABCDEFGHIJKLMNOPQRSTUVWXYZÄÖÑÜ§¿abcdefghijklmnopqrstuvwxyzäöñüà";
+    private static final String GSM_EXTENDED = "\f^{}\\[~]|€";
+    private static final int TABLE = 0x400;
+    private static final byte[] COST = new byte[TABLE];     // 0 = 불가, 1 = 기본, 2 = 확장(ESC + 문자)
+
+    static {
+        for (int i = 0; i < GSM_BASIC.length(); i++) {
+            COST[GSM_BASIC.charAt(i)] = 1;
+        }
+        for (int i = 0; i < GSM_EXTENDED.length(); i++) {
+            char c = GSM_EXTENDED.charAt(i);
+            if (c < TABLE) COST[c] = 2;
+        }
+    }
+
+    private static int cost(char c) {
+        if (c < TABLE) return COST[c];
+        return c == '€' ? 2 : 0;
+    }
+
+    /** septet 수, 7bit 로 못 쓰는 문자가 있으면 -1 */
+    static int septets(CharSequence s) {
+        return septets(s, 0, s.length());
+    }
+
+    private static int septets(CharSequence s, int from, int to) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            int c = cost(s.charAt(i));
+            if (c == 0) return -1;
+            n += c;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.catchcall.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 발신 번호 분류기 (통신사/음성사서함/수신자부담/국제/일반).
+ *
+ * - 규칙 파일(res/raw/sender_rules.txt, filesDir 덮어쓰기 가능)을 숫자 트라이로 컴파일
+ * - 노드마다 "자릿수 → 분류" 표를 미리 채워 두어(조상 규칙 상속), 분류는 주소를 한 번 훑고
+ *   마지막 도달 노드 + 전체 자릿수로 끝난다 → 할당 없음
+ * - 영문/문자 발신자 이름은 tag: 규칙(KeywordMatcher)으로 같은 루프에서 판정
+ * - 규칙 파일 로딩/핫 리로드는 앱 쪽 SenderRules 가 담당 (여기는 순수 Java)
+ */
+public final class SenderClassifier implements ReplyPolicy.Senders {
+    public enum Category { NORMAL, CARRIER, VOICEMAIL, TOLL_FREE, INTERNATIONAL }
+
+    private static final Category[] CATEGORIES = Category.values();
+    /** 이 이상 자릿수는 한 칸으로 본다 */
+    static final int MAX_DIGITS = 31;
+    private static final int SYMBOLS = 11;            // 0~9, '+'
+    private static final int LENS = MAX_DIGITS + 1;
+
+    private final int[] children;     // node * SYMBOLS + sym → 자식 노드 (0 = 없음)
+    private final byte[] table;       // node * LENS + 자릿수 → 분류 ordinal
+    private final KeywordMatcher tags;
+    private final Category[] tagCategories;
+    private final int ruleCount;
+
+    private SenderClassifier(int[] children, byte[] table, KeywordMatcher tags, Category[] tagCategories, int ruleCount) {
+        this.children = children;
+        this.table = table;
+        this.tags = tags;
+        this.tagCategories = tagCategories;
+        this.ruleCount = ruleCount;
+    }
+
+    public int ruleCount() {
+        return ruleCount;
+    }
+
+    /** 주소 분류 (null/빈 값은 NORMAL) */
+    @Override
+    public Category classify(CharSequence address) {
+        if (address == null) return Category.NORMAL;
+        int node = 0;
+        boolean onTrie = true;
+        boolean alpha = false;
+        int digits = 0;
+        int tagState = KeywordMatcher.START;
+        int tagHit = KeywordMatcher.NONE;
+
+        for (int i = 0, n = address.length(); i < n; i++) {
+            char c = address.charAt(i);
+            if (tagHit == KeywordMatcher.NONE) {
+                tagState = tags.step(tagState, c);
+                tagHit = tags.outputOf(tagState);
+            }
+            int sym;
+            if (c >= '0' && c <= '9') {
+                sym = c - '0';
+                digits++;
+            } else if (c == '+' && digits == 0) {
+                sym = 10;
+            } else if (c == '-' || c == ' ' || c == '(' || c == ')' || c == '.') {
+                continue;
+            } else {
+                alpha = true;
+                continue;
+            }
+            if (onTrie) {
+                int child = children[node * SYMBOLS + sym];
+                if (child == 0) onTrie = false;
+                else node = child;
+            }
+        }
+
+        if (tagHit != KeywordMatcher.NONE) return tagCategories[tagHit];
+        if (alpha || digits == 0) return Category.NORMAL;
+        return CATEGORIES[table[node * LENS + Math.min(digits, MAX_DIGITS)]];
+    }
+
+    // ===== 컴파일 =====
+
+    private static final class Rule {
+        final Category category;
+        final int[] prefix;
+        final int minLen, maxLen;
+
+        Rule(Category category, int[] prefix, int minLen, int maxLen) {
+            this.category = category;
+            this.prefix = prefix;
+            this.minLen = minLen;
+            this.maxLen = maxLen;
+        }
+    }
+
+    /**
+     * 규칙 텍스트 컴파일.
+     * @throws IllegalArgumentException 형식이 잘못된 줄이 있으면 (줄 번호 포함)
+     */
+    public static SenderClassifier compile(String rulesText) {
+        List<Rule> rules = new ArrayList<>();
+        List<String> tagWords = new ArrayList<>();
+        List<Category> tagCats = new ArrayList<>();
+
+        String[] lines = rulesText.split("\n");
+        for (int ln = 0; ln < lines.length; ln++) {
+            String line = lines[ln];
+            int hash = line.indexOf('#');
+            if (hash >= 0) line = line.substring(0, hash);
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            String[] f = line.split("\\s+");
+            try {
+                if (f.length < 2 || f.length > 3) throw new IllegalArgumentException("fields");
+                Category cat = Category.valueOf(f[0].toUpperCase(Locale.ROOT));
+                if (f[1].startsWith("tag:")) {
+                    if (f.length != 2 || f[1].length() == 4) throw new IllegalArgumentException("tag");
+                    tagWords.add(f[1].substring(4));
+                    tagCats.add(cat);
+                    continue;
+                }
+                int[] prefix = parsePrefix(f[1]);
+                int min = 0, max = MAX_DIGITS;
+                if (f.length == 3) {
+                    String len = f[2];
+                    int dash = len.indexOf('-');
+                    if (dash < 0) {
+                        min = max = Integer.parseInt(len);
+                    } else {
+                        min = Integer.parseInt(len.substring(0, dash));
+                        max = dash == len.length() - 1 ? MAX_DIGITS : Integer.parseInt(len.substring(dash + 1));
+                    }
+                    if (min < 0 || max > MAX_DIGITS || min > max) throw new IllegalArgumentException("length");
+                }
+                rules.add(new Rule(cat, prefix, min, max));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("sender rules line " + (ln + 1) + ": " + lines[ln].trim(), e);
+            }
+        }
+
+        // 트라이 구성 (부모 번호 < 자식 번호)
+        int[] children = new int[SYMBOLS * 16];
+        int nodes = 1;
+        int[] ruleNode = new int[rules.size()];
+        for (int r = 0; r < rules.size(); r++) {
+            int node = 0;
+            for (int sym : rules.get(r).prefix) {
+                int idx = node * SYMBOLS + sym;
+                if (children[idx] == 0) {
+                    if ((nodes + 1) * SYMBOLS > children.length) children = Arrays.copyOf(children, children.length * 2);
+                    children[idx] = nodes++;
+                }
+                node = children[idx];
+            }
+            ruleNode[r] = node;
+        }
+        children = Arrays.copyOf(children, nodes * SYMBOLS);
+
+        // 노드별 자릿수 표: 자기 규칙 → 없으면 부모 값 상속 (긴 접두번호 우선)
+        byte[] own = new byte[nodes * LENS];
+        Arrays.fill(own, (byte) -1);
+        for (int r = 0; r < rules.size(); r++) {
+            Rule rule = rules.get(r);
+            for (int len = rule.minLen; len <= rule.maxLen; len++) {
+                own[ruleNode[r] * LENS + len] = (byte) rule.category.ordinal();
+            }
+        }
+        int[] parent = new int[nodes];
+        for (int node = 0; node < nodes; node++) {
+            for (int s = 0; s < SYMBOLS; s++) {
+                int child = children[node * SYMBOLS + s];
+                if (child != 0) parent[child] = node;
+            }
+        }
+        byte[] table = new byte[nodes * LENS];
+        for (int node = 0; node < nodes; node++) {
+            for (int len = 0; len < LENS; len++) {
+                byte v = own[node * LENS + len];
+                if (v < 0) v = node == 0 ? (byte) Category.NORMAL.ordinal() : table[parent[node] * LENS + len];
+                table[node * LENS + len] = v;
+            }
+        }
+
+        return new SenderClassifier(children, table, new KeywordMatcher(tagWords),
+                tagCats.toArray(new Category[0]), rules.size() + tagWords.size());
+    }
+
+    private static int[] parsePrefix(String s) {
+        int[] out = new int[s.length()];
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') out[n++] = c - '0';
+            else if (c == '+' && n == 0) out[n++] = 10;
+            else if (c == '-' || c == '(' || c == ')' || c == '.') continue;
+            else throw new IllegalArgumentException("prefix");
+        }
+        if (n == 0) throw new IllegalArgumentException("prefix");
+        return Arrays.copyOf(out, n);
+    }
+}
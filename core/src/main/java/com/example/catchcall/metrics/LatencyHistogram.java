@@ -0,0 +1,97 @@
+package com.example.catchcall.metrics;
+
+import java.util.Arrays;
+
+/**
+ * 지연 시간 히스토그램 (log-linear 버킷, 고정 메모리).
+ *
+ * - 0~7ms 는 1ms 단위, 그 위로는 2의 거듭제곱 구간마다 8칸 → 상대 오차 12.5% 이내
+ * - 기록은 배열 한 칸 증가뿐이라 할당이 없다
+ * - 2^40 ms 를 넘는 값은 마지막 칸에 모은다
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;       // 구간당 칸 수
+    private static final int MAX_EXP = 40;
+    private static final int BUCKETS = (MAX_EXP - SUB_BITS + 1) * SUB + SUB;
+
+    private final String name;
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public synchronized void record(long valueMs) {
+        long v = Math.max(0L, valueMs);
+        counts[indexOf(v)]++;
+        count++;
+        sum += v;
+        if (v > max) max = v;
+    }
+
+    public synchronized long count() {
+        return count;
+    }
+
+    public synchronized long max() {
+        return max;
+    }
+
+    public synchronized long mean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /** p(0~100) 백분위 값 (버킷 상한, 최대값을 넘지 않게) */
+    public synchronized long percentile(double p) {
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(Math.min(100.0, Math.max(0.0, p)) / 100.0 * count);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(max, upperBound(i));
+        }
+        return max;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0L);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /** 한 줄 요약 (통계/로그 용) */
+    public String summary() {
+        return name + "{n=" + count()
+                + " mean=" + mean()
+                + " p50=" + percentile(50)
+                + " p90=" + percentile(90)
+                + " p99=" + percentile(99)
+                + " max=" + max() + "}";
+    }
+
+    static int indexOf(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);     // v 의 최상위 비트 위치 (>= SUB_BITS)
+        if (exp > MAX_EXP) return BUCKETS - 1;
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB - 1);
+        return (exp - SUB_BITS + 1) * SUB + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB) return index;
+        int exp = index / SUB + SUB_BITS - 1;
+        int sub = index % SUB;
+        long lower = (long) (SUB + sub) << (exp - SUB_BITS);
+        return lower + (1L << (exp - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.catchcall.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** 번호 정규화: 국내/국제 표기 정규형 표, 키 압축 한도(17자리) 경계와 해시 키 */
+public class PhoneNumberCanonicalizerTest {
+
+    // {입력, 정규형} — 정규형이 null 이면 숫자 없음
+    private static final String[][] TABLE = {
+            {"01012345678", "01012345678"},
+            {"010-1234-5678", "01012345678"},
+            {"010 1234 5678", "01012345678"},
+            {"+821012345678", "01012345678"},
+            {"+82 10-1234-5678", "01012345678"},
+            {"+82 (0)10 1234 5678", "01012345678"},
+            {"+82-010-1234-5678", "01012345678"},
+            {"821012345678", "01012345678"},
+            {"(02) 1234-5678", "0212345678"},
+            {"+82 2 1234 5678", "0212345678"},
+            {"+82-31-123-4567", "0311234567"},
+            {"+82 1588 1234", "15881234"},
+            {"1588-1234", "15881234"},
+            {"114", "114"},
+            {"8212345", "8212345"},                         // 짧은 82… 는 국내 번호 그대로
+            {"8201012345678", "8201012345678"},             // '+' 없는 82 0… 은 건드리지 않음
+            {"+82 10", "+8210"},                            // 국가번호 뒤가 너무 짧음
+            {"+14155550123", "+14155550123"},
+            {"+1 (415) 555-0123", "+14155550123"},
+            {"001821012345678", "001821012345678"},          // 국제전화 접두는 그대로
+            {"+12345678901234567890", "+12345678901234567890"},
+            {"VMS", null},
+            {"", null},
+            {"+", null},
+    };
+
+    @Test
+    public void table() {
+        for (String[] row : TABLE) {
+            String raw = row[0], want = row[1];
+            assertEquals(raw, want, PhoneNumberCanonicalizer.canonical(raw));
+            assertEquals(raw, want, PhoneNumberCanonicalizer.canonical(raw));      // 캐시 적중도 같은 값
+            long key = NumberKey.of(raw);
+            if (want == null) {
+                assertEquals(raw, NumberKey.NONE, key);
+            } else {
+                assertNotEquals(raw, NumberKey.NONE, key);
+                assertEquals(raw, NumberKey.of(want), key);                         // 키 = 정규형의 키
+            }
+        }
+        // 같은 사람은 같은 키, 다른 번호는 다른 키
+        assertEquals(NumberKey.of("+82 10-1234-5678"), NumberKey.of("010.1234.5678"));
+        assertNotEquals(NumberKey.of("01012345678"), NumberKey.of("+01012345678"));
+        assertNotEquals(NumberKey.of("0212345678"), NumberKey.of("212345678"));
+        assertNotEquals(NumberKey.of("+12345678901234567890"), NumberKey.of("+12345678901234567891"));
+        assertEquals("+8210", PhoneNumberCanonicalizer.canonicalOrRaw("+82 10"));
+        assertEquals("VMS", PhoneNumberCanonicalizer.canonicalOrRaw("VMS"));
+    }
+
+    @Test
+    public void packedKeyLimitIsSeventeenDigits() {
+        String d17 = "12345678901234567";
+        String d18 = d17 + "8";
+        assertEquals(0L, NumberKey.of(d17) & NumberKey.HASH_BIT);                  // 17자리: 손실 없는 packing
+        assertNotEquals(0L, NumberKey.of(d18) & NumberKey.HASH_BIT);               // 18자리부터 해시
+        assertNotEquals(NumberKey.of(d17), NumberKey.of("12345678901234568"));
+
+        // 17자리를 넘어도 마지막 자리까지 구분하고, 구분자는 무시
+        assertNotEquals(NumberKey.of(d18), NumberKey.of(d17 + "9"));
+        assertNotEquals(NumberKey.of("9" + d18), NumberKey.of("8" + d18));
+        assertEquals(NumberKey.of(d18), NumberKey.of("1234-5678-9012-3456-78"));
+        assertNotEquals(NumberKey.of(d18), NumberKey.of("+" + d18));
+        assertEquals("+" + d18, PhoneNumberCanonicalizer.canonical("+ " + d18));
+
+        // 국가번호 82 뒤가 너무 길면 국제 번호 그대로 (해시 키)
+        String long82 = "+82" + d18;
+        assertEquals(long82, PhoneNumberCanonicalizer.canonical(long82));
+        assertNotEquals(0L, NumberKey.of(long82) & NumberKey.HASH_BIT);
+    }
+
+    @Test
+    public void leadingZerosAndPlusPositionMatter() {
+        assertNotEquals(NumberKey.of("0012"), NumberKey.of("012"));
+        assertNotEquals(NumberKey.of("012"), NumberKey.of("12"));
+        assertEquals("0101234", PhoneNumberCanonicalizer.canonical("010+1234"));    // 중간 '+' 는 구분자
+        assertEquals(NumberKey.of("0101234"), NumberKey.of("010+1234"));
+        assertEquals("+0101234", PhoneNumberCanonicalizer.canonical("++010 1234"));
+        assertNull(PhoneNumberCanonicalizer.canonical(null));
+        assertEquals(NumberKey.NONE, NumberKey.of(null));
+        assertNull(PhoneNumberCanonicalizer.canonicalOrRaw(null));
+    }
+
+    @Test
+    public void koreanRangeBoundaries() {
+        // '+82' 뒤 국내번호(0 제외) 8~10자리만 국내 표기로
+        assertEquals("+821234567", PhoneNumberCanonicalizer.canonical("+82 1234567"));           // 7자리
+        assertEquals("12345678", PhoneNumberCanonicalizer.canonical("+82 1234 5678"));           // 8자리, 1로 시작 → 0 없이
+        assertEquals("021234567", PhoneNumberCanonicalizer.canonical("+82 2 1234 567"));
+        assertEquals("01012345678", PhoneNumberCanonicalizer.canonical("+82 10 1234 5678"));     // 10자리
+        assertEquals("+8210123456789", PhoneNumberCanonicalizer.canonical("+82 10 1234 56789")); // 11자리
+        // '+' 없는 82 는 뒤가 9~10자리이고 0 으로 시작하지 않을 때만
+        assertEquals("8212345678", PhoneNumberCanonicalizer.canonical("82 1234 5678"));
+        assertEquals("0101234567", PhoneNumberCanonicalizer.canonical("82 10 1234 567"));
+        assertEquals("8201012345678", PhoneNumberCanonicalizer.canonical("82 0 10 1234 5678"));
+        assertEquals(NumberKey.of("0101234567"), NumberKey.of("82 10 1234 567"));
+    }
+
+    /** 정규형 표에서 국내 표기로 바뀌는 행의 키는 모두 정규형의 키 (표기마다 따로 계산해도 같은 키) */
+    @Test
+    public void everyFormOfOneNumberSharesAKey() {
+        String[] forms = {"01012345678", "010-1234-5678", "+821012345678", "+82 (0)10 1234 5678",
+                "821012345678", "+82-010-1234-5678", "(010) 1234.5678"};
+        for (String f : forms) {
+            assertEquals(f, "01012345678", PhoneNumberCanonicalizer.canonical(f));
+            assertEquals(f, NumberKey.of("01012345678"), NumberKey.of(f));
+        }
+    }
+}
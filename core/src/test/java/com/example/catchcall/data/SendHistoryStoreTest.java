@@ -0,0 +1,227 @@
+package com.example.catchcall.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** 발송 이력 저장소: 조회/기록, 재오픈, 선형 탐색 삭제(테이블 끝 wrap-around), 로그 압축/복구 */
+public class SendHistoryStoreTest {
+    private static final long T0 = 1_700_000_000_000L;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File dir;
+    private SendHistoryStore store;
+
+    @Before
+    public void open() throws IOException {
+        dir = tmp.newFolder("history");
+        store = new SendHistoryStore(dir);
+    }
+
+    @After
+    public void close() throws IOException {
+        store.close();
+    }
+
+    private void reopen() throws IOException {
+        store.close();
+        store = new SendHistoryStore(dir);
+    }
+
+    private static long key(int i) {
+        return NumberKey.of("010" + (10_000_000 + i));
+    }
+
+    @Test
+    public void typesAreIndependentAndSurviveReopen() throws IOException {
+        long k = key(1);
+        assertEquals(0L, store.getLastSent(k, SendHistoryStore.TYPE_MISSED));
+        store.saveLastSent(k, SendHistoryStore.TYPE_MISSED, T0);
+        store.saveLastSent(k, SendHistoryStore.TYPE_MANNER, T0 + 5);
+        store.saveLastSent(k, SendHistoryStore.TYPE_MISSED, T0 + 9);     // 덮어쓰기
+        assertEquals(T0 + 9, store.getLastSent(k, SendHistoryStore.TYPE_MISSED));
+        assertEquals(T0 + 5, store.getLastSent(k, SendHistoryStore.TYPE_MANNER));
+        assertEquals(T0 + 9, store.getLastSentAny(k));
+        assertEquals(1, store.size());
+
+        reopen();
+        assertEquals(1, store.size());
+        assertEquals(T0 + 9, store.getLastSent(k, SendHistoryStore.TYPE_MISSED));
+        assertEquals(T0 + 5, store.getLastSent(k, SendHistoryStore.TYPE_MANNER));
+        assertEquals(0L, store.getLastSent(key(2), SendHistoryStore.TYPE_MISSED));
+    }
+
+    @Test
+    public void noneKeyIsIgnored() throws IOException {
+        store.saveLastSent(NumberKey.NONE, SendHistoryStore.TYPE_MISSED, T0);
+        assertEquals(0, store.size());
+        assertEquals(0L, store.logBytes());
+        assertEquals(0L, store.getLastSent(NumberKey.NONE, SendHistoryStore.TYPE_MISSED));
+        assertEquals(0L, store.getLastSentAny(NumberKey.NONE));
+    }
+
+    @Test
+    public void evictionAcrossTableEndKeepsClusterReachable() throws IOException {
+        int last = SendHistoryStore.MIN_CAPACITY - 1;
+        // 홈 슬롯이 테이블 마지막 칸인 번호 3개 + 첫 칸인 번호 1개 → 클러스터가 끝에서 앞으로 넘어간다
+        List<Long> atEnd = keysWithHome(last, 3);
+        long atStart = keysWithHome(0, 1).get(0);
+        store.saveLastSent(atEnd.get(0), SendHistoryStore.TYPE_MISSED, T0);             // 지울 항목 (오래됨)
+        store.saveLastSent(atEnd.get(1), SendHistoryStore.TYPE_MISSED, T0 + 1_000);
+        store.saveLastSent(atStart, SendHistoryStore.TYPE_MANNER, T0 + 1_000);
+        store.saveLastSent(atEnd.get(2), SendHistoryStore.TYPE_MISSED, T0 + 1_000);
+
+        assertEquals(1, store.evictOlderThan(T0 + 500, 10));
+        assertEquals(3, store.size());
+        assertEquals(0L, store.getLastSent(atEnd.get(0), SendHistoryStore.TYPE_MISSED));
+        assertEquals(T0 + 1_000, store.getLastSent(atEnd.get(1), SendHistoryStore.TYPE_MISSED));
+        assertEquals(T0 + 1_000, store.getLastSent(atEnd.get(2), SendHistoryStore.TYPE_MISSED));
+        assertEquals(T0 + 1_000, store.getLastSent(atStart, SendHistoryStore.TYPE_MANNER));
+
+        // 가운데 항목 삭제 후에도 뒤 항목이 당겨져 찾을 수 있어야 한다
+        store.saveLastSent(atEnd.get(1), SendHistoryStore.TYPE_MISSED, T0);
+        assertEquals(1, store.evictOlderThan(T0 + 500, 10));
+        assertEquals(T0 + 1_000, store.getLastSent(atEnd.get(2), SendHistoryStore.TYPE_MISSED));
+        assertEquals(T0 + 1_000, store.getLastSent(atStart, SendHistoryStore.TYPE_MANNER));
+
+        // 지운 번호는 재오픈(로그 재생)해도 되살아나지 않는다
+        reopen();
+        assertEquals(2, store.size());
+        assertEquals(0L, store.getLastSentAny(atEnd.get(0)));
+        assertEquals(0L, store.getLastSentAny(atEnd.get(1)));
+        assertEquals(T0 + 1_000, store.getLastSent(atEnd.get(2), SendHistoryStore.TYPE_MISSED));
+    }
+
+    @Test
+    public void evictionKeepsNumbersWithOneRecentType() throws IOException {
+        store.saveLastSent(key(1), SendHistoryStore.TYPE_MISSED, T0);
+        store.saveLastSent(key(1), SendHistoryStore.TYPE_MANNER, T0 + 10_000);
+        store.saveLastSent(key(2), SendHistoryStore.TYPE_MISSED, T0);
+        store.saveLastSent(key(3), SendHistoryStore.TYPE_MISSED, T0);
+
+        assertEquals(1, store.evictOlderThan(T0 + 1, 1));            // 한도만큼만
+        assertEquals(1, store.evictOlderThan(T0 + 1, 10));
+        assertEquals(1, store.size());
+        assertEquals(T0 + 10_000, store.getLastSentAny(key(1)));
+    }
+
+    @Test
+    public void missedCountSurvivesReopenAndRecentDayIsNotEvicted() throws IOException {
+        long day = T0 / 86_400_000L;
+        long today = (day << 32) | 3;                       // CooldownIndex.packDayCount 형식
+        store.saveLastSent(key(1), SendHistoryStore.TYPE_MISSED_COUNT, today);     // 발송 없이 세기만 한 번호
+        store.saveLastSent(key(2), SendHistoryStore.TYPE_MISSED_COUNT, ((day - 5) << 32) | 1);
+        store.saveLastSent(key(2), SendHistoryStore.TYPE_MISSED, T0 - 5 * 86_400_000L);
+        assertEquals(0L, store.getLastSentAny(key(1)));
+
+        assertEquals(1, store.evictOlderThan(T0, 10));       // 오래된 번호만
+        reopen();
+        assertEquals(1, store.size());
+        assertEquals(today, store.getLastSent(key(1), SendHistoryStore.TYPE_MISSED_COUNT));
+        assertEquals(0L, store.getLastSent(key(2), SendHistoryStore.TYPE_MISSED_COUNT));
+
+        // 날이 지나고 발송 이력도 없으면 제거
+        assertEquals(1, store.evictOlderThan(T0 + 3 * 86_400_000L, 10));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void growKeepsEveryEntry() throws IOException {
+        int n = SendHistoryStore.MIN_CAPACITY * 2;          // 적재율 3/4 를 넘겨 두 번 키운다
+        for (int i = 0; i < n; i++) {
+            store.saveLastSent(key(i), i & 1, T0 + i);
+            store.saveLastSent(key(i), SendHistoryStore.TYPE_MISSED_COUNT, i);
+        }
+        assertEquals(n, store.size());
+        reopen();
+        assertEquals(n, store.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(T0 + i, store.getLastSent(key(i), i & 1));
+            assertEquals(i, store.getLastSent(key(i), SendHistoryStore.TYPE_MISSED_COUNT));
+        }
+    }
+
+    @Test
+    public void fullIndexEvictsStalestInsteadOfProbingForever() throws IOException {
+        store.close();
+        int cap = SendHistoryStore.MIN_CAPACITY;
+        store = new SendHistoryStore(dir, cap);             // 더 못 키우는 인덱스
+        int n = cap * 2;
+        for (int i = 0; i < n; i++) store.saveLastSent(key(i), SendHistoryStore.TYPE_MISSED, T0 + i);
+
+        assertTrue("size=" + store.size(), store.size() <= cap * 3 / 4);
+        assertEquals(T0 + n - 1, store.getLastSent(key(n - 1), SendHistoryStore.TYPE_MISSED));
+        assertEquals(0L, store.getLastSent(key(n + 1), SendHistoryStore.TYPE_MISSED));    // 없는 번호 조회도 끝난다
+        assertEquals(0L, store.getLastSent(key(0), SendHistoryStore.TYPE_MISSED));        // 가장 오래된 번호부터 밀려남
+
+        int size = store.size();
+        store.close();
+        store = new SendHistoryStore(dir, cap);
+        assertEquals(size, store.size());
+        assertEquals(T0 + n - 1, store.getLastSent(key(n - 1), SendHistoryStore.TYPE_MISSED));
+    }
+
+    @Test
+    public void logIsCompactedWhenMostlyOverwrites() throws IOException {
+        long k = key(7);
+        int writes = 10_000;                                // 한 번호를 계속 덮어쓰기 → 로그만 커짐
+        for (int i = 0; i < writes; i++) store.saveLastSent(k, SendHistoryStore.TYPE_MISSED, T0 + i);
+        assertTrue("log=" + store.logBytes(), store.logBytes() < 64 * 1024 + SendHistoryStore.RECORD);
+
+        reopen();
+        assertEquals(1, store.size());
+        assertEquals(T0 + writes - 1, store.getLastSent(k, SendHistoryStore.TYPE_MISSED));
+    }
+
+    @Test
+    public void tornTailRecordIsDropped() throws IOException {
+        store.saveLastSent(key(1), SendHistoryStore.TYPE_MISSED, T0);
+        store.close();
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "history.log"), true)) {
+            out.write(new byte[]{1, 2, 3, 4, 5});           // 기록 중 끊긴 꼬리
+        }
+        store = new SendHistoryStore(dir);
+        assertEquals(SendHistoryStore.RECORD, store.logBytes());
+        assertEquals(T0, store.getLastSent(key(1), SendHistoryStore.TYPE_MISSED));
+
+        store.saveLastSent(key(2), SendHistoryStore.TYPE_MANNER, T0 + 1);
+        reopen();
+        assertEquals(T0 + 1, store.getLastSent(key(2), SendHistoryStore.TYPE_MANNER));
+    }
+
+    @Test
+    public void corruptIndexIsRebuiltFromLog() throws IOException {
+        for (int i = 0; i < 100; i++) store.saveLastSent(key(i), SendHistoryStore.TYPE_MANNER, T0 + i);
+        store.close();
+        try (RandomAccessFile idx = new RandomAccessFile(new File(dir, "history.idx"), "rw")) {
+            idx.writeInt(0);                                // magic 손상
+        }
+        store = new SendHistoryStore(dir);
+        assertEquals(100, store.size());
+        for (int i = 0; i < 100; i++) assertEquals(T0 + i, store.getLastSent(key(i), SendHistoryStore.TYPE_MANNER));
+    }
+
+    /** 최소 용량 테이블에서 홈 슬롯이 home 인 번호 키 count 개 */
+    private static List<Long> keysWithHome(int home, int count) {
+        int mask = SendHistoryStore.MIN_CAPACITY - 1;
+        List<Long> out = new ArrayList<>();
+        for (int i = 0; out.size() < count; i++) {
+            long k = key(i);
+            if ((SendHistoryStore.mix(k) & mask) == home) out.add(k);
+        }
+        return out;
+    }
+}
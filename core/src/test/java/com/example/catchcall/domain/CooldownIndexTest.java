@@ -0,0 +1,110 @@
+package com.example.catchcall.domain;
+
+import com.example.catchcall.data.SendHistoryStore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/** 쿨타임 인덱스: 영구 이력(SendHistoryStore)에서 다시 읽어도 발송 시각과 오늘 횟수가 이어지는지 */
+public class CooldownIndexTest {
+    private static final TimeZone SEOUL = TimeZone.getTimeZone("Asia/Seoul");
+    private static final long MIN = 60_000L;
+    // 2026-01-01 00:00 KST
+    private static final long DAY0 = 1767193200000L;
+    private static final ReplyRules CAP_2 = ReplyRules.compile("daily-cap 2\ncooldown-both $cooldown", SEOUL);
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File dir;
+    private SendHistoryStore store;
+
+    @Before
+    public void open() throws IOException {
+        dir = tmp.newFolder("history");
+        store = new SendHistoryStore(dir);
+    }
+
+    @After
+    public void close() throws IOException {
+        store.close();
+    }
+
+    private CooldownIndex index(int maxEntries) {
+        CooldownIndex index = new CooldownIndex(maxEntries, new CooldownIndex.Backing() {
+            @Override public long load(long key, int type) { return store.getLastSent(key, type); }
+            @Override public void save(long key, int type, long when) {
+                try {
+                    store.saveLastSent(key, type, when);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        index.setRules(CAP_2);
+        return index;
+    }
+
+    @Test
+    public void dailyCountSurvivesReopen() throws IOException {
+        long now = DAY0 + 12 * 60 * MIN;
+        CooldownIndex first = index(16);
+        first.saveLastSent(7L, ReplyRules.MISSED, now - 10 * MIN);
+        first.saveLastSent(7L, ReplyRules.MANNER, now - 5 * MIN);
+        assertEquals(ReplyRules.Reason.DAILY_CAP, ReplyRules.reason(first.decide(7L, ReplyRules.MISSED, now, 0L)));
+
+        // 프로세스 재시작: 저장소를 다시 열고 빈 인덱스로 시작
+        store.close();
+        store = new SendHistoryStore(dir);
+        CooldownIndex reopened = index(16);
+        assertEquals(now - 10 * MIN, reopened.lastSent(7L, ReplyRules.MISSED));
+        assertEquals(ReplyRules.Reason.DAILY_CAP, ReplyRules.reason(reopened.decide(7L, ReplyRules.MISSED, now, 0L)));
+
+        // 다음 날(KST)은 0 부터
+        long tomorrow = DAY0 + 24 * 60 * MIN + MIN;
+        assertTrue(ReplyRules.allowed(reopened.decide(7L, ReplyRules.MISSED, tomorrow, 0L)));
+        reopened.saveLastSent(7L, ReplyRules.MISSED, tomorrow);
+        assertTrue(ReplyRules.allowed(reopened.decide(7L, ReplyRules.MISSED, tomorrow + MIN, 0L)));
+    }
+
+    @Test
+    public void dailyCountSurvivesEviction() {
+        long now = DAY0 + 9 * 60 * MIN;
+        CooldownIndex index = index(2);
+        index.saveLastSent(1L, ReplyRules.MISSED, now);
+        index.saveLastSent(1L, ReplyRules.MISSED, now + MIN);
+        index.saveLastSent(2L, ReplyRules.MISSED, now);
+        index.saveLastSent(3L, ReplyRules.MISSED, now);         // 1 이 LRU 에서 밀려남
+        assertEquals(2, index.size());
+        assertEquals(ReplyRules.Reason.DAILY_CAP, ReplyRules.reason(index.decide(1L, ReplyRules.MANNER, now + 2 * MIN, 0L)));
+        assertTrue(ReplyRules.allowed(index.decide(2L, ReplyRules.MANNER, now + 2 * MIN, 0L)));
+    }
+
+    @Test
+    public void storeKeepsDayCountThroughIndexRebuild() throws IOException {
+        long now = DAY0 + 20 * 60 * MIN;
+        CooldownIndex index = index(16);
+        index.saveLastSent(9L, ReplyRules.MANNER, now);
+        index.saveLastSent(9L, ReplyRules.MANNER, now + MIN);
+        long packed = store.getLastSent(9L, SendHistoryStore.TYPE_DAY_COUNT);
+        assertEquals(CooldownIndex.packDayCount(CAP_2.localDay(now), 2), packed);
+
+        // 인덱스 파일이 없어져도 로그 재생으로 복구
+        store.close();
+        assertTrue(new File(dir, "history.idx").delete());
+        store = new SendHistoryStore(dir);
+        assertEquals(packed, store.getLastSent(9L, SendHistoryStore.TYPE_DAY_COUNT));
+        assertEquals(now + MIN, store.getLastSent(9L, SendHistoryStore.TYPE_MANNER));
+        assertEquals(now + MIN, store.getLastSentAny(9L));
+    }
+}
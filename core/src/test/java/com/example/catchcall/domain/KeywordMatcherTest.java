@@ -0,0 +1,120 @@
+package com.example.catchcall.domain;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** 매너콜 키워드 매칭 (Aho-Corasick): 기존 판정과 같은지, 겹치는/걸치는 키워드, 공백/대소문자, 조각 입력 */
+public class KeywordMatcherTest {
+    private static final int BODIES = 2_000;
+
+    @Test
+    public void agreesWithLegacyDecision() {
+        List<String> small = Arrays.asList("매너콜", "콜키퍼");
+        List<String> large = new ArrayList<>(small);
+        for (int i = 0; large.size() < 300; i++) large.add("안내문구" + i + "번");
+        large.add("Call Keeper");
+
+        String[] bodies = bodies(new Random(7));
+        for (List<String> words : Arrays.asList(small, large)) {
+            KeywordMatcher m = new KeywordMatcher(words);
+            for (String b : bodies) {
+                assertEquals(b, legacy(b, words), m.match(b) != KeywordMatcher.NONE);
+            }
+        }
+    }
+
+    @Test
+    public void overlappingKeywordsReportTheFirstToEnd() {
+        KeywordMatcher m = new KeywordMatcher(Arrays.asList("he", "she", "his", "hers"));
+        assertEquals("she", m.find("ushers"));             // she 와 he 가 같은 자리에서 끝남 → 긴 쪽(현재 상태)의 키워드
+        assertEquals("his", m.find("ahishers"));
+        assertEquals("he", m.find("the hers"));
+
+        // 긴 키워드 경로 중간에서 짧은 키워드가 끝나는 경우: 실패 링크로 찾는다
+        KeywordMatcher n = new KeywordMatcher(Arrays.asList("콜키퍼 서비스", "키퍼", "콜"));
+        assertEquals("콜", n.find("매너콜키퍼 서비스"));
+        assertEquals("키퍼", n.find("골키퍼"));
+        KeywordMatcher o = new KeywordMatcher(Arrays.asList("abcd", "bc"));
+        assertEquals("bc", o.find("xabcx"));
+        assertEquals("bc", o.find("abcd"));
+        assertNull(o.find("abdc"));
+    }
+
+    @Test
+    public void keywordsSpanWhitespace() {
+        KeywordMatcher m = new KeywordMatcher(Arrays.asList(" 부재 중 전화 ", "CALL\tKEEPER"));
+        assertEquals(2, m.size());
+        assertEquals("부재 중 전화", m.keyword(0));          // 앞뒤 공백은 잘라서 보관
+        assertEquals("부재 중 전화", m.find("부재중전화 1건"));
+        assertEquals("부재 중 전화", m.find("부　재\n중 전\t화"));   // 전각 공백/줄바꿈/탭
+        assertEquals(1, m.match("callkeeper"));
+        assertEquals(1, m.match("Call  Keeper"));
+        assertEquals(KeywordMatcher.NONE, m.match("call-keeper"));      // 공백이 아닌 구분자는 글자로 본다
+    }
+
+    @Test
+    public void emptyDuplicateAndNullInputsAreIgnored() {
+        KeywordMatcher m = new KeywordMatcher(Arrays.asList("매너콜", null, "", "   ", "매 너 콜", "MANNER"));
+        assertEquals(2, m.size());                          // 공백뿐인 키워드, 공백을 빼면 같은 키워드는 제외
+        assertEquals("매너콜", m.find("매너콜"));
+        assertEquals("MANNER", m.find("manner call"));
+        assertEquals(KeywordMatcher.NONE, m.match(null));
+        assertNull(new KeywordMatcher(Collections.<String>emptyList()).find("아무 문자"));
+    }
+
+    @Test
+    public void foldsCaseSkipsWhitespaceAndStreams() {
+        KeywordMatcher m = new KeywordMatcher(Arrays.asList("매너콜", "Call Keeper", "통화중 안내"));
+        assertEquals("매너콜", m.find("[SKT] 매 너 콜 서비스 안내"));
+        assertEquals("Call Keeper", m.find("callkeeper: 010-1234-5678"));
+        assertEquals("통화중 안내", m.find("고객님 통화중\n안내 드립니다"));
+        assertNull(m.find("매너 좋은 콜"));
+        assertNull(m.find(""));
+
+        // 조각으로 나눠 흘려 넣어도 같은 결과
+        int s = KeywordMatcher.START;
+        int hit = KeywordMatcher.NONE;
+        for (String part : new String[]{"… 매", "너", " 콜 …"}) {
+            for (int i = 0; i < part.length() && hit == KeywordMatcher.NONE; i++) {
+                s = m.step(s, part.charAt(i));
+                hit = m.outputOf(s);
+            }
+        }
+        assertEquals("매너콜", m.keyword(hit));
+    }
+
+    /** 기존 SmsReceiver.isMannerKeyword 방식 */
+    private static boolean legacy(String body, List<String> words) {
+        String norm = body.toLowerCase(Locale.KOREA).replaceAll("\\s+", "");
+        for (String w : words) {
+            if (norm.contains(w.toLowerCase(Locale.KOREA).replaceAll("\\s+", ""))) return true;
+        }
+        return false;
+    }
+
+    private static String[] bodies(Random rnd) {
+        String[] fragments = {"[Web발신] ", "고객님께서 ", "010-1234-5678 ", "으로 ", "전화하셨습니다. ",
+                "매너 콜 ", "콜키퍼 ", "통화 중 ", "부재중 ", "안내 ", "서비스 ", "Call Keeper ", "확인 바랍니다. "};
+        String[] out = new String[BODIES];
+        for (int i = 0; i < BODIES; i++) {
+            StringBuilder sb = new StringBuilder();
+            int n = 6 + rnd.nextInt(10);
+            for (int j = 0; j < n; j++) {
+                String f = fragments[rnd.nextInt(fragments.length)];
+                // 키워드 조각은 드물게 (대부분 미매칭 경로)
+                if ((f.startsWith("매너") || f.startsWith("콜키") || f.startsWith("Call")) && rnd.nextInt(4) != 0) continue;
+                sb.append(f);
+            }
+            out[i] = sb.toString();
+        }
+        return out;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.catchcall.domain;
+
+import com.example.catchcall.data.NumberKey;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** 판정 단계 순서: 가드 → 발신자 분류 → 키워드, 앞 단계에서 걸리면 뒤 단계는 부르지 않는다 */
+public class ReplyPolicyTest {
+    private static final long T0 = 1_700_000_000_000L;
+
+    private final List<String> calls = new ArrayList<>();
+    private ReplyPolicy.Verdict guard = ReplyPolicy.Verdict.PASS;
+
+    private ReplyPolicy policy() {
+        SenderClassifier classifier = SenderClassifier.compile("CARRIER 15 4-");
+        KeywordMatcher keywords = new KeywordMatcher(Arrays.asList("매너콜"));
+        return new ReplyPolicy(
+                address -> {
+                    calls.add("senders");
+                    return classifier.classify(address);
+                },
+                text -> {
+                    calls.add("keywords");
+                    return keywords.find(text);
+                },
+                (from, body, now) -> {
+                    calls.add("guards");
+                    return guard;
+                },
+                (key, type, now, cooldownMs) -> {
+                    calls.add("cooldowns");
+                    return key == NumberKey.of("01012345678") && cooldownMs > 0 ? cooldownMs : ReplyRules.ALLOW;   // 남은 ms 만 채운 결정값
+                });
+    }
+
+    @Test
+    public void stagesRunInOrderAndStopAtFirstReject() {
+        ReplyPolicy p = policy();
+        assertEquals(ReplyPolicy.Verdict.PASS, p.screenSms("01012345678", "매너콜 안내", T0));
+        assertEquals(Arrays.asList("guards", "senders", "keywords"), calls);
+
+        calls.clear();
+        assertEquals(ReplyPolicy.Verdict.SPECIAL_SENDER, p.screenSms("15881234", "매너콜 안내", T0));
+        assertEquals(Arrays.asList("guards", "senders"), calls);
+
+        calls.clear();
+        assertEquals(ReplyPolicy.Verdict.NO_KEYWORD, p.screenSms("01012345678", "회의 중", T0));
+
+        calls.clear();
+        guard = ReplyPolicy.Verdict.ECHO;
+        assertEquals(ReplyPolicy.Verdict.ECHO, p.screenSms("01012345678", "매너콜 안내", T0));
+        assertEquals(Arrays.asList("guards"), calls);
+    }
+
+    @Test
+    public void screenSenderSkipsKeywordStage() {
+        ReplyPolicy p = policy();
+        assertEquals(ReplyPolicy.Verdict.PASS, p.screenSender("01012345678", "회의 중", T0));
+        assertEquals(Arrays.asList("guards", "senders"), calls);
+    }
+
+    @Test
+    public void ruleDecisionClampsNegativeCooldown() {
+        ReplyPolicy p = policy();
+        assertFalse(ReplyRules.allowed(p.ruleDecision("01012345678", ReplyRules.MISSED, T0, 60_000L)));
+        assertTrue(ReplyRules.allowed(p.ruleDecision("01012345678", ReplyRules.MISSED, T0, -5L)));
+        assertTrue(ReplyRules.allowed(p.ruleDecision("01099998888", ReplyRules.MISSED, T0, 60_000L)));
+    }
+}
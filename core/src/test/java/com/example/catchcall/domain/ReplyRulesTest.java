@@ -0,0 +1,215 @@
+package com.example.catchcall.domain;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/** 발송 규칙 판정표: 기본 규칙 = 기존 A~D, 규칙별 판정과 경계 (자정/하루 경계, 규칙 순서, 잘못된 규칙) */
+public class ReplyRulesTest {
+    private static final TimeZone SEOUL = TimeZone.getTimeZone("Asia/Seoul");
+    private static final long MIN = 60_000L;
+    private static final long HOUR = 60 * MIN;
+    private static final long DAY = 24 * HOUR;
+
+    // 2026-01-01 00:00 KST
+    private static final long DAY0 = 1767193200000L;
+
+    private static final CooldownIndex.Backing EMPTY = new CooldownIndex.Backing() {
+        @Override public long load(long key, int type) { return 0L; }
+        @Override public void save(long key, int type, long when) {}
+    };
+
+    @Test
+    public void defaultsMatchLegacyPolicy() {
+        CooldownIndex index = new CooldownIndex(64, EMPTY);
+        Random rnd = new Random(11);
+        long now = DAY0 + 12 * HOUR;
+        for (int i = 0; i < 50_000; i++) {
+            long key = 1 + rnd.nextInt(32);
+            if (rnd.nextInt(3) == 0) {
+                index.saveLastSent(key, rnd.nextInt(2), now - rnd.nextInt(20) * MIN);
+            }
+            long cooldownMs = rnd.nextInt(4) == 0 ? 0L : rnd.nextInt(15) * MIN;
+            int type = rnd.nextInt(2);
+            long legacy = legacyRemainMs(index.lastSent(key, ReplyRules.MISSED),
+                    index.lastSent(key, ReplyRules.MANNER), now, cooldownMs);
+            long d = index.decide(key, type, now, cooldownMs);
+            assertEquals(legacy > 0, !ReplyRules.allowed(d));
+            if (legacy > 0) {
+                assertEquals(ReplyRules.Reason.COOLDOWN_BOTH, ReplyRules.reason(d));
+                assertEquals(legacy, ReplyRules.remainMs(d));
+            }
+        }
+        assertTrue(ReplyRules.allowed(index.decide(0L, ReplyRules.MISSED, now, MIN)));
+    }
+
+    @Test
+    public void cooldownEndsExactlyAtItsDuration() {
+        ReplyRules r = ReplyRules.defaults();
+        long now = DAY0 + 12 * HOUR;
+        long d = r.evaluate(ReplyRules.MISSED, now - 5 * MIN + 1, now - 6 * MIN, 0, 0, now, 5 * MIN);
+        assertEquals(1L, ReplyRules.remainMs(d));
+        assertTrue(ReplyRules.allowed(r.evaluate(ReplyRules.MISSED, now - 5 * MIN, now - 6 * MIN, 0, 0, now, 5 * MIN)));
+        // 한쪽만 보낸 적 있음 (B) / 쿨타임 0 → 허용
+        assertTrue(ReplyRules.allowed(r.evaluate(ReplyRules.MANNER, now - 1, 0L, 0, 0, now, 5 * MIN)));
+        assertTrue(ReplyRules.allowed(r.evaluate(ReplyRules.MANNER, now - 1, now - 1, 0, 0, now, 0L)));
+    }
+
+    @Test
+    public void perTypeCooldown() {
+        ReplyRules r = ReplyRules.compile("cooldown SAME 10m\ncooldown ANY 30s", SEOUL);
+        long now = DAY0 + 12 * HOUR;
+        long missedAt = now - 3 * MIN;
+
+        long d = r.evaluate(ReplyRules.MISSED, missedAt, 0L, 0, 0, now, 0L);
+        assertEquals(ReplyRules.Reason.COOLDOWN, ReplyRules.reason(d));
+        assertEquals(0, ReplyRules.rule(d));
+        assertEquals(7 * MIN, ReplyRules.remainMs(d));
+
+        assertTrue(ReplyRules.allowed(r.evaluate(ReplyRules.MANNER, missedAt, 0L, 0, 0, now, 0L)));
+        d = r.evaluate(ReplyRules.MANNER, now - 10_000L, 0L, 0, 0, now, 0L);
+        assertEquals(1, ReplyRules.rule(d));
+        assertEquals(20_000L, ReplyRules.remainMs(d));
+    }
+
+    @Test
+    public void dailyCap() {
+        ReplyRules r = ReplyRules.compile("daily-cap 2", SEOUL);
+        long now = DAY0 + 22 * HOUR;
+        int today = r.localDay(now);
+        assertEquals(r.localDay(DAY0), today);
+
+        assertTrue(ReplyRules.allowed(r.evaluate(ReplyRules.MISSED, 0L, 0L, today, 1, now, 0L)));
+        long d = r.evaluate(ReplyRules.MISSED, 0L, 0L, today, 2, now, 0L);
+        assertEquals(ReplyRules.Reason.DAILY_CAP, ReplyRules.reason(d));
+        assertEquals(2 * HOUR, ReplyRules.remainMs(d));                     // 자정(KST)까지
+        assertTrue(ReplyRules.allowed(r.evaluate(ReplyRules.MISSED, 0L, 0L, today - 1, 5, now, 0L)));
+
+        // 인덱스: 발송 확인마다 오늘 횟수 증가, 날이 바뀌면 0 부터
+        CooldownIndex index = new CooldownIndex(16, EMPTY);
+        index.setRules(r);
+        index.saveLastSent(7L, ReplyRules.MISSED, now - 25 * HOUR);        // 어제
+        index.saveLastSent(7L, ReplyRules.MISSED, now - MIN);
+        assertTrue(ReplyRules.allowed(index.decide(7L, ReplyRules.MANNER, now, 0L)));
+        index.saveLastSent(7L, ReplyRules.MANNER, now);
+        assertEquals(ReplyRules.Reason.DAILY_CAP, ReplyRules.reason(index.decide(7L, ReplyRules.MISSED, now, 0L)));
+        assertTrue(ReplyRules.allowed(index.decide(7L, ReplyRules.MISSED, now + 3 * HOUR, 0L)));
+    }
+
+    @Test
+    public void dailyCapDayTurnsAtLocalMidnight() {
+        ReplyRules r = ReplyRules.compile("daily-cap 1", SEOUL);
+        long midnight = DAY0 + DAY;
+        int day = r.localDay(midnight - 1);
+        assertEquals(day + 1, r.localDay(midnight));
+        assertEquals(day, r.localDay(DAY0));
+
+        long d = r.evaluate(ReplyRules.MISSED, 0L, 0L, day, 1, midnight - 1, 0L);
+        assertEquals(1L, ReplyRules.remainMs(d));
+        assertTrue(ReplyRules.allowed(r.evaluate(ReplyRules.MISSED, 0L, 0L, day, 1, midnight, 0L)));
+
+        // UTC 자정은 KST 09:00 → 같은 날
+        assertEquals(day, r.localDay(DAY0 + 9 * HOUR - 1));
+        assertEquals(day, r.localDay(DAY0 + 9 * HOUR));
+    }
+
+    @Test
+    public void quietHoursWrapMidnight() {
+        ReplyRules r = ReplyRules.compile("quiet 23:00-07:00", SEOUL);
+        long d = r.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, DAY0 + 23 * HOUR + 30 * MIN, 0L);
+        assertEquals(ReplyRules.Reason.QUIET_HOURS, ReplyRules.reason(d));
+        assertEquals(7 * HOUR + 30 * MIN, ReplyRules.remainMs(d));
+        d = r.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, DAY0 + 6 * HOUR + 59 * MIN + 30_000L, 0L);
+        assertEquals(30_000L, ReplyRules.remainMs(d));
+        assertTrue(ReplyRules.allowed(r.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, DAY0 + 7 * HOUR, 0L)));
+        assertTrue(ReplyRules.allowed(r.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, DAY0 + 22 * HOUR, 0L)));
+
+        ReplyRules day = ReplyRules.compile("quiet 12:00-13:00 # 점심", SEOUL);
+        assertFalse(ReplyRules.allowed(day.evaluate(ReplyRules.MANNER, 0L, 0L, 0, 0, DAY0 + 12 * HOUR, 0L)));
+        assertTrue(ReplyRules.allowed(day.evaluate(ReplyRules.MANNER, 0L, 0L, 0, 0, DAY0 + 13 * HOUR, 0L)));
+    }
+
+    @Test
+    public void quietHoursBoundariesAcrossMidnight() {
+        ReplyRules r = ReplyRules.compile("quiet 23:00-07:00", SEOUL);
+        long nextMidnight = DAY0 + DAY;
+
+        // 시작은 포함, 직전 1ms 는 밖
+        assertTrue(ReplyRules.allowed(r.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, DAY0 + 23 * HOUR - 1, 0L)));
+        assertEquals(8 * HOUR, ReplyRules.remainMs(r.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, DAY0 + 23 * HOUR, 0L)));
+
+        // 23:59:59.999 → 00:00 → 다음 날 07:00 까지 이어진다
+        assertEquals(7 * HOUR + 1, ReplyRules.remainMs(r.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, nextMidnight - 1, 0L)));
+        assertEquals(7 * HOUR, ReplyRules.remainMs(r.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, nextMidnight, 0L)));
+
+        // 끝은 제외, 직전 1ms 는 안
+        assertEquals(1L, ReplyRules.remainMs(r.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, nextMidnight + 7 * HOUR - 1, 0L)));
+        assertTrue(ReplyRules.allowed(r.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, nextMidnight + 7 * HOUR, 0L)));
+
+        // 자정에서 끝나는 창 / 자정에서 시작하는 창
+        ReplyRules late = ReplyRules.compile("quiet 22:00-24:00", SEOUL);
+        assertEquals(1L, ReplyRules.remainMs(late.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, nextMidnight - 1, 0L)));
+        assertTrue(ReplyRules.allowed(late.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, nextMidnight, 0L)));
+        ReplyRules early = ReplyRules.compile("quiet 00:00-06:00", SEOUL);
+        assertTrue(ReplyRules.allowed(early.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, nextMidnight - 1, 0L)));
+        assertEquals(6 * HOUR, ReplyRules.remainMs(early.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, nextMidnight, 0L)));
+
+        // 같은 순간이라도 시간대가 다르면 판정이 다르다 (UTC 23:30 = KST 08:30)
+        ReplyRules utc = ReplyRules.compile("quiet 23:00-07:00", TimeZone.getTimeZone("UTC"));
+        long t = nextMidnight + 8 * HOUR + 30 * MIN;
+        assertFalse(ReplyRules.allowed(utc.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, t, 0L)));
+        assertTrue(ReplyRules.allowed(r.evaluate(ReplyRules.MISSED, 0L, 0L, 0, 0, t, 0L)));
+    }
+
+    @Test
+    public void firstBlockingRuleWins() {
+        ReplyRules r = ReplyRules.compile("# 주석\n\nquiet 00:00-24:00\ncooldown-both $cooldown\n", SEOUL);
+        assertEquals(2, r.size());
+        long now = DAY0 + HOUR;
+        long d = r.evaluate(ReplyRules.MISSED, now - MIN, now - MIN, 0, 0, now, 5 * MIN);
+        assertEquals(ReplyRules.Reason.QUIET_HOURS, ReplyRules.reason(d));
+        assertTrue(r.describe(d).contains("rule#1='quiet 00:00-24:00'"));
+        assertEquals("ALLOW", r.describe(ReplyRules.ALLOW));
+    }
+
+    @Test
+    public void rejectsBadRules() {
+        String[] bad = {"cooldown 10m", "cooldown OTHER 10m", "cooldown SAME 10x", "daily-cap 0",
+                "quiet 23:00", "quiet 07:00-07:00", "quiet 25:00-01:00", "snooze 1h"};
+        for (String text : bad) {
+            try {
+                ReplyRules.compile("# ok\n" + text, SEOUL);
+                fail(text);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("line 2:"));
+            }
+        }
+    }
+
+    @Test
+    public void historyHorizonCoversLongestRule() {
+        assertEquals(5 * MIN, ReplyRules.defaults().historyHorizonMs(5 * MIN));
+        assertEquals(0L, ReplyRules.defaults().historyHorizonMs(0L));
+
+        // 설정 쿨타임이 0 이어도 타입별 규칙 기간은 남겨야 한다
+        ReplyRules perType = ReplyRules.compile("cooldown-both $cooldown\ncooldown SAME 1h", SEOUL);
+        assertEquals(HOUR, perType.historyHorizonMs(0L));
+        assertEquals(2 * HOUR, perType.historyHorizonMs(2 * HOUR));
+
+        assertEquals(DAY, ReplyRules.compile("daily-cap 3\ncooldown ANY 10m", SEOUL).historyHorizonMs(0L));
+        assertEquals(0L, ReplyRules.compile("quiet 23:00-07:00", SEOUL).historyHorizonMs(0L));
+    }
+
+    /**
+     * 기존 A~D: (A) 두 타입 모두 보낸 적 없음 / (B) 한쪽만 → 허용,
+     * (C) 둘 다 보낸 적 있음 + 쿨타임 안 지남 → 남은 ms, (D) 지남 → 허용
+     */
+    private static long legacyRemainMs(long lastM, long lastN, long now, long cooldownMs) {
+        if (lastM <= 0 || lastN <= 0 || cooldownMs <= 0) return 0L;
+        long remain = cooldownMs - (now - Math.max(lastM, lastN));
+        return remain > 0 ? remain : 0L;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.catchcall.domain;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/** 컴파일된 자동문자 템플릿: 자리표시자/기본값/이스케이프 렌더와 GSM 7bit · UCS-2 분할 수 */
+public class ReplyTemplateTest {
+    private static final TimeZone SEOUL = TimeZone.getTimeZone("Asia/Seoul");
+    private static final long MIN = 60_000L;
+
+    // 2026-01-01 00:00 KST
+    private static final long DAY0 = 1767193200000L;
+
+    private static ReplyTemplate.Values values(String name, int missedCount) {
+        ReplyTemplate.Values v = new ReplyTemplate.Values();
+        v.name = name;
+        v.time = DAY0 + 9 * 60 * MIN + 5 * MIN;
+        v.missedCount = missedCount;
+        v.callbackAt = v.time + 30 * MIN;
+        v.zone = SEOUL;
+        return v;
+    }
+
+    @Test
+    public void rendersPlaceholders() {
+        ReplyTemplate t = ReplyTemplate.compile("{name|고객}님, {time}에 주신 전화({missedCount}회) {callbackEta}까지 연락드릴게요.");
+        assertTrue(t.isPersonalized());
+        assertEquals("홍길동님, 09:05에 주신 전화(2회) 09:35까지 연락드릴게요.", t.render(values("홍길동", 2)));
+
+        // 값이 없으면 '|' 뒤 기본값, 기본값도 없으면 빈 문자열
+        ReplyTemplate.Values empty = new ReplyTemplate.Values();
+        assertEquals("고객님, 에 주신 전화(회) 까지 연락드릴게요.", t.render(empty));
+    }
+
+    @Test
+    public void escapesAndUnknownStayLiteral() {
+        ReplyTemplate t = ReplyTemplate.compile("{{name}} {nickname} {name {time");
+        assertFalse(t.isPersonalized());
+        assertEquals(1, t.pieces());
+        assertEquals("{name} {nickname} {name {time", t.render(values("홍길동", 1)));
+
+        ReplyTemplate plain = ReplyTemplate.compile("지금은 통화가 어렵습니다.");
+        assertFalse(plain.isPersonalized());
+        assertEquals(plain.source(), plain.render(values("홍길동", 1)));
+        assertEquals("", ReplyTemplate.compile(null).render(new ReplyTemplate.Values()));
+    }
+
+    @Test
+    public void onlyPairedBracesAreEscapes() {
+        ReplyTemplate.Values v = values("홍길동", 1);
+        // 짝 없는 }} / {{ 는 그대로 (예전 문구 보존)
+        assertEquals("감사합니다 :-}}", ReplyTemplate.compile("감사합니다 :-}}").render(v));
+        assertEquals("a }} b {{ c", ReplyTemplate.compile("a }} b {{ c").render(v));
+        assertEquals("{a} }}", ReplyTemplate.compile("{{a}} }}").render(v));
+
+        // 짝은 겹치지 않는다: 열린 {{ 안의 {{ 는 글자
+        assertEquals("{a {{b}", ReplyTemplate.compile("{{a {{b}}").render(v));
+        assertEquals("{x}{y}", ReplyTemplate.compile("{{x}}{{y}}").render(v));
+
+        // 짝 안의 자리표시자는 채운다, 짝 없는 {{ 뒤 자리표시자도
+        assertEquals("{ 홍길동 }", ReplyTemplate.compile("{{ {name} }}").render(v));
+        assertEquals("{09:05", ReplyTemplate.compile("{{time}").render(v));
+
+        // 자리표시자가 없어도 렌더 결과(보낼 본문)는 source 가 아니다
+        ReplyTemplate escaped = ReplyTemplate.compile("use {{braces}} here");
+        assertFalse(escaped.isPersonalized());
+        ReplyTemplate.Output out = new ReplyTemplate.Output();
+        escaped.render(v, out);
+        assertEquals("use {braces} here", out.text.toString());
+        assertEquals(out.text.length() + 2, out.codeUnits);        // { } 는 확장 문자 (2 septet)
+    }
+
+    @Test
+    public void fallbackEdges() {
+        ReplyTemplate.Values none = new ReplyTemplate.Values();
+        assertEquals("[]", ReplyTemplate.compile("[{name|}]").render(none));             // 빈 기본값
+        assertEquals("곧 연락", ReplyTemplate.compile("{callbackEta|곧} 연락").render(none));
+        assertEquals("a|b", ReplyTemplate.compile("{name|a|b}").render(none));           // 첫 '|' 뒤 전부
+        assertEquals("고객 님", ReplyTemplate.compile("{name|고객 님}").render(none));
+
+        ReplyTemplate.Values blank = values("", 1);                                        // 빈 이름 = 없음
+        assertEquals("고객", ReplyTemplate.compile("{name|고객}").render(blank));
+
+        // 모르는 이름, 닫히지 않은 자리표시자, 이름 없는 기본값은 그대로
+        ReplyTemplate t = ReplyTemplate.compile("{nickname|고객} {|x} {name|고객");
+        assertFalse(t.isPersonalized());
+        assertEquals("{nickname|고객} {|x} {name|고객", t.render(values("홍길동", 1)));
+    }
+
+    @Test
+    public void reusedOutputIsCleared() {
+        ReplyTemplate t = ReplyTemplate.compile("Hi {name|there}");
+        ReplyTemplate.Output out = new ReplyTemplate.Output();
+        t.render(values("Alexander", 1), out);
+        assertEquals("Hi Alexander", out.text.toString());
+        t.render(values(null, 1), out);
+        assertEquals("Hi there", out.text.toString());
+        assertEquals(ReplyTemplate.ENCODING_7BIT, out.encoding);
+        assertEquals(8, out.codeUnits);
+        assertEquals(152, out.codeUnitsRemaining);
+    }
+
+    @Test
+    public void segmentBoundaries() {
+        ReplyTemplate.Output out = new ReplyTemplate.Output();
+        ReplyTemplate.Values v = new ReplyTemplate.Values();
+
+        // GSM 7bit: 160 까지 1통, 161 부터 153 단위
+        ReplyTemplate.compile(repeat('a', 160)).render(v, out);
+        assertEquals(ReplyTemplate.ENCODING_7BIT, out.encoding);
+        assertEquals(1, out.segments);
+        assertEquals(0, out.codeUnitsRemaining);
+        ReplyTemplate.compile(repeat('a', 161)).render(v, out);
+        assertEquals(2, out.segments);
+        assertEquals(2 * 153 - 161, out.codeUnitsRemaining);
+        ReplyTemplate.compile(repeat('a', 307)).render(v, out);
+        assertEquals(3, out.segments);
+
+        // 확장 문자(ESC + 문자)는 2 septet: 80개 = 160
+        ReplyTemplate.compile(repeat('€', 80)).render(v, out);
+        assertEquals(ReplyTemplate.ENCODING_7BIT, out.encoding);
+        assertEquals(160, out.codeUnits);
+        assertEquals(1, out.segments);
+        ReplyTemplate.compile(repeat('[', 80) + "a").render(v, out);
+        assertEquals(2, out.segments);
+
+        // UCS-2: 70 까지 1통, 71 부터 67 단위
+        ReplyTemplate.compile(repeat('가', 70)).render(v, out);
+        assertEquals(ReplyTemplate.ENCODING_16BIT, out.encoding);
+        assertEquals(1, out.segments);
+        ReplyTemplate.compile(repeat('가', 71)).render(v, out);
+        assertEquals(2, out.segments);
+        assertEquals(2 * 67 - 71, out.codeUnitsRemaining);
+    }
+
+    @Test
+    public void slotValueDecidesEncoding() {
+        ReplyTemplate t = ReplyTemplate.compile("Hello {name|friend}, call you at {callbackEta}.");
+        ReplyTemplate.Output out = new ReplyTemplate.Output();
+        t.render(values("Kim", 1), out);
+        assertEquals(ReplyTemplate.ENCODING_7BIT, out.encoding);
+        assertEquals(out.text.length(), out.codeUnits);
+
+        t.render(values("김철수", 1), out);                  // 이름 하나로 UCS-2
+        assertEquals(ReplyTemplate.ENCODING_16BIT, out.encoding);
+        assertEquals(out.text.length(), out.codeUnits);
+
+        assertEquals(-1, ReplyTemplate.septets("ok 가"));
+        assertEquals(7, ReplyTemplate.septets("a{b}c"));     // { } 는 확장 문자
+    }
+
+    private static String repeat(char c, int n) {
+        char[] a = new char[n];
+        Arrays.fill(a, c);
+        return new String(a);
+    }
+}
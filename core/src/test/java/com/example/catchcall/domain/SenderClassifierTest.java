@@ -0,0 +1,125 @@
+package com.example.catchcall.domain;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/** 발신 번호 분류: 기본 규칙이 기존 판정과 같은지, 긴 접두번호/자릿수 우선, 이름 tag, 규칙 파일 오류 */
+public class SenderClassifierTest {
+
+    // 휴대폰/유선/대표번호/수신자부담/국제/단축/영문 발신자 등
+    private static final String[] CORPUS = {
+            "01012345678", "+821012345678", "821012345678", "0212345678", "031-123-4567", "+82 2 1234 5678",
+            "15881234", "15447777", "16449999", "18005555", "1588", "159", "114", "1345",
+            "0801234567", "080-123-4567", "08012345678", "00700", "001821012345678", "+14155550123",
+            "#CMAS#Presidential", "VMS", "Voicemail", "voicemail@carrier", "KT", "SKTelecom", "LG U+",
+            "T world", "Samsung Card", "*86", "Anonymous", "", "0", "+", "1666-1234", "15 88 12 34",
+    };
+    // 기존 판정과 의도적으로 다른 입력 (구분자를 무시하도록 바뀜)
+    private static final String[] SEPARATOR_CASES = {"1666-1234", "15 88 12 34"};
+
+    @Test
+    public void defaultRulesMatchLegacyDecision() throws IOException {
+        SenderClassifier c = SenderClassifier.compile(defaultRules());
+
+        for (String from : CORPUS) {
+            boolean changed = false;
+            for (String s : SEPARATOR_CASES) changed |= s.equals(from);
+            boolean trie = c.classify(from) != SenderClassifier.Category.NORMAL;
+            if (changed) assertTrue(from, trie);
+            else if (!from.isEmpty()) assertEquals(from, legacy(from), trie);
+        }
+        assertEquals(SenderClassifier.Category.CARRIER, c.classify("15881234"));
+        assertEquals(SenderClassifier.Category.TOLL_FREE, c.classify("080-123-4567"));
+        assertEquals(SenderClassifier.Category.INTERNATIONAL, c.classify("001821012345678"));
+        assertEquals(SenderClassifier.Category.VOICEMAIL, c.classify("VMS"));
+        assertEquals(SenderClassifier.Category.NORMAL, c.classify("01012345678"));
+        assertEquals(SenderClassifier.Category.NORMAL, c.classify("159"));
+    }
+
+    @Test
+    public void tagsAndDigitEdges() throws IOException {
+        SenderClassifier c = SenderClassifier.compile(defaultRules());
+        assertEquals(SenderClassifier.Category.VOICEMAIL, c.classify("Voice Mail 1588"));     // tag 가 숫자 규칙보다 먼저
+        assertEquals(SenderClassifier.Category.VOICEMAIL, c.classify("my-vms-box"));
+        assertEquals(SenderClassifier.Category.NORMAL, c.classify("Card 1588"));             // 문자가 섞인 번호는 일반
+        assertEquals(SenderClassifier.Category.NORMAL, c.classify(null));
+        assertEquals(SenderClassifier.Category.NORMAL, c.classify("---"));
+        assertEquals(SenderClassifier.Category.NORMAL, c.classify("1+588"));                  // 중간 '+' 는 문자
+
+        // MAX_DIGITS 를 넘는 주소는 마지막 칸(열린 범위 규칙만 해당)으로
+        StringBuilder longer = new StringBuilder("15");
+        while (longer.length() < SenderClassifier.MAX_DIGITS + 5) longer.append('0');
+        assertEquals(SenderClassifier.Category.CARRIER, c.classify(longer));
+        SenderClassifier bounded = SenderClassifier.compile("CARRIER 15 4-8");
+        assertEquals(SenderClassifier.Category.NORMAL, bounded.classify(longer));
+        assertEquals(SenderClassifier.Category.NORMAL, bounded.classify("158"));
+        assertEquals(SenderClassifier.Category.CARRIER, bounded.classify("1588"));
+    }
+
+    @Test
+    public void longerPrefixAndLengthRulesWin() {
+        SenderClassifier c = SenderClassifier.compile(
+                "CARRIER 15 4-\n"
+                        + "NORMAL 1541 8   # 예외: 1541-xxxx 는 일반\n"
+                        + "VOICEMAIL +82-2-123 \n"
+                        + "TOLL_FREE 080 10-11\n");
+        assertEquals(SenderClassifier.Category.CARRIER, c.classify("15411234567"));
+        assertEquals(SenderClassifier.Category.NORMAL, c.classify("15411234"));
+        assertEquals(SenderClassifier.Category.VOICEMAIL, c.classify("+82 2 1234 5678"));
+        assertEquals(SenderClassifier.Category.NORMAL, c.classify("080123"));
+        assertEquals(SenderClassifier.Category.TOLL_FREE, c.classify("0801234567"));
+        try {
+            SenderClassifier.compile("CARRIER 15x");
+            fail("bad prefix accepted");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("line 1"));
+        }
+    }
+
+    @Test
+    public void badRuleLinesReportTheirLineNumber() {
+        String[] bad = {"CARRIER 15 8-4", "CARRIER 15 40", "PREMIUM 15", "CARRIER", "VOICEMAIL tag:", "VOICEMAIL tag:vms 3",
+                "CARRIER 15 4 extra"};
+        for (String line : bad) {
+            try {
+                SenderClassifier.compile("# 주석\n\n" + line);
+                fail("accepted: " + line);
+            } catch (IllegalArgumentException expected) {
+                assertTrue(line, expected.getMessage().contains("line 3"));
+            }
+        }
+        SenderClassifier empty = SenderClassifier.compile("# 규칙 없음\n");
+        assertEquals(0, empty.ruleCount());
+        assertEquals(SenderClassifier.Category.NORMAL, empty.classify("15881234"));
+    }
+
+    /** 기존 SmsReceiver.isCarrierOrSystemAddress */
+    private static boolean legacy(String from) {
+        if (from == null || from.isEmpty()) return true;
+        String f = from.trim();
+        if (f.matches("^(15|16|18)\\d{2,}$")) return true;
+        if (f.startsWith("080")) return true;
+        if (f.startsWith("00")) return true;
+        String lower = f.toLowerCase(Locale.KOREA);
+        return lower.contains("voicemail") || lower.contains("vms");
+    }
+
+    /** 앱 기본 규칙 (테스트 클래스패스의 res/raw) */
+    private static String defaultRules() throws IOException {
+        try (InputStream in = SenderClassifierTest.class.getResourceAsStream("/sender_rules.txt")) {
+            if (in == null) throw new IOException("sender_rules.txt not on test classpath");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}